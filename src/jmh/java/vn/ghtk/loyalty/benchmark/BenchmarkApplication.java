@@ -0,0 +1,118 @@
+package vn.ghtk.loyalty.benchmark;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import vn.ghtk.loyalty.config.AsyncConfig;
+import vn.ghtk.loyalty.config.CheckinConfig;
+import vn.ghtk.loyalty.config.IdempotencyConfig;
+import vn.ghtk.loyalty.config.LimiterConfig;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.config.ReplicaDataSourceConfig;
+import vn.ghtk.loyalty.service.impl.CheckinCalendarServiceImpl;
+import vn.ghtk.loyalty.service.impl.CheckinServiceImpl;
+import vn.ghtk.loyalty.service.impl.CheckinTransactionServiceImpl;
+import vn.ghtk.loyalty.service.impl.IdempotencyServiceImpl;
+import vn.ghtk.loyalty.service.impl.LoggingPointsEventSink;
+import vn.ghtk.loyalty.service.impl.PointsHistoryWriterImpl;
+import vn.ghtk.loyalty.service.impl.PointsOutboxServiceImpl;
+import vn.ghtk.loyalty.service.impl.PointsServiceImpl;
+import vn.ghtk.loyalty.service.impl.PointsTransactionServiceImpl;
+import vn.ghtk.loyalty.service.impl.ReadRoutingServiceImpl;
+import vn.ghtk.loyalty.support.InMemoryRedissonClient;
+import vn.ghtk.loyalty.util.AdaptiveConcurrencyLimiter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Minimal context for the benchmarks: the real services and repositories on H2 (MySQL mode), Redis served by
+ * an in-process jedis-mock server (so Lua scripts really run), Redisson replaced by an in-process lock stand-in
+ * and the clock pinned inside the morning window.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(
+        exclude = {
+                RedisAutoConfiguration.class,
+                RedisRepositoriesAutoConfiguration.class,
+                SecurityAutoConfiguration.class,
+                UserDetailsServiceAutoConfiguration.class
+        },
+        excludeName = "org.redisson.spring.starter.RedissonAutoConfigurationV2")
+@EnableJpaRepositories(basePackages = "vn.ghtk.loyalty.repository")
+@EntityScan(basePackages = "vn.ghtk.loyalty.entity")
+@Import({
+        AsyncConfig.class,
+        CheckinConfig.class,
+        IdempotencyConfig.class,
+        LimiterConfig.class,
+        OutboxConfig.class,
+        PointsConfig.class,
+        ReplicaDataSourceConfig.class,
+        CheckinServiceImpl.class,
+        CheckinCalendarServiceImpl.class,
+        CheckinTransactionServiceImpl.class,
+        IdempotencyServiceImpl.class,
+        LoggingPointsEventSink.class,
+        PointsHistoryWriterImpl.class,
+        PointsOutboxServiceImpl.class,
+        PointsServiceImpl.class,
+        PointsTransactionServiceImpl.class,
+        ReadRoutingServiceImpl.class,
+        AdaptiveConcurrencyLimiter.class
+})
+public class BenchmarkApplication {
+
+    public static final LocalDate BENCHMARK_DATE = LocalDate.of(2025, 1, 15);
+
+    @Bean
+    public Clock clock() {
+        ZoneId zone = ZoneId.systemDefault();
+        return Clock.fixed(BENCHMARK_DATE.atTime(LocalTime.of(9, 30)).atZone(zone).toInstant(), zone);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public RedisServer embeddedRedisServer() throws IOException {
+        return RedisServer.newRedisServer().start();
+    }
+
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisServer embeddedRedisServer) {
+        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                embeddedRedisServer.getHost(), embeddedRedisServer.getBindPort()));
+    }
+
+    @Bean
+    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, String> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new StringRedisSerializer());
+        return template;
+    }
+
+    @Bean
+    public RedissonClient redissonClient() {
+        return InMemoryRedissonClient.create();
+    }
+}
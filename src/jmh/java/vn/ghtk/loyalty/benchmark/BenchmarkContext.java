@@ -0,0 +1,83 @@
+package vn.ghtk.loyalty.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckin;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots {@link BenchmarkApplication} and seeds/reset the H2 tables between iterations.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    public static BenchmarkContext start(String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .profiles("bench")
+                .properties(properties)
+                .run();
+        return new BenchmarkContext(context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Inserts users with ids {@code 1..count}, each holding {@code initialPoints}.
+     */
+    public void seedUsers(int count, int initialPoints) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long id = 1; id <= count; id++) {
+            batch.add(new Object[]{id, "bench-user-" + id, "{noop}password", "Bench User " + id, initialPoints, now, now});
+            if (batch.size() == SEED_BATCH_SIZE || id == count) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO users (id, username, password, name, total_points, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Clears check-ins, history and the embedded Redis so every user can check in again. Every user gets an empty
+     * summary row for the benchmark month, as after a backfill, so check-ins measure the steady state.
+     */
+    public void resetActivity(int initialPoints) {
+        jdbcTemplate.update("DELETE FROM daily_checkin");
+        jdbcTemplate.update("DELETE FROM user_monthly_checkin");
+        jdbcTemplate.update("INSERT INTO user_monthly_checkin (user_id, checkin_month, checkin_count, last_order, " +
+                "points_earned, updated_at) SELECT id, ?, 0, 0, 0, CURRENT_TIMESTAMP FROM users",
+                UserMonthlyCheckin.monthKey(YearMonth.from(BenchmarkApplication.BENCHMARK_DATE)));
+        jdbcTemplate.update("DELETE FROM user_points_history");
+        jdbcTemplate.update("DELETE FROM user_points_history_buffer");
+        jdbcTemplate.update("UPDATE users SET total_points = ?", initialPoints);
+        context.getBean(RedisTemplate.class).execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
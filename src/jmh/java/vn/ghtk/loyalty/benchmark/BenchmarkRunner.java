@@ -0,0 +1,40 @@
+package vn.ghtk.loyalty.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks at 1, 8 and 64 concurrent users, reporting throughput, the latency
+ * distribution (p99 from sample mode) and allocation rate from the GC profiler.
+ * <p>
+ * Arguments are benchmark include patterns; by default every benchmark in this package runs.
+ * Results are written to {@code target/jmh-result-<threads>t.json}.
+ */
+public final class BenchmarkRunner {
+
+    private static final int[] CONCURRENT_USERS = {1, 8, 64};
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : CONCURRENT_USERS) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-result-" + threads + "t.json");
+            if (args.length == 0) {
+                options.include(BenchmarkRunner.class.getPackageName() + "\\..*Benchmark");
+            }
+            for (String include : args) {
+                options.include(include);
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package vn.ghtk.loyalty.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.service.CheckinService;
+import vn.ghtk.loyalty.service.CheckinTransactionService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Window-open burst: every invocation is a different user checking in for the first time today.
+ * Activity is wiped before each iteration; if an iteration outruns the user pool the extra calls
+ * take the "already checked in" early exit, which is counted separately. {@code WRITE_BEHIND} buffers the history
+ * row; the flush job is not part of the context, so the buffer just grows during an iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckinBenchmark {
+
+    @Param({"200000"})
+    public int users;
+
+    @Param({"SYNC", "WRITE_BEHIND"})
+    public String historyWriteMode;
+
+    @Param({"STANDARD", "STREAMLINED"})
+    public String transactionMode;
+
+    private BenchmarkContext context;
+    private CheckinService checkinService;
+    private CheckinTransactionService checkinTransactionService;
+    private final AtomicLong nextUserId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start(
+                "loyalty.points.history-write-mode=" + historyWriteMode,
+                "loyalty.checkin.transaction-mode=" + transactionMode);
+        context.seedUsers(users, 0);
+        checkinService = context.getBean(CheckinService.class);
+        checkinTransactionService = context.getBean(CheckinTransactionService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetActivity() {
+        context.resetActivity(0);
+        nextUserId.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public void checkin(RejectionCounters rejections, Blackhole blackhole) {
+        try {
+            blackhole.consume(checkinService.checkin(nextUserId(), null));
+        } catch (BusinessException e) {
+            rejections.rejected++;
+        }
+    }
+
+    @Benchmark
+    public void doCheckinTransactional(RejectionCounters rejections, Blackhole blackhole) {
+        try {
+            blackhole.consume(checkinTransactionService.doCheckinTransactional(
+                    nextUserId(), BenchmarkApplication.BENCHMARK_DATE));
+        } catch (BusinessException e) {
+            rejections.rejected++;
+        }
+    }
+
+    private long nextUserId() {
+        return nextUserId.getAndIncrement() % users + 1;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RejectionCounters {
+
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rejected = 0;
+        }
+    }
+}
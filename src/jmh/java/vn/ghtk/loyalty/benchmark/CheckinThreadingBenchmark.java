@@ -0,0 +1,102 @@
+package vn.ghtk.loyalty.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.service.CheckinService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Window-open burst served the way Tomcat would: {@code PLATFORM} is a 200-thread pool (Tomcat's default
+ * {@code max-threads}), {@code VIRTUAL} is one virtual thread per request ({@code spring.threads.virtual.enabled}).
+ * Each invocation submits {@value #BURST} check-ins of distinct users and waits for all of them; the Hikari pool
+ * stays at 10 connections in both modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class CheckinThreadingBenchmark {
+
+    private static final int PLATFORM_POOL_SIZE = 200;
+    private static final int BURST = 2_000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String threading;
+
+    @Param({"200000"})
+    public int users;
+
+    private BenchmarkContext context;
+    private CheckinService checkinService;
+    private ExecutorService executor;
+    private final AtomicLong nextUserId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start();
+        context.seedUsers(users, 0);
+        checkinService = context.getBean(CheckinService.class);
+        executor = "VIRTUAL".equals(threading)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetActivity() {
+        context.resetActivity(0);
+        nextUserId.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int checkinBurst(RejectionCounters rejections) throws Exception {
+        List<Future<Boolean>> results = new ArrayList<>(BURST);
+        for (int i = 0; i < BURST; i++) {
+            long userId = nextUserId.getAndIncrement() % users + 1;
+            results.add(executor.submit(() -> {
+                try {
+                    return checkinService.checkin(userId, null).getSuccess();
+                } catch (BusinessException e) {
+                    return false;
+                }
+            }));
+        }
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (Boolean.TRUE.equals(result.get())) {
+                succeeded++;
+            } else {
+                rejections.rejected++;
+            }
+        }
+        return succeeded;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RejectionCounters {
+
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rejected = 0;
+        }
+    }
+}
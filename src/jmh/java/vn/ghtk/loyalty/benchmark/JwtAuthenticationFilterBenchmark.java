@@ -0,0 +1,142 @@
+package vn.ghtk.loyalty.benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.filter.JwtAuthenticationFilter;
+import vn.ghtk.loyalty.util.JwtUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticating one request from a pool of {@code tokens} active users.
+ * <ul>
+ *     <li>{@code legacy}: the previous filter body, which rebuilt the key and parser and parsed the token twice
+ *     (validateToken, then extractUserId)</li>
+ *     <li>{@code singleParse}: {@link JwtAuthenticationFilter} with the verified-token cache disabled</li>
+ *     <li>{@code cached}: {@link JwtAuthenticationFilter} as configured, repeat tokens hit the cache</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "loyalty-service-secret-key-for-jwt-token-generation-minimum-256-bits";
+
+    @Param({"1000"})
+    public int tokens;
+
+    private String[] bearerTokens;
+    private JwtAuthenticationFilter singleParseFilter;
+    private JwtAuthenticationFilter cachedFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtUtil uncachedJwtUtil = newJwtUtil(0);
+        JwtUtil cachedJwtUtil = newJwtUtil(100_000);
+        singleParseFilter = newFilter(uncachedJwtUtil);
+        cachedFilter = newFilter(cachedJwtUtil);
+
+        bearerTokens = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            bearerTokens[i] = "Bearer " + cachedJwtUtil.generateToken(String.valueOf(i + 1));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final FilterChain chain = new MockFilterChain();
+    }
+
+    @Benchmark
+    public Object legacy(RequestState state) {
+        String token = nextToken(state).substring(7);
+        if (legacyValidateToken(token)) {
+            String userId = legacyExtractUserId(token);
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(userId, null, null));
+        }
+        return clearContext();
+    }
+
+    @Benchmark
+    public Object singleParse(RequestState state) throws Exception {
+        nextToken(state);
+        singleParseFilter.doFilter(state.request, state.response, new MockFilterChain());
+        return clearContext();
+    }
+
+    @Benchmark
+    public Object cached(RequestState state) throws Exception {
+        nextToken(state);
+        cachedFilter.doFilter(state.request, state.response, new MockFilterChain());
+        return clearContext();
+    }
+
+    private String nextToken(RequestState state) {
+        String bearer = bearerTokens[ThreadLocalRandom.current().nextInt(tokens)];
+        state.request.removeHeader("Authorization");
+        state.request.addHeader("Authorization", bearer);
+        return bearer;
+    }
+
+    private static Object clearContext() {
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private static boolean legacyValidateToken(String token) {
+        try {
+            Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseSignedClaims(token);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String legacyExtractUserId(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    private static JwtUtil newJwtUtil(long cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTtlSeconds", 300L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static JwtAuthenticationFilter newFilter(JwtUtil jwtUtil) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "adminUserIds", Set.of());
+        return filter;
+    }
+}
@@ -0,0 +1,63 @@
+package vn.ghtk.loyalty.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.service.PointsService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deductions of one point spread over a pool of users; a small pool means threads contend on the
+ * same per-user lock and row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PointsDeductionBenchmark {
+
+    private static final int INITIAL_POINTS = 1_000_000_000;
+
+    @Param({"1000"})
+    public int users;
+
+    @Param({"LOCK", "CONDITIONAL_UPDATE"})
+    public String deductionMode;
+
+    private BenchmarkContext context;
+    private PointsService pointsService;
+    private final DeductPointsRequest request = new DeductPointsRequest(1);
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start("loyalty.points.deduction-mode=" + deductionMode);
+        context.seedUsers(users, INITIAL_POINTS);
+        pointsService = context.getBean(PointsService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetActivity() {
+        context.resetActivity(INITIAL_POINTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deductPoints() {
+        pointsService.deductPoints(ThreadLocalRandom.current().nextLong(users) + 1, request, null);
+    }
+
+    /**
+     * Retry storm: every call replays the same Idempotency-Key, so after the first one it is a Redis hit.
+     */
+    @Benchmark
+    public void deductPointsReplay() {
+        pointsService.deductPoints(1L, request, "bench-replay");
+    }
+}
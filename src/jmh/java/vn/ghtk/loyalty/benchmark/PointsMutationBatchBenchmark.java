@@ -0,0 +1,74 @@
+package vn.ghtk.loyalty.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationBatchRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationItemRequest;
+import vn.ghtk.loyalty.enums.PointsMutationType;
+import vn.ghtk.loyalty.service.PointsService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@value #ITEMS} one-point deductions for distinct users, applied either by looping over the single-item
+ * deduction or with one batch call. Scores are per item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PointsMutationBatchBenchmark {
+
+    private static final int ITEMS = 1000;
+    private static final int INITIAL_POINTS = 1_000_000_000;
+
+    private BenchmarkContext context;
+    private PointsService pointsService;
+    private PointsMutationBatchRequest batchRequest;
+    private final DeductPointsRequest singleRequest = new DeductPointsRequest(1);
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start();
+        context.seedUsers(ITEMS, INITIAL_POINTS);
+        pointsService = context.getBean(PointsService.class);
+
+        List<PointsMutationItemRequest> items = new ArrayList<>(ITEMS);
+        for (long userId = 1; userId <= ITEMS; userId++) {
+            items.add(PointsMutationItemRequest.builder()
+                    .userId(userId)
+                    .type(PointsMutationType.DEDUCT)
+                    .points(1)
+                    .build());
+        }
+        batchRequest = new PointsMutationBatchRequest(items);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetActivity() {
+        context.resetActivity(INITIAL_POINTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void singleItemLoop() {
+        for (long userId = 1; userId <= ITEMS; userId++) {
+            pointsService.deductPoints(userId, singleRequest, null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public Object batch() {
+        return pointsService.applyMutations(0L, batchRequest, null);
+    }
+}
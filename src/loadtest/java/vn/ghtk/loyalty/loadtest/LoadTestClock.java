@@ -0,0 +1,43 @@
+package vn.ghtk.loyalty.loadtest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Ticking clock that can be moved to any wall-clock time, so every burst starts exactly at window open
+ * (and on a new day) whatever the hour the load test runs at.
+ */
+public class LoadTestClock extends Clock {
+
+    private final Clock system;
+    private volatile Duration offset = Duration.ZERO;
+
+    public LoadTestClock(Clock system) {
+        this.system = system;
+    }
+
+    /**
+     * From now on the clock reads {@code dateTime} and keeps ticking from there.
+     */
+    public void moveTo(LocalDateTime dateTime) {
+        offset = Duration.between(system.instant(), dateTime.atZone(system.getZone()).toInstant());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return system.getZone();
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException("LoadTestClock is bound to " + system.getZone());
+    }
+
+    @Override
+    public Instant instant() {
+        return system.instant().plus(offset);
+    }
+}
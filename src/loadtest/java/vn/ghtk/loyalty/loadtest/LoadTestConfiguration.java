@@ -0,0 +1,44 @@
+package vn.ghtk.loyalty.loadtest;
+
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import vn.ghtk.loyalty.support.InMemoryRedissonClient;
+
+import java.time.Clock;
+
+/**
+ * Local stand-ins for the full application: the movable clock and the in-process Redisson client replace the
+ * {@code clock} of {@code ClockConfig} and the {@code redissonClient} of {@code RedisConfig} (Redisson cannot
+ * talk to jedis-mock). Redis itself is the jedis-mock server started by {@link LoadTestRunner}.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfiguration {
+
+    /**
+     * Drops the real definitions and points their names at the stand-ins, independent of the order in which
+     * the configuration classes were scanned.
+     */
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor loadTestStandIns() {
+        return registry -> {
+            registry.removeBeanDefinition("clock");
+            registry.registerAlias("loadTestClock", "clock");
+            registry.removeBeanDefinition("redissonClient");
+            registry.registerAlias("loadTestRedissonClient", "redissonClient");
+        };
+    }
+
+    @Bean
+    public LoadTestClock loadTestClock() {
+        return new LoadTestClock(Clock.systemDefaultZone());
+    }
+
+    @Bean
+    public RedissonClient loadTestRedissonClient() {
+        return InMemoryRedissonClient.create();
+    }
+}
@@ -0,0 +1,84 @@
+package vn.ghtk.loyalty.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one phase of the load test, per endpoint. Thread-safe without locks, since the
+ * requests complete on virtual threads.
+ */
+public class LoadTestReport {
+
+    private final String title;
+    private final Map<String, Queue<Long>> latenciesByEndpoint = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errorsByEndpointAndCause = new ConcurrentHashMap<>();
+    private volatile long wallTimeNanos;
+
+    public LoadTestReport(String title) {
+        this.title = title;
+    }
+
+    public void record(String endpoint, long latencyNanos, String error) {
+        latenciesByEndpoint.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(latencyNanos);
+        if (error != null) {
+            errorsByEndpointAndCause.computeIfAbsent(endpoint + "  " + error, key -> new LongAdder()).increment();
+        }
+    }
+
+    public void setWallTimeNanos(long wallTimeNanos) {
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    /**
+     * Adds the samples of {@code other} to this report; wall times add up.
+     */
+    public void merge(LoadTestReport other) {
+        other.latenciesByEndpoint.forEach((endpoint, latencies) ->
+                latenciesByEndpoint.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).addAll(latencies));
+        other.errorsByEndpointAndCause.forEach((cause, count) ->
+                errorsByEndpointAndCause.computeIfAbsent(cause, key -> new LongAdder()).add(count.sum()));
+        wallTimeNanos += other.wallTimeNanos;
+    }
+
+    public void print(PrintStream out) {
+        double seconds = wallTimeNanos / 1e9;
+        out.printf("%n=== %s (%.2f s) ===%n", title, seconds);
+        out.printf("%-28s %9s %9s %9s %8s %8s %8s %8s %8s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        new TreeMap<>(latenciesByEndpoint).forEach((endpoint, latencies) -> {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            long errors = errorsByEndpointAndCause.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(endpoint + "  "))
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+            out.printf("%-28s %9d %9d %9.1f %8.1f %8.1f %8.1f %8.1f %8.1f%n",
+                    endpoint, sorted.length, errors, sorted.length / seconds,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)),
+                    millis(percentile(sorted, 0.99)), millis(percentile(sorted, 0.999)),
+                    millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        });
+        if (!errorsByEndpointAndCause.isEmpty()) {
+            out.println("errors:");
+            new TreeMap<>(errorsByEndpointAndCause).forEach((cause, count) ->
+                    out.printf("  %7d  %s%n", count.sum(), cause));
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,248 @@
+package vn.ghtk.loyalty.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import vn.ghtk.loyalty.LoyaltyServiceApplication;
+import vn.ghtk.loyalty.dto.request.CreateUserRequest;
+import vn.ghtk.loyalty.service.UserService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reproduces the window-open stampede offline: starts the full application (HTTP, security, controllers) on
+ * H2 in MySQL mode with an in-process jedis-mock Redis, seeds users through {@link UserService#createUser},
+ * logs them in over HTTP, then fires synchronized check-in bursts mixed with status, profile and points
+ * history reads. Before every burst {@link LoadTestClock} is moved to window open on a new day, so the run
+ * does not depend on the hour and every burst is a first check-in of the day.
+ * <p>
+ * Arguments ({@code --name=value}): {@code users} (500), {@code bursts} (3), {@code reads-per-checkin} (3),
+ * {@code window-open} (09:00), {@code start-date} (today).
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+    private static final String PASSWORD = "loadtest-password";
+    private static final String CHECKIN = "POST /api/checkin";
+    private static final List<String> READS = List.of(
+            "GET /api/checkin/status",
+            "GET /api/users/profile",
+            "GET /api/points/history");
+
+    private final ConfigurableApplicationContext context;
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+    private final String baseUrl;
+
+    private LoadTestRunner(ConfigurableApplicationContext context, Map<String, String> options) {
+        this.context = context;
+        this.options = options;
+        this.objectMapper = context.getBean(ObjectMapper.class);
+        this.httpClient = HttpClient.newBuilder()
+                .executor(clients)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        RedisServer redis = RedisServer.newRedisServer().start();
+        // Command-line properties, so they win over application.yml
+        String[] springArgs = {
+                "--spring.data.redis.host=" + redis.getHost(),
+                "--spring.data.redis.port=" + redis.getBindPort()
+        };
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoyaltyServiceApplication.class)
+                .profiles("loadtest")
+                .run(springArgs)) {
+            new LoadTestRunner(context, options).run();
+        } finally {
+            redis.stop();
+        }
+    }
+
+    private void run() throws Exception {
+        int users = intOption("users", 500);
+        int bursts = intOption("bursts", 3);
+        int readsPerCheckin = intOption("reads-per-checkin", 3);
+        LocalTime windowOpen = LocalTime.parse(options.getOrDefault("window-open", "09:00"));
+        LocalDate startDate = options.containsKey("start-date")
+                ? LocalDate.parse(options.get("start-date"))
+                : LocalDate.now();
+        LoadTestClock clock = context.getBean(LoadTestClock.class);
+
+        List<Long> userIds = seedUsers(users);
+        List<String> tokens = login(userIds);
+
+        LoadTestReport total = new LoadTestReport("Total: " + bursts + " bursts of " + users + " users");
+        for (int burst = 0; burst < bursts; burst++) {
+            LocalDate day = startDate.plusDays(burst);
+            clock.moveTo(day.atTime(windowOpen));
+            LoadTestReport report = runBurst(String.format("Burst %d/%d at %s %s", burst + 1, bursts, day, windowOpen),
+                    tokens, readsPerCheckin);
+            report.print(System.out);
+            total.merge(report);
+        }
+        total.print(System.out);
+        clients.shutdown();
+    }
+
+    private List<Long> seedUsers(int count) throws Exception {
+        UserService userService = context.getBean(UserService.class);
+        long started = System.nanoTime();
+        // Password hashing is CPU-bound: one platform thread per core
+        try (ExecutorService seeders = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+            List<Future<Long>> ids = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                CreateUserRequest request = new CreateUserRequest("loadtest-" + i, PASSWORD, "Load Test " + i, null);
+                ids.add(seeders.submit(() -> userService.createUser(request).getId()));
+            }
+            List<Long> userIds = new ArrayList<>(count);
+            for (Future<Long> id : ids) {
+                userIds.add(id.get());
+            }
+            log.info("Seeded {} users in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+            return userIds;
+        }
+    }
+
+    private List<String> login(List<Long> userIds) throws Exception {
+        long started = System.nanoTime();
+        List<Future<String>> tokens = new ArrayList<>(userIds.size());
+        for (int i = 1; i <= userIds.size(); i++) {
+            String body = objectMapper.writeValueAsString(Map.of("username", "loadtest-" + i, "password", PASSWORD));
+            tokens.add(clients.submit(() -> {
+                HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Login failed: " + response.statusCode() + " " + response.body());
+                }
+                return objectMapper.readTree(response.body()).path("data").path("access_token").asText();
+            }));
+        }
+        List<String> result = new ArrayList<>(tokens.size());
+        for (Future<String> token : tokens) {
+            result.add(token.get());
+        }
+        log.info("Logged in {} users in {} ms", result.size(), (System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * One check-in per user plus {@code readsPerCheckin} reads per check-in from random users, all released
+     * at the same instant.
+     */
+    private LoadTestReport runBurst(String title, List<String> tokens, int readsPerCheckin) throws Exception {
+        List<Request> requests = new ArrayList<>();
+        for (String token : tokens) {
+            requests.add(new Request(CHECKIN, "/api/checkin", token));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < tokens.size() * readsPerCheckin; i++) {
+            String endpoint = READS.get(i % READS.size());
+            requests.add(new Request(endpoint, endpoint.substring(endpoint.indexOf(' ') + 1),
+                    tokens.get(random.nextInt(tokens.size()))));
+        }
+        Collections.shuffle(requests);
+
+        LoadTestReport report = new LoadTestReport(title);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> inFlight = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            inFlight.add(clients.submit(() -> {
+                start.await();
+                send(request, report);
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> request : inFlight) {
+            request.get();
+        }
+        report.setWallTimeNanos(System.nanoTime() - started);
+        return report;
+    }
+
+    private void send(Request request, LoadTestReport report) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.path()))
+                .header("Authorization", "Bearer " + request.token())
+                .timeout(Duration.ofSeconds(60));
+        if (request.endpoint().startsWith("POST")) {
+            builder.POST(HttpRequest.BodyPublishers.noBody());
+        }
+        long started = System.nanoTime();
+        String error;
+        try {
+            HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            error = response.statusCode() / 100 == 2 ? null : response.statusCode() + " " + message(response.body());
+        } catch (IOException e) {
+            error = e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "interrupted";
+        }
+        report.record(request.endpoint(), System.nanoTime() - started, error);
+    }
+
+    /**
+     * The API error message, without the bracketed details (pool counters and the like) that would split one
+     * cause into many rows of the breakdown.
+     */
+    private String message(String body) {
+        String message;
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            message = json.path("message").asText(body);
+        } catch (IOException e) {
+            message = body;
+        }
+        int details = message.indexOf(" [");
+        return details < 0 ? message : message.substring(0, details);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private record Request(String endpoint, String path, String token) {
+    }
+}
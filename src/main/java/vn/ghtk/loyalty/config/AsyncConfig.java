@@ -0,0 +1,54 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Slf4j
+@Configuration
+@Getter
+public class AsyncConfig {
+
+    @Value("${loyalty.async.worker-threads:10}")
+    private int workerThreads;
+
+    @Value("${loyalty.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${loyalty.async.export-threads:2}")
+    private int exportThreads;
+
+    /**
+     * Runs only the DB transactions of the async endpoints; lock waits and Redis calls never occupy these threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor transactionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("tx-worker-");
+        executor.initialize();
+        log.info("Async transaction workers: {} threads, queue capacity {}", workerThreads, queueCapacity);
+        return executor;
+    }
+
+    /**
+     * Writes the body of {@code GET /api/points/history/export}, one long-running cursor per thread; there is no
+     * queue, so an export beyond {@code exportThreads} is rejected rather than held open until a thread frees up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportThreads);
+        executor.setMaxPoolSize(exportThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("export-");
+        executor.initialize();
+        log.info("Export workers: {} threads", exportThreads);
+        return executor;
+    }
+}
@@ -0,0 +1,81 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+@Getter
+public class AuthConfig {
+
+    @Value("${loyalty.auth.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${loyalty.auth.hashing-threads:0}")
+    private int hashingThreads;
+
+    @Value("${loyalty.auth.hashing-queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${loyalty.auth.hashing-retry-after-seconds:1}")
+    private long hashingRetryAfterSeconds;
+
+    @Value("${loyalty.auth.refresh-token-ttl-days:30}")
+    private long refreshTokenTtlDays;
+
+    @Value("${loyalty.auth.throttle.enabled:true}")
+    private boolean throttleEnabled;
+
+    @Value("${loyalty.auth.throttle.max-failures-per-username:5}")
+    private int maxFailuresPerUsername;
+
+    @Value("${loyalty.auth.throttle.max-failures-per-ip:50}")
+    private int maxFailuresPerIp;
+
+    @Value("${loyalty.auth.throttle.window-seconds:900}")
+    private long throttleWindowSeconds;
+
+    @PostConstruct
+    public void init() {
+        if (hashingThreads <= 0) {
+            hashingThreads = Runtime.getRuntime().availableProcessors();
+        }
+        log.info("Password hashing: BCrypt strength {}, {} threads, queue capacity {}",
+                bcryptStrength, hashingThreads, hashingQueueCapacity);
+        log.info("Refresh tokens live {} days", refreshTokenTtlDays);
+        if (throttleEnabled) {
+            log.info("Login throttle: {} failures per username, {} per IP within {} seconds",
+                    maxFailuresPerUsername, maxFailuresPerIp, throttleWindowSeconds);
+        } else {
+            log.info("Login throttle disabled");
+        }
+    }
+
+    public long getRefreshTokenTtlSeconds() {
+        return TimeUnit.DAYS.toSeconds(refreshTokenTtlDays);
+    }
+
+    /**
+     * Runs every BCrypt hash and verification, so a login burst occupies at most {@code hashingThreads} cores;
+     * a full queue rejects the task instead of letting it wait.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hashingThreads);
+        executor.setMaxPoolSize(hashingThreads);
+        executor.setQueueCapacity(hashingQueueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("password-hash-");
+        executor.initialize();
+        return executor;
+    }
+}
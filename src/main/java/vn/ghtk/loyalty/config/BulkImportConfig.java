@@ -0,0 +1,51 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+@Slf4j
+@Configuration
+@Getter
+public class BulkImportConfig {
+
+    @Value("${loyalty.import.users-file:}")
+    private String usersFile;
+
+    @Value("${loyalty.import.checkins-file:}")
+    private String checkinsFile;
+
+    @Value("${loyalty.import.points-history-file:}")
+    private String pointsHistoryFile;
+
+    @Value("${loyalty.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${loyalty.import.hashing-threads:0}")
+    private int hashingThreads;
+
+    @Value("${loyalty.import.progress-interval-seconds:10}")
+    private long progressIntervalSeconds;
+
+    @Value("${loyalty.import.exit-when-done:false}")
+    private boolean exitWhenDone;
+
+    @PostConstruct
+    public void init() {
+        if (hashingThreads <= 0) {
+            hashingThreads = Runtime.getRuntime().availableProcessors();
+        }
+        if (hasInput()) {
+            log.info("Bulk import: users '{}', check-ins '{}', points history '{}', {} records per batch, " +
+                            "{} hashing threads",
+                    usersFile, checkinsFile, pointsHistoryFile, batchSize, hashingThreads);
+        }
+    }
+
+    public boolean hasInput() {
+        return !usersFile.isBlank() || !checkinsFile.isBlank() || !pointsHistoryFile.isBlank();
+    }
+}
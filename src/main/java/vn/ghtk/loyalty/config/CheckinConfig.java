@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import vn.ghtk.loyalty.enums.CheckinAdmissionMode;
+import vn.ghtk.loyalty.enums.CheckinTransactionMode;
 
 import jakarta.annotation.PostConstruct;
 import java.util.Arrays;
@@ -19,6 +21,24 @@ public class CheckinConfig {
     @Value("${loyalty.checkin.max-per-month}")
     private int maxPerMonth;
 
+    @Value("${loyalty.checkin.admission-mode:LOCK}")
+    private CheckinAdmissionMode admissionMode;
+
+    @Value("${loyalty.checkin.transaction-mode:STANDARD}")
+    private CheckinTransactionMode transactionMode;
+
+    @Value("${loyalty.checkin.claim-ttl-seconds:30}")
+    private long claimTtlSeconds;
+
+    @Value("${loyalty.checkin.calendar-ttl-days:400}")
+    private long calendarTtlDays;
+
+    @Value("${loyalty.checkin.summary-backfill-months:0}")
+    private int summaryBackfillMonths;
+
+    @Value("${loyalty.checkin.summary-backfill-chunk-size:10000}")
+    private int summaryBackfillChunkSize;
+
     private int[] pointsSequence;
 
     @PostConstruct
@@ -31,6 +51,15 @@ public class CheckinConfig {
         
         log.info("Check-in points sequence loaded: {}", Arrays.toString(pointsSequence));
         log.info("Max check-ins per month: {}", maxPerMonth);
+        log.info("Check-in admission mode: {}", admissionMode);
+        log.info("Check-in transaction mode: {}", transactionMode);
+    }
+
+    /**
+     * Points of the {@code order}-th check-in of a month (1-based); orders past the sequence earn none.
+     */
+    public int pointsForOrder(int order) {
+        return order <= pointsSequence.length ? pointsSequence[order - 1] : 0;
     }
 }
 
@@ -0,0 +1,18 @@
+package vn.ghtk.loyalty.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    /**
+     * Time source for check-in windows and month boundaries, replaceable in benchmarks and tests.
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
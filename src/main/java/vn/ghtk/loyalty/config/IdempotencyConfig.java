@@ -0,0 +1,25 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+@Slf4j
+@Configuration
+@Getter
+public class IdempotencyConfig {
+
+    @Value("${loyalty.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${loyalty.idempotency.pending-ttl-seconds:30}")
+    private long pendingTtlSeconds;
+
+    @PostConstruct
+    public void init() {
+        log.info("Idempotency responses kept for {} hours, pending claims for {} seconds", ttlHours, pendingTtlSeconds);
+    }
+}
@@ -0,0 +1,39 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+@Slf4j
+@Configuration
+@Getter
+public class LimiterConfig {
+
+    @Value("${loyalty.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${loyalty.limiter.initial-limit:10}")
+    private int initialLimit;
+
+    @Value("${loyalty.limiter.min-limit:2}")
+    private int minLimit;
+
+    @Value("${loyalty.limiter.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${loyalty.limiter.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            log.info("Transaction limiter: initial limit {}, range [{}, {}], Retry-After {}s",
+                    initialLimit, minLimit, maxLimit, retryAfterSeconds);
+        } else {
+            log.info("Transaction limiter disabled");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+@Slf4j
+@Configuration
+@Getter
+public class OutboxConfig {
+
+    @Value("${loyalty.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${loyalty.outbox.relay-batch-size:500}")
+    private int relayBatchSize;
+
+    @Value("${loyalty.outbox.relay-interval-ms:500}")
+    private long relayIntervalMs;
+
+    @Value("${loyalty.outbox.sink:log}")
+    private String sink;
+
+    @Value("${loyalty.outbox.file-path:points-events.jsonl}")
+    private String filePath;
+
+    @PostConstruct
+    public void init() {
+        log.info("Points event outbox enabled: {}, sink: {}, relay batch size: {}", enabled, sink, relayBatchSize);
+    }
+}
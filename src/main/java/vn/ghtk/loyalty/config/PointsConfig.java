@@ -0,0 +1,45 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import vn.ghtk.loyalty.enums.PointsDeductionMode;
+import vn.ghtk.loyalty.enums.PointsHistoryWriteMode;
+
+import jakarta.annotation.PostConstruct;
+
+@Slf4j
+@Configuration
+@Getter
+public class PointsConfig {
+
+    @Value("${loyalty.points.deduction-mode:LOCK}")
+    private PointsDeductionMode deductionMode;
+
+    @Value("${loyalty.points.mutation-chunk-size:500}")
+    private int mutationChunkSize;
+
+    @Value("${loyalty.points.history-write-mode:SYNC}")
+    private PointsHistoryWriteMode historyWriteMode;
+
+    @Value("${loyalty.points.history-flush-batch-size:1000}")
+    private int historyFlushBatchSize;
+
+    @Value("${loyalty.points.history-flush-interval-ms:200}")
+    private long historyFlushIntervalMs;
+
+    @Value("${loyalty.points.history-buffer-max-pending:100000}")
+    private long historyBufferMaxPending;
+
+    @Value("${loyalty.points.export-timeout-minutes:30}")
+    private long exportTimeoutMinutes;
+
+    @PostConstruct
+    public void init() {
+        log.info("Points deduction mode: {}", deductionMode);
+        log.info("Points mutation chunk size: {}", mutationChunkSize);
+        log.info("Points history write mode: {}", historyWriteMode);
+        log.info("Points history export timeout: {} min", exportTimeoutMinutes);
+    }
+}
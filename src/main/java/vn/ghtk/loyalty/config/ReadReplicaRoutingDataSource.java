@@ -0,0 +1,56 @@
+package vn.ghtk.loyalty.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica, all others (read-write transactions, work outside a
+ * transaction such as Liquibase and the cache-hit paths) to the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the read-only flag is only bound
+ * after the transaction manager has begun the transaction.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Object PRIMARY_PIN = new Object();
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs the rest of the current read-only transaction on the primary. Takes effect only before the transaction's
+     * first statement, since the connection is chosen then and kept.
+     */
+    public static void pinCurrentTransactionToPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(PRIMARY_PIN)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(PRIMARY_PIN, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PRIMARY_PIN);
+            }
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !TransactionSynchronizationManager.hasResource(PRIMARY_PIN)
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+}
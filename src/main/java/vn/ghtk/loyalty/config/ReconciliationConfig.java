@@ -0,0 +1,45 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+@Slf4j
+@Configuration
+@Getter
+public class ReconciliationConfig {
+
+    @Value("${loyalty.reconciliation.cron:-}")
+    private String cron;
+
+    @Value("${loyalty.reconciliation.repair:false}")
+    private boolean repair;
+
+    @Value("${loyalty.reconciliation.threads:2}")
+    private int threads;
+
+    @Value("${loyalty.reconciliation.range-size:10000}")
+    private int rangeSize;
+
+    @Value("${loyalty.reconciliation.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${loyalty.reconciliation.max-rows-per-second:20000}")
+    private long maxRowsPerSecond;
+
+    @Value("${loyalty.reconciliation.report-limit:100}")
+    private int reportLimit;
+
+    @PostConstruct
+    public void init() {
+        if ("-".equals(cron)) {
+            log.info("Points reconciliation not scheduled");
+        } else {
+            log.info("Points reconciliation at '{}' ({}): {} threads, {} users per range, at most {} rows/s",
+                    cron, repair ? "repair" : "report only", threads, rangeSize, maxRowsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package vn.ghtk.loyalty.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * With {@code loyalty.datasource.replica.enabled}, read-only transactions run on a replica with its own pool and
+ * everything else on the primary ({@code spring.datasource.*}); see {@link ReadReplicaRoutingDataSource}.
+ * Disabled, Spring Boot's single data source is used unchanged.
+ */
+@Slf4j
+@Configuration
+@Getter
+public class ReplicaDataSourceConfig {
+
+    private static final String ENABLED = "loyalty.datasource.replica.enabled";
+
+    @Value("${" + ENABLED + ":false}")
+    private boolean enabled;
+
+    @Value("${loyalty.datasource.replica.url:}")
+    private String url;
+
+    @Value("${loyalty.datasource.replica.username:}")
+    private String username;
+
+    @Value("${loyalty.datasource.replica.password:}")
+    private String password;
+
+    @Value("${loyalty.datasource.replica.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    @Value("${loyalty.datasource.replica.read-your-writes-seconds:5}")
+    private long readYourWritesSeconds;
+
+    @PostConstruct
+    public void init() {
+        if (enabled && (url.isBlank() || username.isBlank() || password.isBlank())) {
+            throw new IllegalStateException("loyalty.datasource.replica.url, username and password are required when "
+                    + ENABLED + " is true");
+        }
+        if (enabled) {
+            log.info("Read-only transactions on replica {} ({} connections), read-your-writes pin {}s",
+                    url, maximumPoolSize, readYourWritesSeconds);
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(ENABLED)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(ENABLED)
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Qualifier("primaryDataSource") HikariDataSource primaryDataSource) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * The lazy proxy defers borrowing a connection to the first statement, by which time the transaction's
+     * read-only flag is known; the routing data source then picks the pool.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(ENABLED)
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+}
@@ -1,5 +1,6 @@
 package vn.ghtk.loyalty.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +19,7 @@ import vn.ghtk.loyalty.filter.JwtAuthenticationFilter;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthConfig authConfig;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -25,7 +27,11 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/users", "/api/auth/login", "/actuator/**").permitAll()
+                        // Async endpoints: the request was authorized on its first dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/api/users", "/api/auth/login", "/api/auth/refresh", "/api/auth/logout",
+                                "/actuator/**").permitAll()
+                        .requestMatchers("/api/points/mutations/**", "/api/points/history/export").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -33,9 +39,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * New hashes use the configured strength; older hashes keep verifying and are re-hashed on the next login.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(authConfig.getBcryptStrength());
     }
 }
 
@@ -0,0 +1,29 @@
+package vn.ghtk.loyalty.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+@Slf4j
+@Configuration
+@Getter
+public class UserCacheConfig {
+
+    @Value("${loyalty.user-cache.l1-max-size:50000}")
+    private long l1MaxSize;
+
+    @Value("${loyalty.user-cache.l1-ttl-seconds:30}")
+    private long l1TtlSeconds;
+
+    @Value("${loyalty.user-cache.l2-ttl-seconds:300}")
+    private long l2TtlSeconds;
+
+    @PostConstruct
+    public void init() {
+        log.info("User cache: L1 max {} entries for {} seconds, L2 (Redis) for {} seconds",
+                l1MaxSize, l1TtlSeconds, l2TtlSeconds);
+    }
+}
@@ -1,16 +1,20 @@
 package vn.ghtk.loyalty.controller;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import vn.ghtk.loyalty.dto.response.ApiResponse;
+import vn.ghtk.loyalty.dto.response.CheckinCalendarResponse;
 import vn.ghtk.loyalty.dto.response.CheckinResponse;
 import vn.ghtk.loyalty.dto.response.CheckinStatusResponse;
 import vn.ghtk.loyalty.service.CheckinService;
 import vn.ghtk.loyalty.util.SecurityUtil;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/checkin")
@@ -20,9 +24,11 @@ public class CheckinController {
     private final CheckinService checkinService;
 
     @PostMapping
-    public ResponseEntity<ApiResponse<CheckinResponse>> checkin(Authentication authentication) {
+    public ResponseEntity<ApiResponse<CheckinResponse>> checkin(
+            Authentication authentication,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
-        CheckinResponse response = checkinService.checkin(userId);
+        CheckinResponse response = checkinService.checkin(userId, idempotencyKey);
         return ResponseEntity.ok(ApiResponse.<CheckinResponse>builder()
                 .success(true)
                 .message(response.getMessage())
@@ -30,6 +36,22 @@ public class CheckinController {
                 .build());
     }
 
+    /**
+     * Non-blocking variant of {@code POST /api/checkin}: the servlet thread is released while the lock is awaited.
+     */
+    @PostMapping("/async")
+    public CompletableFuture<ResponseEntity<ApiResponse<CheckinResponse>>> checkinAsync(
+            Authentication authentication,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
+        return checkinService.checkinAsync(userId, idempotencyKey)
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.<CheckinResponse>builder()
+                        .success(true)
+                        .message(response.getMessage())
+                        .data(response)
+                        .build()));
+    }
+
     @GetMapping("/status")
     public ResponseEntity<ApiResponse<List<CheckinStatusResponse>>> getCheckinStatus(Authentication authentication) {
         Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
@@ -40,5 +62,17 @@ public class CheckinController {
                 .data(statusList)
                 .build());
     }
-}
 
+    @GetMapping("/calendar")
+    public ResponseEntity<ApiResponse<List<CheckinCalendarResponse>>> getCheckinCalendar(
+            Authentication authentication,
+            @RequestParam(required = false) @Min(2000) @Max(2100) Integer year) {
+        Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
+        List<CheckinCalendarResponse> calendar = checkinService.getCheckinCalendarForYear(userId, year);
+        return ResponseEntity.ok(ApiResponse.<List<CheckinCalendarResponse>>builder()
+                .success(true)
+                .message("Check-in calendar retrieved successfully")
+                .data(calendar)
+                .build());
+    }
+}
@@ -1,49 +1,194 @@
 package vn.ghtk.loyalty.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import vn.ghtk.loyalty.config.PointsConfig;
 import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationBatchRequest;
 import vn.ghtk.loyalty.dto.response.ApiResponse;
 import vn.ghtk.loyalty.dto.response.PageResponse;
 import vn.ghtk.loyalty.dto.response.PointsHistoryResponse;
+import vn.ghtk.loyalty.dto.response.PointsMutationBatchResponse;
+import vn.ghtk.loyalty.enums.PointsHistoryExportFormat;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+import vn.ghtk.loyalty.service.PointsHistoryExportService;
 import vn.ghtk.loyalty.service.PointsService;
 import vn.ghtk.loyalty.util.SecurityUtil;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
 @RestController
 @RequestMapping("/api/points")
 @RequiredArgsConstructor
 public class PointsController {
 
     private final PointsService pointsService;
+    private final PointsHistoryExportService pointsHistoryExportService;
+    private final PointsConfig pointsConfig;
+    private final ThreadPoolTaskExecutor exportExecutor;
 
     @PostMapping("/deduct")
     public ResponseEntity<ApiResponse<Void>> deductPoints(
             Authentication authentication,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody DeductPointsRequest request) {
         Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
-        pointsService.deductPoints(userId, request);
+        pointsService.deductPoints(userId, request, idempotencyKey);
         return ResponseEntity.ok(ApiResponse.<Void>builder()
                 .success(true)
                 .message("Points deducted successfully")
                 .build());
     }
 
+    /**
+     * Non-blocking variant of {@code POST /api/points/deduct}.
+     */
+    @PostMapping("/deduct/async")
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> deductPointsAsync(
+            Authentication authentication,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody DeductPointsRequest request) {
+        Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
+        return pointsService.deductPointsAsync(userId, request, idempotencyKey)
+                .thenApply(deducted -> ResponseEntity.ok(ApiResponse.<Void>builder()
+                        .success(true)
+                        .message("Points deducted successfully")
+                        .build()));
+    }
+
+    @PostMapping("/mutations/batch")
+    public ResponseEntity<ApiResponse<PointsMutationBatchResponse>> applyMutations(
+            Authentication authentication,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody PointsMutationBatchRequest request) {
+        Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
+        PointsMutationBatchResponse result = pointsService.applyMutations(userId, request, idempotencyKey);
+        return ResponseEntity.ok(ApiResponse.<PointsMutationBatchResponse>builder()
+                .success(true)
+                .message("Points mutations processed")
+                .data(result)
+                .build());
+    }
+
     @GetMapping("/history")
     public ResponseEntity<ApiResponse<PageResponse<PointsHistoryResponse>>> getPointsHistory(
             Authentication authentication,
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(defaultValue = "10") Integer size,
-            @RequestParam(required = false) Integer month) {
+            @RequestParam(required = false) @Min(1) @Max(12) Integer month,
+            @RequestParam(required = false) String cursor) {
         Long userId = SecurityUtil.getUserIdFromAuthentication(authentication);
-        PageResponse<PointsHistoryResponse> history = pointsService.getPointsHistory(userId, page, size, month);
+        // Cursor mode when the parameter is present; "cursor=" (empty) asks for the first page
+        PageResponse<PointsHistoryResponse> history = cursor != null
+                ? pointsService.getPointsHistoryByCursor(userId, cursor, size, month)
+                : pointsService.getPointsHistory(userId, page, size, month);
         return ResponseEntity.ok(ApiResponse.<PageResponse<PointsHistoryResponse>>builder()
                 .success(true)
                 .message("Points history retrieved successfully")
                 .data(history)
                 .build());
     }
-}
 
+    /**
+     * Admin export of a user's history, a month of everyone's ({@code month=yyyy-MM}), or both. The body is
+     * written on {@code exportExecutor} while rows are read, gzip-compressed when the client accepts it, and may
+     * stream for up to {@code loyalty.points.export-timeout-minutes}.
+     */
+    @GetMapping("/history/export")
+    public ResponseEntity<ResponseBodyEmitter> exportPointsHistory(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) YearMonth month,
+            @RequestParam(defaultValue = "NDJSON") PointsHistoryExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (userId == null && month == null) {
+            throw new BusinessException("userId or month is required");
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String fileName = "points-history" + (userId != null ? "-user-" + userId : "")
+                + (month != null ? "-" + month : "") + (format == PointsHistoryExportFormat.CSV ? ".csv" : ".ndjson");
+
+        // Its own timeout: the MVC default keeps bounding every other async request
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(
+                TimeUnit.MINUTES.toMillis(pointsConfig.getExportTimeoutMinutes()));
+        try {
+            exportExecutor.execute(() -> {
+                try {
+                    OutputStream out = new BufferedOutputStream(new EmitterOutputStream(emitter), 8192);
+                    if (gzip) {
+                        GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                        pointsHistoryExportService.export(userId, month, format, compressed);
+                        compressed.finish();
+                    } else {
+                        pointsHistoryExportService.export(userId, month, format, out);
+                    }
+                    out.flush();
+                    emitter.complete();
+                } catch (Exception e) {
+                    // Also reached once the emitter has timed out: the next send fails and the cursor is closed
+                    log.warn("Points history export failed: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServerBusyException("Too many exports running. Please try again.", 60);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format == PointsHistoryExportFormat.CSV
+                        ? new MediaType("text", "csv")
+                        : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(emitter);
+    }
+
+    /**
+     * Hands each buffered chunk to the emitter as raw bytes; the response headers are already committed, so the
+     * chunk media type only selects the byte array converter.
+     */
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                emitter.send(Arrays.copyOfRange(b, off, off + len), MediaType.APPLICATION_OCTET_STREAM);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package vn.ghtk.loyalty.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One check-in of a bulk import file; the user is referenced by username.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CheckinImportRow {
+
+    private String username;
+    private LocalDate checkinDate;
+    private Integer pointsEarned;
+    private Integer checkinOrder;
+    private LocalDateTime createdAt;
+}
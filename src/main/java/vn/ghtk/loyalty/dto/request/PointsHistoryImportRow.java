@@ -0,0 +1,28 @@
+package vn.ghtk.loyalty.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.ghtk.loyalty.enums.PointsTransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One points history entry of a bulk import file; the user is referenced by username, points are signed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PointsHistoryImportRow {
+
+    private String username;
+    private Integer points;
+    private PointsTransactionType transactionType;
+    private String description;
+    private LocalDateTime createdAt;
+}
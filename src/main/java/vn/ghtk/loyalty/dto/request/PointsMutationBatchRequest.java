@@ -0,0 +1,20 @@
+package vn.ghtk.loyalty.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PointsMutationBatchRequest {
+
+    @NotEmpty(message = "Items are required")
+    @Size(max = 5000, message = "At most 5000 items per batch")
+    private List<@Valid PointsMutationItemRequest> items;
+}
@@ -0,0 +1,33 @@
+package vn.ghtk.loyalty.dto.request;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.ghtk.loyalty.enums.PointsMutationType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class PointsMutationItemRequest {
+
+    @NotNull(message = "User id is required")
+    private Long userId;
+
+    @NotNull(message = "Type is required")
+    private PointsMutationType type;
+
+    @NotNull(message = "Points is required")
+    @Positive(message = "Points must be positive")
+    private Integer points;
+
+    @Size(max = 500, message = "Description must not exceed 500 characters")
+    private String description;
+}
@@ -0,0 +1,27 @@
+package vn.ghtk.loyalty.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One user of a bulk import file (CSV header or NDJSON fields in snake_case). Either {@code password} (hashed
+ * during the import) or an existing BCrypt {@code password_hash} is required.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserImportRow {
+
+    private String username;
+    private String password;
+    private String passwordHash;
+    private String name;
+    private String avatar;
+    private Integer totalPoints;
+}
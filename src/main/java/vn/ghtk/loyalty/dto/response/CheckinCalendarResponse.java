@@ -0,0 +1,26 @@
+package vn.ghtk.loyalty.dto.response;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class CheckinCalendarResponse {
+
+    private Integer year;
+    private Integer month;
+    // Bit (day - 1) is set when the user checked in on that day
+    private Integer checkinBitmap;
+    private Integer checkinCount;
+    private Integer pointsEarned;
+    private List<CheckinStatusResponse> checkins;
+}
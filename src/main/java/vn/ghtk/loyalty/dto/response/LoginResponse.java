@@ -17,5 +17,7 @@ public class LoginResponse {
     private String accessToken;
     private String tokenType;
     private Long expiresIn;
+    private String refreshToken;
+    private Long refreshExpiresIn;
 }
 
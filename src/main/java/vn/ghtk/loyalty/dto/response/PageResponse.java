@@ -1,5 +1,6 @@
 package vn.ghtk.loyalty.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import lombok.AllArgsConstructor;
@@ -14,6 +15,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PageResponse<T> {
 
     private List<T> content;
@@ -23,5 +25,11 @@ public class PageResponse<T> {
     private Integer totalPages;
     private Boolean first;
     private Boolean last;
+
+    /**
+     * Cursor paging only: pass back as {@code cursor} to get the next page, null on the last page.
+     * page / total_elements / total_pages are not computed in that mode.
+     */
+    private String nextCursor;
 }
 
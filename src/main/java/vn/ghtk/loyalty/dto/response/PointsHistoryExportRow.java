@@ -0,0 +1,32 @@
+package vn.ghtk.loyalty.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.ghtk.loyalty.enums.PointsTransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the points history export, built by a JPQL constructor expression so no entity is managed.
+ * The property order is the CSV column order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonPropertyOrder({"id", "userId", "points", "transactionType", "description", "createdAt"})
+public class PointsHistoryExportRow {
+
+    private Long id;
+    private Long userId;
+    private Integer points;
+    private PointsTransactionType transactionType;
+    private String description;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,25 @@
+package vn.ghtk.loyalty.dto.response;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class PointsMutationBatchResponse {
+
+    private Integer succeeded;
+    private Integer failed;
+    /**
+     * One result per request item, in request order.
+     */
+    private List<PointsMutationResult> results;
+}
@@ -0,0 +1,28 @@
+package vn.ghtk.loyalty.dto.response;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class PointsMutationResult {
+
+    /**
+     * Position of the item in the request.
+     */
+    private Integer index;
+    private Long userId;
+    private Boolean success;
+    private String message;
+    /**
+     * Balance right after this item was applied (or rejected); null when the user does not exist.
+     */
+    private Integer totalPoints;
+}
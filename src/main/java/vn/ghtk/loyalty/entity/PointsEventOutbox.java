@@ -0,0 +1,47 @@
+package vn.ghtk.loyalty.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.ghtk.loyalty.enums.PointsTransactionType;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "points_event_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PointsEventOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private PointsTransactionType eventType;
+
+    @Column(nullable = false)
+    private Integer points;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        // Set from the injected clock by PointsOutboxServiceImpl
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
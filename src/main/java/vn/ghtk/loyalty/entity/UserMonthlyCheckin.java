@@ -0,0 +1,57 @@
+package vn.ghtk.loyalty.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+@Entity
+@Table(name = "user_monthly_checkin")
+@IdClass(UserMonthlyCheckinId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserMonthlyCheckin {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * yyyyMM, see {@link #monthKey(YearMonth)}.
+     */
+    @Id
+    @Column(name = "checkin_month", nullable = false)
+    private Integer checkinMonth;
+
+    @Column(name = "checkin_count", nullable = false)
+    private Integer checkinCount;
+
+    @Column(name = "last_order", nullable = false)
+    private Integer lastOrder;
+
+    @Column(name = "points_earned", nullable = false)
+    private Integer pointsEarned;
+
+    @Column(name = "last_checkin_date")
+    private LocalDate lastCheckinDate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+}
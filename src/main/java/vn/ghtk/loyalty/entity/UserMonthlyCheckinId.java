@@ -0,0 +1,17 @@
+package vn.ghtk.loyalty.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserMonthlyCheckinId implements Serializable {
+
+    private Long userId;
+
+    private Integer checkinMonth;
+}
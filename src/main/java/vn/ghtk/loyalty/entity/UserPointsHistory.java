@@ -17,8 +17,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class UserPointsHistory {
 
+    // Pooled sequence instead of IDENTITY so history inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_points_history_seq")
+    @SequenceGenerator(name = "user_points_history_seq", sequenceName = "user_points_history_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -34,12 +36,18 @@ public class UserPointsHistory {
     @Column(name = "description")
     private String description;
 
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Imported history keeps its original timestamp
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
 
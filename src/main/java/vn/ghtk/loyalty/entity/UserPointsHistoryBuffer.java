@@ -0,0 +1,48 @@
+package vn.ghtk.loyalty.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.ghtk.loyalty.enums.PointsTransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A {@link UserPointsHistory} row waiting to be flushed; the id is taken from the history sequence and kept on flush.
+ */
+@Entity
+@Table(name = "user_points_history_buffer")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPointsHistoryBuffer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_points_history_buffer_seq")
+    @SequenceGenerator(name = "user_points_history_buffer_seq", sequenceName = "user_points_history_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer points;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private PointsTransactionType transactionType;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
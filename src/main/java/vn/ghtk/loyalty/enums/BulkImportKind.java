@@ -0,0 +1,7 @@
+package vn.ghtk.loyalty.enums;
+
+public enum BulkImportKind {
+    USERS,
+    CHECKINS,
+    POINTS_HISTORY
+}
@@ -0,0 +1,6 @@
+package vn.ghtk.loyalty.enums;
+
+public enum CheckinTransactionMode {
+    STANDARD,
+    STREAMLINED
+}
@@ -2,6 +2,7 @@ package vn.ghtk.loyalty.enums;
 
 public enum PointsTransactionType {
     CHECKIN,
+    EARN,
     DEDUCT,
     MANUAL_ADJUSTMENT
 }
@@ -0,0 +1,21 @@
+package vn.ghtk.loyalty.event;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import vn.ghtk.loyalty.enums.PointsTransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A points change as delivered to downstream consumers. Delivery is at-least-once: consumers dedupe by
+ * {@code eventId}. The events of one user carry increasing ids in the order the changes were applied; ids of
+ * different users say nothing about which change committed first.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record PointsEvent(Long eventId,
+                          Long userId,
+                          PointsTransactionType type,
+                          Integer points,
+                          String description,
+                          LocalDateTime occurredAt) {
+}
@@ -0,0 +1,9 @@
+package vn.ghtk.loyalty.event;
+
+import java.util.Collection;
+
+/**
+ * Published inside a transaction that changed users' points or check-ins; listeners act after commit.
+ */
+public record UserPointsChangedEvent(Collection<Long> userIds) {
+}
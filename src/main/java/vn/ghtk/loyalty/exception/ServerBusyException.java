@@ -0,0 +1,17 @@
+package vn.ghtk.loyalty.exception;
+
+import lombok.Getter;
+
+/**
+ * Request shed before it reached the database or password hashing; answered with 429 and a {@code Retry-After} header.
+ */
+@Getter
+public class ServerBusyException extends BusinessException {
+
+    private final long retryAfterSeconds;
+
+    public ServerBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,26 +1,40 @@
 package vn.ghtk.loyalty.filter;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import vn.ghtk.loyalty.util.JwtUtil;
+import vn.ghtk.loyalty.util.MetricsUtil;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
     private final JwtUtil jwtUtil;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${loyalty.security.admin-user-ids:}")
+    private Set<String> adminUserIds;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -28,11 +42,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = extractTokenFromRequest(request);
 
-        if (token != null && jwtUtil.validateToken(token)) {
-            String userId = jwtUtil.extractUserId(token);
-            if (userId != null) {
+        if (token != null) {
+            // One parse (or a cache hit) yields the verified user id
+            Timer.Sample verification = Timer.start(meterRegistry);
+            JwtUtil.JwtPrincipal principal = jwtUtil.verify(token);
+            verification.stop(MetricsUtil.timer(meterRegistry, "auth.jwt.verify",
+                    "result", principal != null ? "valid" : "invalid"));
+            if (principal != null) {
+                String userId = principal.userId();
                 Authentication authentication = new UsernamePasswordAuthenticationToken(
-                        userId, null, null);
+                        userId, null, adminUserIds.contains(userId) ? ADMIN_AUTHORITIES : null);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
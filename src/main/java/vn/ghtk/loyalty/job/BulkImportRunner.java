@@ -0,0 +1,55 @@
+package vn.ghtk.loyalty.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.config.BulkImportConfig;
+import vn.ghtk.loyalty.enums.BulkImportKind;
+import vn.ghtk.loyalty.service.BulkImportService;
+
+import java.nio.file.Path;
+
+/**
+ * Loads the files set in {@code loyalty.import.*} on startup: users first, since check-ins and history reference
+ * them by username. Meant for an offline instance ({@code --spring.main.web-application-type=none}) that exits
+ * when done; an interrupted run resumes from its checkpoints when started again with the same files.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkImportRunner implements ApplicationRunner {
+
+    private final BulkImportService bulkImportService;
+    private final BulkImportConfig bulkImportConfig;
+    private final ApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!bulkImportConfig.hasInput()) {
+            return;
+        }
+        boolean failed = false;
+        try {
+            importIfSet(BulkImportKind.USERS, bulkImportConfig.getUsersFile());
+            importIfSet(BulkImportKind.CHECKINS, bulkImportConfig.getCheckinsFile());
+            importIfSet(BulkImportKind.POINTS_HISTORY, bulkImportConfig.getPointsHistoryFile());
+        } catch (RuntimeException e) {
+            failed = true;
+            log.error("Bulk import failed; committed batches are kept and a rerun resumes after them", e);
+        }
+        if (bulkImportConfig.isExitWhenDone()) {
+            int exitCode = failed ? 1 : 0;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+
+    private void importIfSet(BulkImportKind kind, String file) {
+        if (!file.isBlank()) {
+            bulkImportService.importFile(kind, Path.of(file));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package vn.ghtk.loyalty.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.config.CheckinConfig;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckin;
+import vn.ghtk.loyalty.repository.UserMonthlyCheckinRepository;
+import vn.ghtk.loyalty.repository.UserRepository;
+
+import java.time.Clock;
+import java.time.YearMonth;
+
+/**
+ * Creates the {@code user_monthly_checkin} rows missing for the last {@code summary-backfill-months} months,
+ * one user id range per transaction. Existing rows are left alone, so it is safe to run while check-ins are
+ * being served and to re-run; without it the rows are created lazily on each user's next check-in.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MonthlyCheckinSummaryBackfillJob implements ApplicationRunner {
+
+    private final UserMonthlyCheckinRepository userMonthlyCheckinRepository;
+    private final UserRepository userRepository;
+    private final CheckinConfig checkinConfig;
+    private final Clock clock;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int months = checkinConfig.getSummaryBackfillMonths();
+        if (months <= 0) {
+            return;
+        }
+        YearMonth current = YearMonth.now(clock);
+        for (int i = months - 1; i >= 0; i--) {
+            backfill(current.minusMonths(i));
+        }
+    }
+
+    public int backfill(YearMonth month) {
+        long maxUserId = userRepository.findMaxId();
+        int chunkSize = checkinConfig.getSummaryBackfillChunkSize();
+        int created = 0;
+        for (long afterUserId = 0; afterUserId < maxUserId; afterUserId += chunkSize) {
+            created += userMonthlyCheckinRepository.backfillRange(
+                    UserMonthlyCheckin.monthKey(month),
+                    month.atDay(1),
+                    month.plusMonths(1).atDay(1),
+                    afterUserId,
+                    Math.min(afterUserId + chunkSize, maxUserId)
+            );
+        }
+        log.info("Monthly check-in summary backfill for {}: {} rows created", month, created);
+        return created;
+    }
+}
@@ -0,0 +1,36 @@
+package vn.ghtk.loyalty.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.service.PointsHistoryWriter;
+
+/**
+ * Drains the points history write-behind buffer: every {@code history-flush-interval-ms}, batches of at most
+ * {@code history-flush-batch-size} until the buffer is empty. Runs in every mode, so entries left over after
+ * switching back to SYNC are still flushed, and on every node (batches are claimed with SKIP LOCKED).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PointsHistoryFlushJob {
+
+    private final PointsHistoryWriter pointsHistoryWriter;
+    private final PointsConfig pointsConfig;
+
+    @Scheduled(fixedDelayString = "${loyalty.points.history-flush-interval-ms:200}")
+    public void flush() {
+        try {
+            int moved;
+            do {
+                moved = pointsHistoryWriter.flush();
+            } while (moved == pointsConfig.getHistoryFlushBatchSize());
+            pointsHistoryWriter.refreshBacklog();
+        } catch (RuntimeException e) {
+            // Buffered entries stay in place and are retried on the next run
+            log.error("Points history flush failed", e);
+        }
+    }
+}
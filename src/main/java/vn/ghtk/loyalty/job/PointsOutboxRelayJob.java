@@ -0,0 +1,39 @@
+package vn.ghtk.loyalty.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.service.PointsOutboxService;
+
+/**
+ * Relays the points event outbox every {@code relay-interval-ms}: batches of {@code relay-batch-size} until the
+ * outbox is empty. Larger batches raise throughput (one sink call and one DELETE per batch) at the cost of
+ * redelivering more events after a failure. Only registered when the outbox is enabled; rows left behind by an
+ * earlier enabled period are relayed once it is enabled again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "loyalty.outbox", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class PointsOutboxRelayJob {
+
+    private final PointsOutboxService pointsOutboxService;
+    private final OutboxConfig outboxConfig;
+
+    @Scheduled(fixedDelayString = "${loyalty.outbox.relay-interval-ms:500}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = pointsOutboxService.relayBatch();
+            } while (relayed == outboxConfig.getRelayBatchSize());
+            pointsOutboxService.refreshLag();
+        } catch (RuntimeException e) {
+            // The failed batch stays in the outbox and is delivered again on the next run
+            log.error("Points outbox relay failed", e);
+        }
+    }
+}
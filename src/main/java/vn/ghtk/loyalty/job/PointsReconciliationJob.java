@@ -0,0 +1,72 @@
+package vn.ghtk.loyalty.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.config.ReconciliationConfig;
+import vn.ghtk.loyalty.service.PointsReconciliationService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the balance reconciliation on {@code loyalty.reconciliation.cron} (off by default). A run can take hours,
+ * so it is handed to its own thread instead of holding the shared scheduler thread that the flush and relay
+ * jobs need. The schedule fires on every node; a Redisson lock lets only one of them scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PointsReconciliationJob {
+
+    private static final String LOCK_KEY = "lock:points:reconciliation";
+
+    private final PointsReconciliationService pointsReconciliationService;
+    private final ReconciliationConfig reconciliationConfig;
+    private final RedissonClient redissonClient;
+
+    private final ExecutorService runner =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("reconciliation-run-"));
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${loyalty.reconciliation.cron:-}")
+    public void schedule() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Previous points reconciliation still running, skipping this one");
+            return;
+        }
+        runner.execute(() -> {
+            try {
+                reconcile();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void reconcile() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("Points reconciliation already running on another node");
+            return;
+        }
+        try {
+            pointsReconciliationService.reconcile(reconciliationConfig.isRepair());
+        } catch (RuntimeException e) {
+            log.error("Points reconciliation failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
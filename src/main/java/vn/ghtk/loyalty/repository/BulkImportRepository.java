@@ -0,0 +1,172 @@
+package vn.ghtk.loyalty.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckin;
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batched writes of the bulk import. Users and check-ins (IDENTITY ids) go through plain JDBC batches, which
+ * {@code rewriteBatchedStatements} turns into multi-row INSERTs. History goes through Hibernate so its ids come
+ * from the same pooled {@code user_points_history_seq} as the running service; the session batch size is raised
+ * to the import batch so it is still one JDBC batch per flush.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkImportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public long findCheckpoint(String source) {
+        return jdbcTemplate.query("SELECT records_done FROM bulk_import_checkpoint WHERE source = ?",
+                        (rs, rowNum) -> rs.getLong(1), source)
+                .stream()
+                .findFirst()
+                .orElse(0L);
+    }
+
+    public void saveCheckpoint(String source, long recordsDone) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = jdbcTemplate.update("UPDATE bulk_import_checkpoint SET records_done = ?, updated_at = ? " +
+                "WHERE source = ?", recordsDone, now, source);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO bulk_import_checkpoint (source, records_done, updated_at) " +
+                    "VALUES (?, ?, ?)", source, recordsDone, now);
+        }
+    }
+
+    /**
+     * Rows of (username, password hash, name, avatar, total_points).
+     */
+    public void insertUsers(List<Object[]> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO users " +
+                        "(username, password, name, avatar, total_points, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                rows.stream().map(row -> new Object[]{row[0], row[1], row[2], row[3], row[4], now, now}).toList());
+    }
+
+    /**
+     * Rows of (user id, checkin date, points earned, checkin order, created at).
+     */
+    public void insertCheckins(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO daily_checkin " +
+                "(user_id, checkin_date, points_earned, checkin_order, created_at) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    /**
+     * The given check-ins that are already in {@code daily_checkin}, read through uk_daily_checkin_user_date.
+     */
+    public Set<CheckinKey> findCheckins(Collection<CheckinKey> checkins) {
+        if (checkins.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> userIds = new HashSet<>();
+        LocalDate from = LocalDate.MAX;
+        LocalDate to = LocalDate.MIN;
+        for (CheckinKey checkin : checkins) {
+            userIds.add(checkin.userId());
+            from = checkin.checkinDate().isBefore(from) ? checkin.checkinDate() : from;
+            to = checkin.checkinDate().isAfter(to) ? checkin.checkinDate() : to;
+        }
+        List<Object> args = new ArrayList<>(userIds);
+        args.add(Date.valueOf(from));
+        args.add(Date.valueOf(to));
+
+        Set<CheckinKey> existing = new HashSet<>();
+        jdbcTemplate.query("SELECT user_id, checkin_date FROM daily_checkin WHERE user_id IN (" +
+                        String.join(", ", Collections.nCopies(userIds.size(), "?")) + ") " +
+                        "AND checkin_date >= ? AND checkin_date <= ?",
+                rs -> {
+                    CheckinKey key = new CheckinKey(rs.getLong(1), rs.getDate(2).toLocalDate());
+                    if (checkins.contains(key)) {
+                        existing.add(key);
+                    }
+                }, args.toArray());
+        return existing;
+    }
+
+    /**
+     * Rebuilds the {@code user_monthly_checkin} rows of the months the given check-ins fall in from
+     * {@code daily_checkin}, so imported days count towards the monthly limit, the next order and the profile.
+     * A summary row already there (live check-ins of that month) is replaced, and stays locked until commit.
+     */
+    public void refreshMonthlySummaries(Collection<CheckinKey> checkins) {
+        Set<UserMonth> months = new LinkedHashSet<>();
+        for (CheckinKey checkin : checkins) {
+            months.add(new UserMonth(checkin.userId(), YearMonth.from(checkin.checkinDate())));
+        }
+        if (months.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("DELETE FROM user_monthly_checkin WHERE user_id = ? AND checkin_month = ?",
+                months.stream()
+                        .map(month -> new Object[]{month.userId(), UserMonthlyCheckin.monthKey(month.month())})
+                        .toList());
+        jdbcTemplate.batchUpdate("INSERT INTO user_monthly_checkin " +
+                        "(user_id, checkin_month, checkin_count, last_order, points_earned, last_checkin_date, " +
+                        "updated_at) " +
+                        "SELECT user_id, ?, COUNT(*), MAX(checkin_order), SUM(points_earned), MAX(checkin_date), ? " +
+                        "FROM daily_checkin WHERE user_id = ? AND checkin_date >= ? AND checkin_date < ? " +
+                        "GROUP BY user_id",
+                months.stream()
+                        .map(month -> new Object[]{
+                                UserMonthlyCheckin.monthKey(month.month()),
+                                now,
+                                month.userId(),
+                                Date.valueOf(month.month().atDay(1)),
+                                Date.valueOf(month.month().plusMonths(1).atDay(1))
+                        })
+                        .toList());
+    }
+
+    public void insertPointsHistory(List<UserPointsHistory> entries) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(Math.max(entries.size(), 1));
+        entries.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Ids of the given usernames; usernames without a user are absent from the map.
+     */
+    public Map<String, Long> findUserIds(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(usernames.size(), "?"));
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username IN (" + placeholders + ")",
+                rs -> {
+                    ids.put(rs.getString(2), rs.getLong(1));
+                }, usernames.toArray());
+        return ids;
+    }
+
+    public record CheckinKey(long userId, LocalDate checkinDate) {
+    }
+
+    private record UserMonth(long userId, YearMonth month) {
+    }
+}
@@ -7,25 +7,73 @@ import org.springframework.stereotype.Repository;
 import vn.ghtk.loyalty.entity.DailyCheckin;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Month-scoped queries use half-open ranges on {@code checkin_date} so MySQL can range-scan
+ * {@code uk_daily_checkin_user_date} / {@code idx_daily_checkin_user_date_order} instead of
+ * evaluating {@code YEAR()/MONTH()} on every row of the user.
+ */
 @Repository
-public interface DailyCheckinRepository extends JpaRepository<DailyCheckin, Long> {
+public interface DailyCheckinRepository extends JpaRepository<DailyCheckin, Long>, DailyCheckinRepositoryCustom {
 
     Optional<DailyCheckin> findByUserIdAndCheckinDate(Long userId, LocalDate checkinDate);
 
     @Query("SELECT COUNT(d) FROM DailyCheckin d WHERE d.userId = :userId " +
-           "AND YEAR(d.checkinDate) = :year AND MONTH(d.checkinDate) = :month")
-    Long countByUserIdAndMonth(@Param("userId") Long userId, @Param("year") int year, @Param("month") int month);
+           "AND d.checkinDate >= :fromDate AND d.checkinDate < :toDate")
+    Long countByUserIdAndDateRange(@Param("userId") Long userId,
+                                   @Param("fromDate") LocalDate fromDate,
+                                   @Param("toDate") LocalDate toDate);
 
     @Query("SELECT d FROM DailyCheckin d WHERE d.userId = :userId " +
-           "AND YEAR(d.checkinDate) = :year AND MONTH(d.checkinDate) = :month " +
+           "AND d.checkinDate >= :fromDate AND d.checkinDate < :toDate " +
            "ORDER BY d.checkinDate DESC")
-    List<DailyCheckin> findByUserIdAndMonth(@Param("userId") Long userId, @Param("year") int year, @Param("month") int month);
+    List<DailyCheckin> findByUserIdAndDateRange(@Param("userId") Long userId,
+                                                @Param("fromDate") LocalDate fromDate,
+                                                @Param("toDate") LocalDate toDate);
 
     @Query("SELECT MAX(d.checkinOrder) FROM DailyCheckin d WHERE d.userId = :userId " +
-           "AND YEAR(d.checkinDate) = :year AND MONTH(d.checkinDate) = :month")
-    Integer findMaxCheckinOrderByUserIdAndMonth(@Param("userId") Long userId, @Param("year") int year, @Param("month") int month);
-}
+           "AND d.checkinDate >= :fromDate AND d.checkinDate < :toDate")
+    Integer findMaxCheckinOrderByUserIdAndDateRange(@Param("userId") Long userId,
+                                                    @Param("fromDate") LocalDate fromDate,
+                                                    @Param("toDate") LocalDate toDate);
+
+    @Query("SELECT d.checkinDate FROM DailyCheckin d WHERE d.userId = :userId " +
+           "AND d.checkinDate >= :fromDate AND d.checkinDate < :toDate")
+    List<LocalDate> findCheckinDatesByUserIdAndDateRange(@Param("userId") Long userId,
+                                                         @Param("fromDate") LocalDate fromDate,
+                                                         @Param("toDate") LocalDate toDate);
+
+    /**
+     * Order and points of a check-in together with the user's balance after it, read back in the same transaction.
+     */
+    @Query(value = "SELECT d.checkin_order AS checkinOrder, d.points_earned AS pointsEarned, " +
+                   "u.total_points AS totalPoints FROM daily_checkin d JOIN users u ON u.id = d.user_id " +
+                   "WHERE d.user_id = :userId AND d.checkin_date = :checkinDate", nativeQuery = true)
+    CheckinResult findCheckinResult(@Param("userId") Long userId, @Param("checkinDate") LocalDate checkinDate);
+
+    default Long countByUserIdAndMonth(Long userId, int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return countByUserIdAndDateRange(userId, yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
+    }
+
+    default List<DailyCheckin> findByUserIdAndMonth(Long userId, int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return findByUserIdAndDateRange(userId, yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
+    }
 
+    default Integer findMaxCheckinOrderByUserIdAndMonth(Long userId, int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return findMaxCheckinOrderByUserIdAndDateRange(userId, yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
+    }
+
+    interface CheckinResult {
+        Integer getCheckinOrder();
+
+        Integer getPointsEarned();
+
+        Integer getTotalPoints();
+    }
+}
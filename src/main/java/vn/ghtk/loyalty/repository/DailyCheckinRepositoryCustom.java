@@ -0,0 +1,29 @@
+package vn.ghtk.loyalty.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Statements of the STREAMLINED check-in transaction. The points of an order are inlined as a
+ * {@code CASE} over the configured sequence so order and points are derived in the statement itself.
+ */
+public interface DailyCheckinRepositoryCustom {
+
+    /**
+     * Takes the next order of the month on the user's {@code user_monthly_checkin} row with one conditional
+     * UPDATE, which also locks the row until commit.
+     *
+     * @param now {@code updated_at} of the row
+     * @return 1 if reserved; 0 if the row is missing or the monthly limit is reached
+     */
+    int reserveNextCheckin(Long userId, LocalDate checkinDate, int maxPerMonth, int[] pointsSequence,
+                           LocalDateTime now);
+
+    /**
+     * Inserts the check-in with the order just reserved on the summary row. A second check-in on the same day
+     * fails on {@code uk_daily_checkin_user_date}.
+     *
+     * @param now {@code created_at} of the check-in
+     */
+    void insertReservedCheckin(Long userId, LocalDate checkinDate, int[] pointsSequence, LocalDateTime now);
+}
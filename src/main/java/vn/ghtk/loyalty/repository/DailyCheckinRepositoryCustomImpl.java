@@ -0,0 +1,60 @@
+package vn.ghtk.loyalty.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckin;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Native statements through the {@link EntityManager} (not JDBC) so they run after pending entity writes are
+ * flushed and show up in Hibernate's statement inspection like the rest of the transaction.
+ */
+@RequiredArgsConstructor
+public class DailyCheckinRepositoryCustomImpl implements DailyCheckinRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public int reserveNextCheckin(Long userId, LocalDate checkinDate, int maxPerMonth, int[] pointsSequence,
+                                  LocalDateTime now) {
+        // points_earned is assigned first: MySQL evaluates SET left to right, so it must still see the old last_order
+        return entityManager.createNativeQuery("UPDATE user_monthly_checkin SET " +
+                        "points_earned = points_earned + " + pointsForOrder("last_order + 1", pointsSequence) + ", " +
+                        "checkin_count = checkin_count + 1, last_order = last_order + 1, " +
+                        "last_checkin_date = ?1, updated_at = ?2 " +
+                        "WHERE user_id = ?3 AND checkin_month = ?4 AND checkin_count < ?5")
+                .setParameter(1, checkinDate)
+                .setParameter(2, now)
+                .setParameter(3, userId)
+                .setParameter(4, UserMonthlyCheckin.monthKey(YearMonth.from(checkinDate)))
+                .setParameter(5, maxPerMonth)
+                .executeUpdate();
+    }
+
+    @Override
+    public void insertReservedCheckin(Long userId, LocalDate checkinDate, int[] pointsSequence, LocalDateTime now) {
+        entityManager.createNativeQuery("INSERT INTO daily_checkin " +
+                        "(user_id, checkin_date, points_earned, checkin_order, created_at) " +
+                        "SELECT user_id, ?1, " + pointsForOrder("last_order", pointsSequence) + ", last_order, ?2 " +
+                        "FROM user_monthly_checkin WHERE user_id = ?3 AND checkin_month = ?4")
+                .setParameter(1, checkinDate)
+                .setParameter(2, now)
+                .setParameter(3, userId)
+                .setParameter(4, UserMonthlyCheckin.monthKey(YearMonth.from(checkinDate)))
+                .executeUpdate();
+    }
+
+    /**
+     * SQL form of {@link vn.ghtk.loyalty.config.CheckinConfig#pointsForOrder}: orders past the sequence earn 0.
+     */
+    private static String pointsForOrder(String orderExpression, int[] pointsSequence) {
+        StringBuilder sql = new StringBuilder("CASE ").append(orderExpression);
+        for (int i = 0; i < pointsSequence.length; i++) {
+            sql.append(" WHEN ").append(i + 1).append(" THEN ").append(pointsSequence[i]);
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+}
@@ -0,0 +1,26 @@
+package vn.ghtk.loyalty.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import vn.ghtk.loyalty.entity.PointsEventOutbox;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PointsEventOutboxRepository extends JpaRepository<PointsEventOutbox, Long> {
+
+    /**
+     * Oldest unpublished events in id order, locked; rows locked by another relay are skipped.
+     */
+    @Query(value = "SELECT * FROM points_event_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<PointsEventOutbox> lockBatchForRelay(@Param("limit") int limit);
+
+    /**
+     * Oldest unpublished event, for the relay lag (primary key order, no index on created_at needed).
+     */
+    Optional<PointsEventOutbox> findFirstByOrderByIdAsc();
+}
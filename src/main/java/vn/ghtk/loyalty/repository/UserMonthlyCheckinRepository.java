@@ -0,0 +1,68 @@
+package vn.ghtk.loyalty.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckin;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckinId;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Summary rows are only ever created from {@code daily_checkin} with {@code INSERT IGNORE}, so a row that
+ * already exists (and may have been incremented since) is never overwritten by an aggregate.
+ */
+@Repository
+public interface UserMonthlyCheckinRepository extends JpaRepository<UserMonthlyCheckin, UserMonthlyCheckinId> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserMonthlyCheckin s WHERE s.userId = :userId AND s.checkinMonth = :checkinMonth")
+    Optional<UserMonthlyCheckin> findForUpdate(@Param("userId") Long userId,
+                                               @Param("checkinMonth") int checkinMonth);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_monthly_checkin " +
+            "(user_id, checkin_month, checkin_count, last_order, points_earned, last_checkin_date, updated_at) " +
+            "SELECT :userId, :checkinMonth, COUNT(*), COALESCE(MAX(checkin_order), 0), " +
+            "COALESCE(SUM(points_earned), 0), MAX(checkin_date), CURRENT_TIMESTAMP " +
+            "FROM daily_checkin WHERE user_id = :userId AND checkin_date >= :fromDate AND checkin_date < :toDate",
+            nativeQuery = true)
+    int createFromCheckins(@Param("userId") Long userId,
+                           @Param("checkinMonth") int checkinMonth,
+                           @Param("fromDate") LocalDate fromDate,
+                           @Param("toDate") LocalDate toDate);
+
+    /**
+     * Creates the missing summary rows of one month for users in {@code (afterUserId, lastUserId]}, in its own
+     * transaction so a backfill holds locks on one id range at a time.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_monthly_checkin " +
+            "(user_id, checkin_month, checkin_count, last_order, points_earned, last_checkin_date, updated_at) " +
+            "SELECT user_id, :checkinMonth, COUNT(*), MAX(checkin_order), SUM(points_earned), MAX(checkin_date), " +
+            "CURRENT_TIMESTAMP FROM daily_checkin " +
+            "WHERE user_id > :afterUserId AND user_id <= :lastUserId " +
+            "AND checkin_date >= :fromDate AND checkin_date < :toDate GROUP BY user_id",
+            nativeQuery = true)
+    int backfillRange(@Param("checkinMonth") int checkinMonth,
+                      @Param("fromDate") LocalDate fromDate,
+                      @Param("toDate") LocalDate toDate,
+                      @Param("afterUserId") long afterUserId,
+                      @Param("lastUserId") long lastUserId);
+
+    default int createFromCheckins(Long userId, YearMonth month) {
+        return createFromCheckins(userId, UserMonthlyCheckin.monthKey(month), month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    default Optional<UserMonthlyCheckin> findByUserIdAndMonth(Long userId, YearMonth month) {
+        return findById(new UserMonthlyCheckinId(userId, UserMonthlyCheckin.monthKey(month)));
+    }
+}
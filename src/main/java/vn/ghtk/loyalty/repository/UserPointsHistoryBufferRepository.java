@@ -0,0 +1,32 @@
+package vn.ghtk.loyalty.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import vn.ghtk.loyalty.entity.UserPointsHistoryBuffer;
+
+import java.util.List;
+
+@Repository
+public interface UserPointsHistoryBufferRepository extends JpaRepository<UserPointsHistoryBuffer, Long> {
+
+    /**
+     * Oldest buffered ids, locked; rows locked by another node's flush are skipped instead of waited for.
+     */
+    @Query(value = "SELECT id FROM user_points_history_buffer ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockBatchForFlush(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_points_history (id, user_id, points, transaction_type, description, created_at) " +
+            "SELECT id, user_id, points, transaction_type, description, created_at " +
+            "FROM user_points_history_buffer WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copyToHistory(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_points_history_buffer WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
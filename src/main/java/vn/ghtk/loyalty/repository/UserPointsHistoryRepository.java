@@ -1,5 +1,6 @@
 package vn.ghtk.loyalty.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,20 +10,57 @@ import org.springframework.stereotype.Repository;
 import vn.ghtk.loyalty.entity.UserPointsHistory;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
 
 @Repository
-public interface UserPointsHistoryRepository extends JpaRepository<UserPointsHistory, Long> {
+public interface UserPointsHistoryRepository extends JpaRepository<UserPointsHistory, Long>,
+        UserPointsHistoryRepositoryCustom {
 
     Page<UserPointsHistory> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
     @Query("SELECT h FROM UserPointsHistory h WHERE h.userId = :userId " +
-           "AND YEAR(h.createdAt) = :year AND MONTH(h.createdAt) = :month " +
+           "AND h.createdAt >= :fromTime AND h.createdAt < :toTime " +
            "ORDER BY h.createdAt DESC")
-    Page<UserPointsHistory> findByUserIdAndMonth(
+    Page<UserPointsHistory> findByUserIdAndCreatedAtRange(
             @Param("userId") Long userId,
-            @Param("year") int year,
-            @Param("month") int month,
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("toTime") LocalDateTime toTime,
             Pageable pageable
     );
-}
 
+    /*
+     * Keyset pages ordered by (createdAt DESC, id DESC). The seek predicate is written as
+     * "createdAt <= t AND (createdAt < t OR id < i)" rather than a row comparison so MySQL keeps
+     * a range scan on idx_user_points_history_user_created_at. No count query is issued.
+     */
+
+    List<UserPointsHistory> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Limit limit);
+
+    @Query("SELECT h FROM UserPointsHistory h WHERE h.userId = :userId " +
+           "AND h.createdAt <= :beforeTime AND (h.createdAt < :beforeTime OR h.id < :beforeId) " +
+           "ORDER BY h.createdAt DESC, h.id DESC")
+    List<UserPointsHistory> findByUserIdBefore(
+            @Param("userId") Long userId,
+            @Param("beforeTime") LocalDateTime beforeTime,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    @Query("SELECT h FROM UserPointsHistory h WHERE h.userId = :userId AND h.createdAt >= :fromTime " +
+           "AND h.createdAt <= :beforeTime AND (h.createdAt < :beforeTime OR h.id < :beforeId) " +
+           "ORDER BY h.createdAt DESC, h.id DESC")
+    List<UserPointsHistory> findByUserIdAndCreatedAtFromBefore(
+            @Param("userId") Long userId,
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("beforeTime") LocalDateTime beforeTime,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    default Page<UserPointsHistory> findByUserIdAndMonth(Long userId, int year, int month, Pageable pageable) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return findByUserIdAndCreatedAtRange(userId,
+                yearMonth.atDay(1).atStartOfDay(), yearMonth.plusMonths(1).atDay(1).atStartOfDay(), pageable);
+    }
+}
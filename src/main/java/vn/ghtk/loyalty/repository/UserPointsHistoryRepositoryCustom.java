@@ -0,0 +1,22 @@
+package vn.ghtk.loyalty.repository;
+
+import vn.ghtk.loyalty.dto.response.PointsHistoryExportRow;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface UserPointsHistoryRepositoryCustom {
+
+    /*
+     * Export streams: forward-only cursors (see JdbcStreamingUtil) map each row to a PointsHistoryExportRow, so
+     * neither the driver nor the persistence context holds the result. Must be consumed inside a transaction and
+     * closed.
+     */
+
+    Stream<PointsHistoryExportRow> streamExportByUserId(Long userId);
+
+    Stream<PointsHistoryExportRow> streamExportByUserIdAndCreatedAtRange(Long userId, LocalDateTime fromTime,
+                                                                         LocalDateTime toTime);
+
+    Stream<PointsHistoryExportRow> streamExportByCreatedAtRange(LocalDateTime fromTime, LocalDateTime toTime);
+}
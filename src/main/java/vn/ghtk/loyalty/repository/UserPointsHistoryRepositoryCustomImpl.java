@@ -0,0 +1,59 @@
+package vn.ghtk.loyalty.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import vn.ghtk.loyalty.dto.response.PointsHistoryExportRow;
+import vn.ghtk.loyalty.util.JdbcStreamingUtil;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * JPQL rather than {@code @Query} so the fetch size can depend on the database the transaction runs on.
+ */
+@RequiredArgsConstructor
+public class UserPointsHistoryRepositoryCustomImpl implements UserPointsHistoryRepositoryCustom {
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String EXPORT_ROW = "SELECT new vn.ghtk.loyalty.dto.response.PointsHistoryExportRow(" +
+            "h.id, h.userId, h.points, h.transactionType, h.description, h.createdAt) FROM UserPointsHistory h ";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Stream<PointsHistoryExportRow> streamExportByUserId(Long userId) {
+        return exportQuery(EXPORT_ROW + "WHERE h.userId = :userId ORDER BY h.createdAt, h.id")
+                .setParameter("userId", userId)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<PointsHistoryExportRow> streamExportByUserIdAndCreatedAtRange(Long userId, LocalDateTime fromTime,
+                                                                                LocalDateTime toTime) {
+        return exportQuery(EXPORT_ROW + "WHERE h.userId = :userId " +
+                           "AND h.createdAt >= :fromTime AND h.createdAt < :toTime ORDER BY h.createdAt, h.id")
+                .setParameter("userId", userId)
+                .setParameter("fromTime", fromTime)
+                .setParameter("toTime", toTime)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<PointsHistoryExportRow> streamExportByCreatedAtRange(LocalDateTime fromTime, LocalDateTime toTime) {
+        return exportQuery(EXPORT_ROW + "WHERE h.createdAt >= :fromTime AND h.createdAt < :toTime ORDER BY h.id")
+                .setParameter("fromTime", fromTime)
+                .setParameter("toTime", toTime)
+                .getResultStream();
+    }
+
+    private TypedQuery<PointsHistoryExportRow> exportQuery(String jpql) {
+        int fetchSize = entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> JdbcStreamingUtil.fetchSize(connection, EXPORT_FETCH_SIZE));
+        return entityManager.createQuery(jpql, PointsHistoryExportRow.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+    }
+}
@@ -1,14 +1,68 @@
 package vn.ghtk.loyalty.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import vn.ghtk.loyalty.entity.User;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u.totalPoints FROM User u WHERE u.id = :userId")
+    Optional<Integer> findTotalPointsById(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(MAX(u.id), 0) FROM User u")
+    long findMaxId();
+
+    /**
+     * Deducts only if the balance covers it; the row lock taken by the UPDATE serialises concurrent
+     * deductions, so 0 affected rows means the user is missing or the balance is insufficient.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.totalPoints = u.totalPoints - :points, u.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE u.id = :userId AND u.totalPoints >= :points")
+    int deductPointsIfSufficient(@Param("userId") Long userId, @Param("points") int points);
+
+    /**
+     * Replaces the password hash only if it is still {@code currentHash}, so a background re-hash never
+     * overwrites a password changed in the meantime.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :userId AND u.password = :currentHash")
+    int updatePasswordHashIfUnchanged(@Param("userId") Long userId, @Param("currentHash") String currentHash,
+                                      @Param("newHash") String newHash);
+
+    /**
+     * Adds the points of the user's check-in on that date to the balance in place, without loading the entity.
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET total_points = total_points + " +
+                   "(SELECT d.points_earned FROM daily_checkin d WHERE d.user_id = :userId AND d.checkin_date = :checkinDate), " +
+                   "updated_at = CURRENT_TIMESTAMP WHERE id = :userId", nativeQuery = true)
+    int addCheckinPoints(@Param("userId") Long userId, @Param("checkinDate") LocalDate checkinDate);
+
+    /**
+     * Locks the balances of a set of users, in id order so concurrent batches cannot deadlock.
+     */
+    @Query(value = "SELECT id AS id, total_points AS totalPoints FROM users " +
+                   "WHERE id IN (:userIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<PointsBalance> findBalancesForUpdate(@Param("userIds") Collection<Long> userIds);
+
+    interface PointsBalance {
+        Long getId();
+
+        Integer getTotalPoints();
+    }
 }
 
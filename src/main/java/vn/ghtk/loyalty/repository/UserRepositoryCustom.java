@@ -0,0 +1,48 @@
+package vn.ghtk.loyalty.repository;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Adds each delta to the user's balance with one JDBC batch of
+     * {@code UPDATE users SET total_points = total_points + ?}.
+     */
+    void addPointsBatch(Map<Long, Integer> deltasByUserId);
+
+    /*
+     * Balance reconciliation. The ledger of a user is user_points_history plus its rows still in the write-behind
+     * buffer. Range reads are forward-only and read-only and stream with the given fetch size, row by row on MySQL
+     * (see JdbcStreamingUtil); the handler must not run statements of its own.
+     */
+
+    /**
+     * Streams (user id, points) of every ledger row of the users in {@code (afterUserId, toUserId]}, unordered.
+     */
+    void forEachLedgerEntry(long afterUserId, long toUserId, int fetchSize, UserAmountHandler handler);
+
+    /**
+     * Streams (user id, total_points) of the users in {@code (afterUserId, toUserId]}.
+     */
+    void forEachBalance(long afterUserId, long toUserId, int fetchSize, UserAmountHandler handler);
+
+    /**
+     * Balance and ledger sum of one user, read by a single statement so both come from the same snapshot.
+     */
+    Optional<LedgerBalance> findLedgerBalance(long userId);
+
+    /**
+     * Sets the balance to the ledger sum if they differ; 1 if the balance was changed. The row lock taken by the
+     * UPDATE waits for in-flight points transactions, so their history rows are counted.
+     */
+    int resetBalanceToLedger(long userId);
+
+    @FunctionalInterface
+    interface UserAmountHandler {
+        void accept(long userId, long amount);
+    }
+
+    record LedgerBalance(long userId, long balance, long ledgerSum) {
+    }
+}
@@ -0,0 +1,77 @@
+package vn.ghtk.loyalty.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import vn.ghtk.loyalty.util.JdbcStreamingUtil;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String LEDGER_SUM = "(SELECT COALESCE(SUM(h.points), 0) FROM user_points_history h " +
+            "WHERE h.user_id = u.id) + (SELECT COALESCE(SUM(b.points), 0) FROM user_points_history_buffer b " +
+            "WHERE b.user_id = u.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addPointsBatch(Map<Long, Integer> deltasByUserId) {
+        if (deltasByUserId.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = deltasByUserId.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), now, entry.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE users SET total_points = total_points + ?, updated_at = ? WHERE id = ?", args);
+    }
+
+    @Override
+    public void forEachLedgerEntry(long afterUserId, long toUserId, int fetchSize, UserAmountHandler handler) {
+        // History rows are found through idx_user_points_history_user_created_at; the buffer is small and unindexed
+        stream("SELECT user_id, points FROM user_points_history WHERE user_id > ? AND user_id <= ? " +
+               "UNION ALL SELECT user_id, points FROM user_points_history_buffer WHERE user_id > ? AND user_id <= ?",
+                fetchSize, handler, afterUserId, toUserId, afterUserId, toUserId);
+    }
+
+    @Override
+    public void forEachBalance(long afterUserId, long toUserId, int fetchSize, UserAmountHandler handler) {
+        stream("SELECT id, total_points FROM users WHERE id > ? AND id <= ?",
+                fetchSize, handler, afterUserId, toUserId);
+    }
+
+    @Override
+    public Optional<LedgerBalance> findLedgerBalance(long userId) {
+        return jdbcTemplate.query("SELECT u.total_points, " + LEDGER_SUM + " FROM users u WHERE u.id = ?",
+                        (rs, rowNum) -> new LedgerBalance(userId, rs.getLong(1), rs.getLong(2)), userId)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public int resetBalanceToLedger(long userId) {
+        return jdbcTemplate.update("UPDATE users u SET total_points = " + LEDGER_SUM + ", updated_at = ? " +
+                        "WHERE u.id = ? AND u.total_points <> " + LEDGER_SUM,
+                Timestamp.valueOf(LocalDateTime.now()), userId);
+    }
+
+    private void stream(String sql, int fetchSize, UserAmountHandler handler, Object... args) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(JdbcStreamingUtil.fetchSize(connection, fetchSize));
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getLong(2)));
+    }
+}
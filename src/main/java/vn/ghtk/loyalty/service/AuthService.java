@@ -1,10 +1,20 @@
 package vn.ghtk.loyalty.service;
 
 import vn.ghtk.loyalty.dto.request.LoginRequest;
+import vn.ghtk.loyalty.dto.request.RefreshTokenRequest;
 import vn.ghtk.loyalty.dto.response.LoginResponse;
 
 public interface AuthService {
 
-    LoginResponse login(LoginRequest request);
-}
+    /**
+     * {@code clientIp} is counted by the failed-login throttle alongside the username.
+     */
+    LoginResponse login(LoginRequest request, String clientIp);
+
+    /**
+     * Issues a new access token and the next refresh token without touching the password or the database.
+     */
+    LoginResponse refresh(RefreshTokenRequest request);
 
+    void logout(RefreshTokenRequest request);
+}
@@ -0,0 +1,27 @@
+package vn.ghtk.loyalty.service;
+
+import vn.ghtk.loyalty.enums.BulkImportKind;
+
+import java.nio.file.Path;
+
+public interface BulkImportService {
+
+    /**
+     * Loads a CSV (by {@code .csv} extension, with a header row) or NDJSON file of the given kind, resuming after
+     * the records a previous run of the same file (same absolute path, size and modification time) already
+     * committed.
+     */
+    Report importFile(BulkImportKind kind, Path file);
+
+    /**
+     * {@code resumedAfter} records were committed by earlier runs and skipped; of the {@code read} records of this
+     * run, {@code written} were inserted and {@code rejected} were invalid or referenced an unknown user.
+     */
+    record Report(BulkImportKind kind, String source, long resumedAfter, long read, long written, long rejected,
+                  long durationMillis) {
+
+        public long rowsPerSecond() {
+            return durationMillis == 0 ? written : written * 1000 / durationMillis;
+        }
+    }
+}
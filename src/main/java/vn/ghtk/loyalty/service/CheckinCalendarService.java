@@ -0,0 +1,26 @@
+package vn.ghtk.loyalty.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface CheckinCalendarService {
+
+    void recordCheckin(Long userId, LocalDate date);
+
+    /**
+     * Non-blocking {@link #recordCheckin}; completes normally even if Redis fails.
+     */
+    CompletableFuture<Void> recordCheckinAsync(Long userId, LocalDate date);
+
+    /**
+     * Bitmap of the month's check-ins: bit {@code day - 1} is set when the user checked in on that day.
+     */
+    int getMonthBitmap(Long userId, YearMonth month);
+
+    /**
+     * Bitmaps for all 12 months of the year, keyed by month value (1-12).
+     */
+    Map<Integer, Integer> getYearBitmaps(Long userId, int year);
+}
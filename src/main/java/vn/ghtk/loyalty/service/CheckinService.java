@@ -1,14 +1,23 @@
 package vn.ghtk.loyalty.service;
 
+import vn.ghtk.loyalty.dto.response.CheckinCalendarResponse;
 import vn.ghtk.loyalty.dto.response.CheckinResponse;
 import vn.ghtk.loyalty.dto.response.CheckinStatusResponse;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface CheckinService {
 
-    CheckinResponse checkin(Long userId);
+    CheckinResponse checkin(Long userId, String idempotencyKey);
+
+    /**
+     * Same as {@link #checkin} without blocking the caller; lock and Redis waits hold no thread.
+     */
+    CompletableFuture<CheckinResponse> checkinAsync(Long userId, String idempotencyKey);
 
     List<CheckinStatusResponse> getCheckinStatusForCurrentMonth(Long userId);
+
+    List<CheckinCalendarResponse> getCheckinCalendarForYear(Long userId, Integer year);
 }
 
@@ -0,0 +1,20 @@
+package vn.ghtk.loyalty.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs {@code action} at most once per (scope, userId, idempotencyKey) while the stored response lives;
+     * a replay returns the stored response without running the action.
+     */
+    <T> T execute(String scope, Long userId, String idempotencyKey, Class<T> responseType, Supplier<T> action);
+
+    /**
+     * Non-blocking {@link #execute}: the claim, release and store run as async Redis commands and {@code action}
+     * is started from the Redis completion thread, so it must not block.
+     */
+    <T> CompletableFuture<T> executeAsync(String scope, Long userId, String idempotencyKey, Class<T> responseType,
+                                          Supplier<CompletableFuture<T>> action);
+}
@@ -0,0 +1,17 @@
+package vn.ghtk.loyalty.service;
+
+public interface LoginThrottleService {
+
+    /**
+     * Throws {@link vn.ghtk.loyalty.exception.ServerBusyException} if {@code username} or {@code clientIp} has
+     * used up its failed attempts for the current window; called before the password is hashed.
+     */
+    void checkAllowed(String username, String clientIp);
+
+    void recordFailure(String username, String clientIp);
+
+    /**
+     * Clears the username's failures; the IP counter is kept, since many users may share one address.
+     */
+    void recordSuccess(String username);
+}
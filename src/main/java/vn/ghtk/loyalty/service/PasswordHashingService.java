@@ -0,0 +1,23 @@
+package vn.ghtk.loyalty.service;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface PasswordHashingService {
+
+    /**
+     * Verifies {@code rawPassword} on the hashing executor and waits for the result; throws
+     * {@link vn.ghtk.loyalty.exception.ServerBusyException} without hashing if the executor queue is full.
+     */
+    boolean matches(String rawPassword, String encodedPassword);
+
+    /**
+     * Hashes {@code rawPassword} on the hashing executor; the future fails with
+     * {@link java.util.concurrent.RejectedExecutionException} if the queue is full.
+     */
+    CompletableFuture<String> encodeAsync(String rawPassword);
+
+    /**
+     * True if {@code encodedPassword} was hashed with a cost factor other than the configured one.
+     */
+    boolean needsRehash(String encodedPassword);
+}
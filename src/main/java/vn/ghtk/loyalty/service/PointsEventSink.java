@@ -0,0 +1,18 @@
+package vn.ghtk.loyalty.service;
+
+import vn.ghtk.loyalty.event.PointsEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the outbox relay. Selected with {@code loyalty.outbox.sink}; a deployment can register its own
+ * bean (Kafka, HTTP, ...) instead.
+ */
+public interface PointsEventSink {
+
+    /**
+     * Publishes {@code events} in order. Returns only when all are delivered; throwing leaves them all in the outbox,
+     * so the same batch may be delivered again.
+     */
+    void publish(List<PointsEvent> events);
+}
@@ -0,0 +1,16 @@
+package vn.ghtk.loyalty.service;
+
+import vn.ghtk.loyalty.enums.PointsHistoryExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
+
+public interface PointsHistoryExportService {
+
+    /**
+     * Writes the points history of {@code userId}, of {@code month}, or of both to {@code out}, row by row from a
+     * database cursor; {@code out} is left open. Returns the number of rows written.
+     */
+    long export(Long userId, YearMonth month, PointsHistoryExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,27 @@
+package vn.ghtk.loyalty.service;
+
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+
+public interface PointsHistoryWriter {
+
+    /**
+     * Records {@code history} in the caller's transaction: straight into {@code user_points_history}, or into the
+     * write-behind buffer when that mode is on, the entry has no idempotency key and the buffer is not full.
+     */
+    void record(UserPointsHistory history);
+
+    /**
+     * Moves up to one batch of buffered entries into {@code user_points_history}, keeping their ids.
+     *
+     * @return number of entries moved
+     */
+    int flush();
+
+    /**
+     * Re-counts the buffer; while it holds {@code history-buffer-max-pending} entries or more, {@link #record}
+     * writes synchronously.
+     *
+     * @return number of buffered entries
+     */
+    long refreshBacklog();
+}
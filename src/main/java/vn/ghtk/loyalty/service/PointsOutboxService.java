@@ -0,0 +1,25 @@
+package vn.ghtk.loyalty.service;
+
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+
+import java.util.List;
+
+public interface PointsOutboxService {
+
+    /**
+     * Appends one event per points change to the outbox in the caller's transaction (no-op when the outbox is off).
+     */
+    void record(List<UserPointsHistory> changes);
+
+    /**
+     * Publishes the oldest batch of events to the sink and deletes them, in one transaction.
+     *
+     * @return number of events published
+     */
+    int relayBatch();
+
+    /**
+     * Refreshes the pending and lag gauges.
+     */
+    void refreshLag();
+}
@@ -0,0 +1,21 @@
+package vn.ghtk.loyalty.service;
+
+import vn.ghtk.loyalty.repository.UserRepositoryCustom.LedgerBalance;
+
+import java.util.List;
+
+public interface PointsReconciliationService {
+
+    /**
+     * Compares every user's {@code total_points} with the sum of their points history and, if {@code repair},
+     * sets the balance to that sum where they differ.
+     */
+    Report reconcile(boolean repair);
+
+    /**
+     * {@code mismatches} holds at most {@code report-limit} of the {@code mismatchCount} balances found wrong.
+     */
+    record Report(long usersChecked, long ledgerRowsScanned, long mismatchCount, long repaired,
+                  long durationMillis, List<LedgerBalance> mismatches) {
+    }
+}
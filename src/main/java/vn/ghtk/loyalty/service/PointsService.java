@@ -1,13 +1,26 @@
 package vn.ghtk.loyalty.service;
 
 import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationBatchRequest;
 import vn.ghtk.loyalty.dto.response.PageResponse;
+import vn.ghtk.loyalty.dto.response.PointsMutationBatchResponse;
 import vn.ghtk.loyalty.dto.response.PointsHistoryResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface PointsService {
 
-    void deductPoints(Long userId, DeductPointsRequest request);
+    void deductPoints(Long userId, DeductPointsRequest request, String idempotencyKey);
+
+    /**
+     * Same as {@link #deductPoints} without blocking the caller; the lock wait holds no thread.
+     */
+    CompletableFuture<Void> deductPointsAsync(Long userId, DeductPointsRequest request, String idempotencyKey);
+
+    PointsMutationBatchResponse applyMutations(Long userId, PointsMutationBatchRequest request, String idempotencyKey);
 
     PageResponse<PointsHistoryResponse> getPointsHistory(Long userId, Integer page, Integer size, Integer month);
+
+    PageResponse<PointsHistoryResponse> getPointsHistoryByCursor(Long userId, String cursor, Integer size, Integer month);
 }
 
@@ -1,8 +1,22 @@
 package vn.ghtk.loyalty.service;
 
 import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationItemRequest;
+import vn.ghtk.loyalty.dto.response.PointsMutationResult;
+
+import java.util.List;
+import java.util.Map;
 
 public interface PointsTransactionService {
-    void doDeductPointsTransactional(Long userId, DeductPointsRequest request);
+    void doDeductPointsTransactional(Long userId, DeductPointsRequest request, String idempotencyKey);
+
+    void doDeductPointsConditional(Long userId, DeductPointsRequest request, String idempotencyKey);
+
+    /**
+     * Applies the items at the given indexes, grouped by user, in one transaction.
+     */
+    List<PointsMutationResult> doApplyMutationsTransactional(List<PointsMutationItemRequest> items,
+                                                             Map<Long, List<Integer>> itemIndexesByUser,
+                                                             String idempotencyKey);
 }
 
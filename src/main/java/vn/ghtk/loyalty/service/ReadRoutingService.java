@@ -0,0 +1,11 @@
+package vn.ghtk.loyalty.service;
+
+public interface ReadRoutingService {
+
+    /**
+     * Keeps the current read-only transaction on the primary if {@code userId} changed points within the last
+     * {@code read-your-writes-seconds}, so the user never reads a replica that has not caught up with their own
+     * write. Call before the transaction's first query; no-op without a replica.
+     */
+    void usePrimaryIfRecentlyWritten(Long userId);
+}
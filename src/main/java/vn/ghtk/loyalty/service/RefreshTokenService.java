@@ -0,0 +1,23 @@
+package vn.ghtk.loyalty.service;
+
+public interface RefreshTokenService {
+
+    /**
+     * Starts a new token family for {@code userId} and returns its first refresh token.
+     */
+    String issue(Long userId);
+
+    /**
+     * Exchanges {@code refreshToken} for the next token of its family; throws
+     * {@link vn.ghtk.loyalty.exception.BusinessException} if it is unknown, expired, revoked or already used.
+     */
+    Rotation rotate(String refreshToken);
+
+    /**
+     * Revokes the family of {@code refreshToken}; unknown tokens are ignored.
+     */
+    void revoke(String refreshToken);
+
+    record Rotation(Long userId, String refreshToken) {
+    }
+}
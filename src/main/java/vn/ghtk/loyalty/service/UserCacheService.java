@@ -0,0 +1,23 @@
+package vn.ghtk.loyalty.service;
+
+import vn.ghtk.loyalty.dto.response.UserProfileResponse;
+import vn.ghtk.loyalty.dto.response.UserResponse;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+public interface UserCacheService {
+
+    /**
+     * Profile of {@code userId} for {@code month} from L1, then L2, then {@code loader}.
+     */
+    UserProfileResponse getProfile(Long userId, YearMonth month, Supplier<UserProfileResponse> loader);
+
+    UserResponse getUser(Long userId, Supplier<UserResponse> loader);
+
+    /**
+     * Drops the users from this node's L1 and from L2, and tells the other nodes to drop them from their L1.
+     */
+    void evict(Collection<Long> userIds);
+}
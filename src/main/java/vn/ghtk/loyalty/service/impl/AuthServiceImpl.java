@@ -1,40 +1,107 @@
 package vn.ghtk.loyalty.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import vn.ghtk.loyalty.config.AuthConfig;
 import vn.ghtk.loyalty.dto.request.LoginRequest;
+import vn.ghtk.loyalty.dto.request.RefreshTokenRequest;
 import vn.ghtk.loyalty.dto.response.LoginResponse;
 import vn.ghtk.loyalty.entity.User;
 import vn.ghtk.loyalty.exception.BusinessException;
 import vn.ghtk.loyalty.repository.UserRepository;
 import vn.ghtk.loyalty.service.AuthService;
+import vn.ghtk.loyalty.service.LoginThrottleService;
+import vn.ghtk.loyalty.service.PasswordHashingService;
+import vn.ghtk.loyalty.service.RefreshTokenService;
 import vn.ghtk.loyalty.util.JwtUtil;
+import vn.ghtk.loyalty.util.MetricsUtil;
 
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginThrottleService loginThrottleService;
+    private final RefreshTokenService refreshTokenService;
+    private final AuthConfig authConfig;
     private final JwtUtil jwtUtil;
+    private final MeterRegistry meterRegistry;
 
     @Override
-    public LoginResponse login(LoginRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new BusinessException("Invalid username or password"));
+    public LoginResponse login(LoginRequest request, String clientIp) {
+        String username = request.getUsername();
+        loginThrottleService.checkAllowed(username, clientIp);
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null || !passwordHashingService.matches(request.getPassword(), user.getPassword())) {
+            loginThrottleService.recordFailure(username, clientIp);
             throw new BusinessException("Invalid username or password");
         }
+        loginThrottleService.recordSuccess(username);
+
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            rehash(user, request.getPassword());
+        }
+
+        String refreshToken;
+        try {
+            refreshToken = refreshTokenService.issue(user.getId());
+        } catch (RuntimeException e) {
+            // The client logs in again when the access token expires
+            log.warn("Failed to issue refresh token for user {}: {}", user.getId(), e.getMessage());
+            refreshToken = null;
+        }
+        return tokens(user.getId(), refreshToken);
+    }
 
-        String token = jwtUtil.generateToken(String.valueOf(user.getId()));
+    @Override
+    public LoginResponse refresh(RefreshTokenRequest request) {
+        return MetricsUtil.recordOutcome(meterRegistry, "auth.token.refresh", () -> {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+            return tokens(rotation.userId(), rotation.refreshToken());
+        });
+    }
+
+    @Override
+    public void logout(RefreshTokenRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+    }
+
+    private LoginResponse tokens(Long userId, String refreshToken) {
+        String token = jwtUtil.generateToken(String.valueOf(userId));
 
         return LoginResponse.builder()
                 .accessToken(token)
                 .tokenType("Bearer")
                 .expiresIn(jwtUtil.getExpirationMillis())
+                .refreshToken(refreshToken)
+                .refreshExpiresIn(refreshToken != null
+                        ? TimeUnit.SECONDS.toMillis(authConfig.getRefreshTokenTtlSeconds())
+                        : null)
                 .build();
     }
-}
 
+    /**
+     * Moves the stored hash to the configured cost factor in the background; the login does not wait for it,
+     * and a rehash dropped because the executor is busy is retried on the next login.
+     */
+    private void rehash(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        passwordHashingService.encodeAsync(rawPassword)
+                .thenAccept(newHash -> {
+                    if (userRepository.updatePasswordHashIfUnchanged(user.getId(), currentHash, newHash) > 0) {
+                        log.debug("Re-hashed password of user {}", user.getId());
+                    }
+                })
+                .exceptionally(e -> {
+                    log.debug("Re-hash of user {} skipped: {}", user.getId(), e.getMessage());
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,293 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.ghtk.loyalty.config.BulkImportConfig;
+import vn.ghtk.loyalty.dto.request.CheckinImportRow;
+import vn.ghtk.loyalty.dto.request.PointsHistoryImportRow;
+import vn.ghtk.loyalty.dto.request.UserImportRow;
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.enums.BulkImportKind;
+import vn.ghtk.loyalty.repository.BulkImportRepository;
+import vn.ghtk.loyalty.repository.BulkImportRepository.CheckinKey;
+import vn.ghtk.loyalty.service.BulkImportService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Streams the file record by record, so memory holds one batch whatever the file size. Each batch is written
+ * with one JDBC batch per table and committed together with the file's checkpoint (records consumed so far), so
+ * a rerun after a crash skips exactly the committed records. Passwords of a users batch are hashed in parallel
+ * on a pool of {@code hashing-threads} before its transaction starts, so no connection waits on BCrypt.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkImportServiceImpl implements BulkImportService {
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .build();
+
+    private final BulkImportRepository bulkImportRepository;
+    private final BulkImportConfig bulkImportConfig;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public Report importFile(BulkImportKind kind, Path file) {
+        return switch (kind) {
+            case USERS -> importUsers(file);
+            case CHECKINS -> load(kind, file, CheckinImportRow.class, this::writeCheckins);
+            case POINTS_HISTORY -> load(kind, file, PointsHistoryImportRow.class, this::writePointsHistory);
+        };
+    }
+
+    private Report importUsers(Path file) {
+        ExecutorService hashing = Executors.newFixedThreadPool(bulkImportConfig.getHashingThreads(),
+                new CustomizableThreadFactory("import-hash-"));
+        try {
+            return load(BulkImportKind.USERS, file, UserImportRow.class,
+                    (batch, checkpoint) -> writeUsers(batch, checkpoint, hashing));
+        } finally {
+            hashing.shutdownNow();
+        }
+    }
+
+    private <T> Report load(BulkImportKind kind, Path file, Class<T> type, BatchWriter<T> writer) {
+        String source = checkpointSource(kind, file);
+        int batchSize = bulkImportConfig.getBatchSize();
+        long progressIntervalNanos = TimeUnit.SECONDS.toNanos(bulkImportConfig.getProgressIntervalSeconds());
+        long resumedAfter = bulkImportRepository.findCheckpoint(source);
+        long started = System.nanoTime();
+        long nextProgress = started + progressIntervalNanos;
+        long read = 0;
+        long written = 0;
+
+        try (MappingIterator<T> records = openRecords(file, type)) {
+            for (long skipped = 0; skipped < resumedAfter && records.hasNextValue(); skipped++) {
+                records.nextValue();
+            }
+            if (resumedAfter > 0) {
+                log.info("Import {}: resuming after {} committed records", source, resumedAfter);
+            }
+
+            List<T> batch = new ArrayList<>(batchSize);
+            while (records.hasNextValue()) {
+                batch.add(records.nextValue());
+                if (batch.size() < batchSize) {
+                    continue;
+                }
+                read += batch.size();
+                written += writer.write(batch, new Checkpoint(source, resumedAfter + read));
+                batch.clear();
+                if (System.nanoTime() >= nextProgress) {
+                    log.info("Import {}: {} records read, {} written, {} rows/s", source, read, written,
+                            rowsPerSecond(written, System.nanoTime() - started));
+                    nextProgress = System.nanoTime() + progressIntervalNanos;
+                }
+            }
+            if (!batch.isEmpty()) {
+                read += batch.size();
+                written += writer.write(batch, new Checkpoint(source, resumedAfter + read));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Import " + source + " failed after record " + (resumedAfter + read), e);
+        }
+
+        Report report = new Report(kind, source, resumedAfter, read, written, read - written,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Import {}: {} records read, {} written, {} rejected in {} ms ({} rows/s)", source, report.read(),
+                report.written(), report.rejected(), report.durationMillis(), report.rowsPerSecond());
+        return report;
+    }
+
+    /**
+     * Checkpoint key of the file: kind and file name for the logs, plus a digest of its absolute path, size and
+     * modification time, so same-named files in other directories, or a file replaced since, start from scratch.
+     */
+    static String checkpointSource(BulkImportKind kind, Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Import " + absolute + " failed: file not readable", e);
+        }
+        String identity = absolute + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return kind.name().toLowerCase(Locale.ROOT) + ":" + file.getFileName() + "@"
+                    + HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private <T> MappingIterator<T> openRecords(Path file, Class<T> type) throws IOException {
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return CSV_MAPPER.readerFor(type)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(file.toFile());
+        }
+        return objectMapper.readerFor(type).readValues(file.toFile());
+    }
+
+    private int writeUsers(List<UserImportRow> batch, Checkpoint checkpoint, ExecutorService hashing) {
+        Set<String> usernames = new HashSet<>();
+        List<UserImportRow> valid = batch.stream()
+                .filter(row -> row.getUsername() != null && !row.getUsername().isBlank())
+                .filter(row -> row.getPasswordHash() != null
+                        ? BCRYPT_HASH.matcher(row.getPasswordHash()).matches()
+                        : row.getPassword() != null && !row.getPassword().isEmpty())
+                .filter(row -> usernames.add(row.getUsername()))
+                .toList();
+        // Users already present (loaded by another file or registered meanwhile) are rejected, not overwritten
+        Map<String, Long> existing = bulkImportRepository.findUserIds(usernames);
+
+        List<CompletableFuture<Object[]>> hashed = valid.stream()
+                .filter(row -> !existing.containsKey(row.getUsername()))
+                .map(row -> CompletableFuture.supplyAsync(() -> new Object[]{
+                        row.getUsername(),
+                        row.getPasswordHash() != null ? row.getPasswordHash() : passwordEncoder.encode(row.getPassword()),
+                        Objects.requireNonNullElse(row.getName(), row.getUsername()),
+                        row.getAvatar(),
+                        Objects.requireNonNullElse(row.getTotalPoints(), 0)
+                }, hashing))
+                .toList();
+        List<Object[]> rows = hashed.stream().map(CompletableFuture::join).toList();
+
+        commit(checkpoint, () -> bulkImportRepository.insertUsers(rows));
+        return rows.size();
+    }
+
+    private int writeCheckins(List<CheckinImportRow> batch, Checkpoint checkpoint) {
+        Map<String, Long> userIds = findUserIds(batch, CheckinImportRow::getUsername);
+        List<CheckinImportRow> valid = batch.stream()
+                .filter(row -> userIds.containsKey(row.getUsername()) && row.getCheckinDate() != null
+                        && row.getPointsEarned() != null && row.getCheckinOrder() != null)
+                .toList();
+        // Days already checked in (loaded by an earlier run or checked in live) are rejected, like existing users;
+        // a duplicate would otherwise abort the batch on uk_daily_checkin_user_date at every rerun
+        Set<CheckinKey> existing = bulkImportRepository.findCheckins(valid.stream()
+                .map(row -> new CheckinKey(userIds.get(row.getUsername()), row.getCheckinDate()))
+                .toList());
+
+        Set<CheckinKey> imported = new LinkedHashSet<>();
+        List<Object[]> rows = new ArrayList<>(valid.size());
+        for (CheckinImportRow row : valid) {
+            CheckinKey key = new CheckinKey(userIds.get(row.getUsername()), row.getCheckinDate());
+            if (existing.contains(key) || !imported.add(key)) {
+                continue;
+            }
+            rows.add(new Object[]{
+                    key.userId(),
+                    Date.valueOf(row.getCheckinDate()),
+                    row.getPointsEarned(),
+                    row.getCheckinOrder(),
+                    Timestamp.valueOf(row.getCreatedAt() != null
+                            ? row.getCreatedAt() : row.getCheckinDate().atStartOfDay())
+            });
+        }
+
+        commit(checkpoint, () -> {
+            bulkImportRepository.insertCheckins(rows);
+            bulkImportRepository.refreshMonthlySummaries(imported);
+        });
+        return rows.size();
+    }
+
+    private int writePointsHistory(List<PointsHistoryImportRow> batch, Checkpoint checkpoint) {
+        Map<String, Long> userIds = findUserIds(batch, PointsHistoryImportRow::getUsername);
+        List<UserPointsHistory> entries = new ArrayList<>(batch.size());
+        for (PointsHistoryImportRow row : batch) {
+            Long userId = userIds.get(row.getUsername());
+            if (userId == null || row.getPoints() == null || row.getTransactionType() == null) {
+                continue;
+            }
+            entries.add(UserPointsHistory.builder()
+                    .userId(userId)
+                    .points(row.getPoints())
+                    .transactionType(row.getTransactionType())
+                    .description(row.getDescription())
+                    .createdAt(row.getCreatedAt())
+                    .build());
+        }
+
+        commit(checkpoint, () -> bulkImportRepository.insertPointsHistory(entries));
+        return entries.size();
+    }
+
+    private <T> Map<String, Long> findUserIds(List<T> batch, Function<T, String> username) {
+        Set<String> usernames = new HashSet<>();
+        for (T row : batch) {
+            String value = username.apply(row);
+            if (value != null) {
+                usernames.add(value);
+            }
+        }
+        return bulkImportRepository.findUserIds(usernames);
+    }
+
+    private void commit(Checkpoint checkpoint, Runnable writes) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            writes.run();
+            bulkImportRepository.saveCheckpoint(checkpoint.source(), checkpoint.recordsDone());
+        });
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos == 0 ? rows : rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    private record Checkpoint(String source, long recordsDone) {
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter<T> {
+
+        /**
+         * Writes the valid records of the batch and the checkpoint in one transaction; returns the records written.
+         */
+        int write(List<T> batch, Checkpoint checkpoint);
+    }
+}
@@ -0,0 +1,177 @@
+package vn.ghtk.loyalty.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import vn.ghtk.loyalty.config.CheckinConfig;
+import vn.ghtk.loyalty.repository.DailyCheckinRepository;
+import vn.ghtk.loyalty.service.CheckinCalendarService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps each user's check-in calendar in Redis as one hash per year ({@code checkin:calendar:{userId}:{yyyy}}),
+ * one field per month holding a 32-bit bitmap: bit 0 marks the month as loaded from the DB, bit d marks day d.
+ * A month without the loaded bit is a cache miss and is rebuilt from {@code daily_checkin}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckinCalendarServiceImpl implements CheckinCalendarService {
+
+    private static final RedisScript<Long> RECORD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/calendar-record.lua"), Long.class);
+    private static final RedisScript<Long> MERGE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/calendar-merge.lua"), Long.class);
+    private static final long LOADED_BIT = 1L;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final DailyCheckinRepository dailyCheckinRepository;
+    private final CheckinConfig checkinConfig;
+    private final Clock clock;
+
+    @Override
+    public void recordCheckin(Long userId, LocalDate date) {
+        String key = calendarKey(userId, date.getYear());
+        String month = String.valueOf(date.getMonthValue());
+        try {
+            redisTemplate.execute(RECORD_SCRIPT, List.of(key), month, String.valueOf(date.getDayOfMonth()), ttlSeconds());
+        } catch (RuntimeException e) {
+            log.warn("Failed to record check-in of user {} on {} in calendar: {}", userId, date, e.getMessage());
+            evictMonth(key, month);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> recordCheckinAsync(Long userId, LocalDate date) {
+        String key = calendarKey(userId, date.getYear());
+        String month = String.valueOf(date.getMonthValue());
+        return reactiveRedisTemplate.execute(RECORD_SCRIPT, List.of(key),
+                        List.of(month, String.valueOf(date.getDayOfMonth()), ttlSeconds()))
+                .then()
+                .toFuture()
+                .exceptionallyCompose(error -> {
+                    log.warn("Failed to record check-in of user {} on {} in calendar: {}", userId, date, error.getMessage());
+                    return reactiveRedisTemplate.opsForHash().remove(key, month).then().toFuture();
+                })
+                .exceptionally(error -> {
+                    log.error("Failed to evict check-in calendar {} month {}: {}", key, month, error.getMessage());
+                    return null;
+                });
+    }
+
+    @Override
+    public int getMonthBitmap(Long userId, YearMonth month) {
+        String key = calendarKey(userId, month.getYear());
+        String cached = null;
+        try {
+            cached = redisTemplate.<String, String>opsForHash().get(key, String.valueOf(month.getMonthValue()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to read check-in calendar {}: {}", key, e.getMessage());
+        }
+        if (isLoaded(cached)) {
+            return toDayBitmap(Long.parseLong(cached));
+        }
+
+        Map<Integer, Integer> loaded = loadFromDatabase(userId, month, month);
+        store(key, loaded);
+        return loaded.get(month.getMonthValue());
+    }
+
+    @Override
+    public Map<Integer, Integer> getYearBitmaps(Long userId, int year) {
+        String key = calendarKey(userId, year);
+        Map<String, String> cached = Map.of();
+        try {
+            cached = redisTemplate.<String, String>opsForHash().entries(key);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read check-in calendar {}: {}", key, e.getMessage());
+        }
+
+        Map<Integer, Integer> bitmaps = new TreeMap<>();
+        List<YearMonth> missing = new ArrayList<>();
+        YearMonth currentMonth = YearMonth.now(clock);
+        for (int month = 1; month <= 12; month++) {
+            String value = cached.get(String.valueOf(month));
+            if (isLoaded(value)) {
+                bitmaps.put(month, toDayBitmap(Long.parseLong(value)));
+            } else if (YearMonth.of(year, month).isAfter(currentMonth)) {
+                bitmaps.put(month, 0);
+            } else {
+                missing.add(YearMonth.of(year, month));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // Một query cho cả khoảng tháng bị miss
+            Map<Integer, Integer> loaded = loadFromDatabase(userId, missing.get(0), missing.get(missing.size() - 1));
+            bitmaps.putAll(loaded);
+            store(key, loaded);
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Loads day bitmaps for every month in {@code [from, to]} (same year) with a single range query.
+     */
+    private Map<Integer, Integer> loadFromDatabase(Long userId, YearMonth from, YearMonth to) {
+        Map<Integer, Integer> bitmaps = new TreeMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            bitmaps.put(month.getMonthValue(), 0);
+        }
+        List<LocalDate> dates = dailyCheckinRepository.findCheckinDatesByUserIdAndDateRange(
+                userId, from.atDay(1), to.plusMonths(1).atDay(1));
+        for (LocalDate date : dates) {
+            bitmaps.merge(date.getMonthValue(), 1 << (date.getDayOfMonth() - 1), (a, b) -> a | b);
+        }
+        return bitmaps;
+    }
+
+    private void store(String key, Map<Integer, Integer> bitmaps) {
+        List<String> args = new ArrayList<>(1 + bitmaps.size() * 2);
+        args.add(ttlSeconds());
+        bitmaps.forEach((month, bitmap) -> {
+            args.add(String.valueOf(month));
+            args.add(String.valueOf(((long) bitmap << 1) | LOADED_BIT));
+        });
+        try {
+            redisTemplate.execute(MERGE_SCRIPT, List.of(key), args.toArray());
+        } catch (RuntimeException e) {
+            log.warn("Failed to store check-in calendar {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void evictMonth(String key, String month) {
+        try {
+            redisTemplate.opsForHash().delete(key, month);
+        } catch (RuntimeException e) {
+            log.error("Failed to evict check-in calendar {} month {}: {}", key, month, e.getMessage());
+        }
+    }
+
+    private boolean isLoaded(String value) {
+        return value != null && (Long.parseLong(value) & LOADED_BIT) != 0;
+    }
+
+    private int toDayBitmap(long stored) {
+        return (int) (stored >>> 1);
+    }
+
+    private String ttlSeconds() {
+        return String.valueOf(Duration.ofDays(checkinConfig.getCalendarTtlDays()).getSeconds());
+    }
+
+    private String calendarKey(Long userId, int year) {
+        return String.format("checkin:calendar:%d:%d", userId, year);
+    }
+}
@@ -1,28 +1,43 @@
 package vn.ghtk.loyalty.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import vn.ghtk.loyalty.config.CheckinConfig;
+import vn.ghtk.loyalty.dto.response.CheckinCalendarResponse;
 import vn.ghtk.loyalty.dto.response.CheckinResponse;
 import vn.ghtk.loyalty.dto.response.CheckinStatusResponse;
-import vn.ghtk.loyalty.entity.DailyCheckin;
+import vn.ghtk.loyalty.enums.CheckinAdmissionMode;
 import vn.ghtk.loyalty.exception.BusinessException;
-import vn.ghtk.loyalty.repository.DailyCheckinRepository;
+import vn.ghtk.loyalty.service.CheckinCalendarService;
 import vn.ghtk.loyalty.service.CheckinService;
 import vn.ghtk.loyalty.service.CheckinTransactionService;
+import vn.ghtk.loyalty.service.IdempotencyService;
+import vn.ghtk.loyalty.util.AdaptiveConcurrencyLimiter;
+import vn.ghtk.loyalty.util.AsyncUtil;
+import vn.ghtk.loyalty.util.MetricsUtil;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -34,50 +49,179 @@ public class CheckinServiceImpl implements CheckinService {
     private static final LocalTime EVENING_START = LocalTime.of(19, 0);
     private static final LocalTime EVENING_END = LocalTime.of(21, 0);
 
-    private final DailyCheckinRepository dailyCheckinRepository;
+    private static final RedisScript<Long> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/checkin-claim.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/checkin-release.lua"), Long.class);
+    private static final long CLAIMED = 0;
+    private static final long ALREADY_CHECKED_IN = 1;
+    private static final long MONTHLY_LIMIT_REACHED = 2;
+    private static final long LOCK_WAIT_SECONDS = 10;
+    private static final long LOCK_LEASE_SECONDS = 30;
+    // No lease: Redisson's watchdog renews the lock until it is released
+    private static final long WATCHDOG_LEASE = -1;
+
     private final RedisTemplate<String, String> redisTemplate;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
     private final RedissonClient redissonClient;
     private final CheckinTransactionService checkinTransactionService;
+    private final CheckinCalendarService checkinCalendarService;
+    private final IdempotencyService idempotencyService;
+    private final ThreadPoolTaskExecutor transactionExecutor;
+    private final AdaptiveConcurrencyLimiter transactionLimiter;
     private final CheckinConfig checkinConfig;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
 
     @Override
-    public CheckinResponse checkin(Long userId) {
-        LocalDate today = LocalDate.now();
-        LocalTime now = LocalTime.now();
+    public CheckinResponse checkin(Long userId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return doCheckin(userId);
+        }
+        // A retried check-in gets the original success response instead of "already checked in"
+        return idempotencyService.execute("checkin", userId, idempotencyKey, CheckinResponse.class,
+                () -> doCheckin(userId));
+    }
+
+    private CheckinResponse doCheckin(Long userId) {
+        LocalDate today = LocalDate.now(clock);
+        LocalTime now = LocalTime.now(clock);
 
         // Validate check-in time window
         if (!isValidCheckinTime(now)) {
-            throw new BusinessException("Check-in is only allowed between 9:00-11:00 or 19:00-21:00");
+            throw MetricsUtil.reject(meterRegistry, MetricsUtil.REASON_OUTSIDE_WINDOW, MetricsUtil.STAGE_ADMISSION,
+                    "Check-in is only allowed between 9:00-11:00 or 19:00-21:00");
+        }
+
+        if (checkinConfig.getAdmissionMode() == CheckinAdmissionMode.SCRIPT) {
+            return checkinWithScript(userId, today);
         }
+        return checkinWithLock(userId, today);
+    }
+
+    @Override
+    public CompletableFuture<CheckinResponse> checkinAsync(Long userId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return doCheckinAsync(userId);
+        }
+        return idempotencyService.executeAsync("checkin", userId, idempotencyKey, CheckinResponse.class,
+                () -> doCheckinAsync(userId));
+    }
 
-        String redisKey = String.format("checkin:%d:%s", userId, today.format(DateTimeFormatter.ISO_DATE));
+    /**
+     * Same admission and transaction as {@link #doCheckin}, but Redis and the Redisson lock are awaited
+     * asynchronously; a worker thread (and with it a JDBC connection) is taken only for the transaction.
+     */
+    private CompletableFuture<CheckinResponse> doCheckinAsync(Long userId) {
+        LocalDate today = LocalDate.now(clock);
+        LocalTime now = LocalTime.now(clock);
+
+        if (!isValidCheckinTime(now)) {
+            throw MetricsUtil.reject(meterRegistry, MetricsUtil.REASON_OUTSIDE_WINDOW, MetricsUtil.STAGE_ADMISSION,
+                    "Check-in is only allowed between 9:00-11:00 or 19:00-21:00");
+        }
+
+        if (checkinConfig.getAdmissionMode() == CheckinAdmissionMode.SCRIPT) {
+            return checkinWithScriptAsync(userId, today);
+        }
+        return checkinWithLockAsync(userId, today);
+    }
+
+    private CompletableFuture<CheckinResponse> checkinWithLockAsync(Long userId, LocalDate today) {
+        String redisKey = checkinKey(userId, today);
+
+        return MetricsUtil.recordAsync(meterRegistry, redisTimer("has_key"),
+                reactiveRedisTemplate.hasKey(redisKey).toFuture()).thenCompose(checkedIn -> {
+            if (Boolean.TRUE.equals(checkedIn)) {
+                throw alreadyCheckedIn();
+            }
+            return withCheckinLockAsync(userId, () -> transactionLimiter.executeAsync(() -> AsyncUtil.supplyAsync(
+                            () -> doCheckinTransactional(userId, today),
+                            transactionExecutor,
+                            meterRegistry))
+                    .thenCompose(response -> markCheckedInAsync(userId, redisKey, today)
+                            .thenApply(marked -> response)));
+        });
+    }
+
+    private CompletableFuture<CheckinResponse> checkinWithScriptAsync(Long userId, LocalDate today) {
+        String redisKey = checkinKey(userId, today);
+        List<String> keys = List.of(redisKey, monthlyCountKey(userId, today));
+        String claimToken = UUID.randomUUID().toString();
+
+        return MetricsUtil.recordAsync(meterRegistry, redisTimer("claim"),
+                        reactiveRedisTemplate.execute(CLAIM_SCRIPT, keys, claimArgs(claimToken, today)).next().toFuture())
+                .thenCompose(claim -> {
+                    checkClaim(claim);
+                    return transactionLimiter.executeAsync(() -> AsyncUtil.supplyAsync(
+                                    () -> doCheckinTransactional(userId, today),
+                                    transactionExecutor,
+                                    meterRegistry))
+                            .handle((response, error) -> error != null
+                                    ? releaseClaimAsync(keys, claimToken)
+                                            .thenCompose(released -> CompletableFuture.<CheckinResponse>failedFuture(error))
+                                    : markCheckedInAsync(userId, redisKey, today).thenApply(marked -> response))
+                            .thenCompose(Function.identity());
+                });
+    }
+
+    /**
+     * Awaits the user's check-in lock without holding a thread, then runs {@code task} and releases the lock when
+     * its future completes. The continuations run on Redisson/Lettuce threads, so the lock is owned by an id
+     * rather than a thread. It is taken without a lease, so it cannot expire while the transaction waits for a
+     * worker.
+     */
+    private <T> CompletableFuture<T> withCheckinLockAsync(Long userId, Supplier<CompletableFuture<T>> task) {
+        RLock lock = redissonClient.getLock(lockKey(userId));
+        long lockOwner = AsyncUtil.nextLockOwnerId();
+        Timer.Sample lockWait = Timer.start(meterRegistry);
+        return lock.tryLockAsync(LOCK_WAIT_SECONDS, WATCHDOG_LEASE, TimeUnit.SECONDS, lockOwner)
+                .toCompletableFuture()
+                .thenCompose(locked -> {
+                    lockWait.stop(lockWaitTimer(locked));
+                    if (!locked) {
+                        throw new BusinessException("Unable to acquire lock. Please try again.");
+                    }
+                    CompletableFuture<T> result;
+                    try {
+                        result = task.get();
+                    } catch (RuntimeException e) {
+                        lock.unlockAsync(lockOwner);
+                        throw e;
+                    }
+                    return result.whenComplete((value, error) -> lock.unlockAsync(lockOwner));
+                });
+    }
+
+    private CheckinResponse checkinWithLock(Long userId, LocalDate today) {
+        String redisKey = checkinKey(userId, today);
 
         // Quick check Redis for early exit (Redis chỉ set sau khi DB commit thành công)
-        if (redisTemplate.hasKey(redisKey)) {
-            throw new BusinessException("You have already checked in today");
+        if (Boolean.TRUE.equals(redisTimer("has_key").record(() -> redisTemplate.hasKey(redisKey)))) {
+            throw alreadyCheckedIn();
         }
+        return lockAndCheckin(userId, redisKey, today);
+    }
 
+    private CheckinResponse lockAndCheckin(Long userId, String redisKey, LocalDate today) {
         // Use Redisson lock to prevent concurrent check-ins
-        String lockKey = String.format("lock:checkin:%d", userId);
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient.getLock(lockKey(userId));
         boolean locked = false;
 
         try {
             // Try to acquire lock with 10 seconds timeout, lease time 30s
-            locked = lock.tryLock(10, 30, TimeUnit.SECONDS);
+            Timer.Sample lockWait = Timer.start(meterRegistry);
+            locked = lock.tryLock(LOCK_WAIT_SECONDS, LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
+            lockWait.stop(lockWaitTimer(locked));
             if (!locked) {
                 throw new BusinessException("Unable to acquire lock. Please try again.");
             }
 
             // Thực hiện check-in trong transaction, commit xong trước khi unlock
-            CheckinResponse response = checkinTransactionService.doCheckinTransactional(userId, today);
+            CheckinResponse response = transactionLimiter.execute(() -> doCheckinTransactional(userId, today));
 
             // Sau khi DB commit thành công, set Redis key
-            long secondsUntilMidnight = java.time.Duration.between(
-                    LocalDateTime.now(),
-                    today.atStartOfDay().plusDays(1)
-            ).getSeconds();
-            redisTemplate.opsForValue().set(redisKey, "1", secondsUntilMidnight, TimeUnit.SECONDS);
+            markCheckedIn(userId, redisKey, today);
 
             return response;
         } catch (InterruptedException e) {
@@ -90,40 +234,145 @@ public class CheckinServiceImpl implements CheckinService {
         }
     }
 
+    /**
+     * Admission in one Redis round trip: the Lua script checks today's key and the monthly counter and
+     * claims both atomically. The DB transaction stays the source of truth; if it fails the claim is released.
+     */
+    private CheckinResponse checkinWithScript(Long userId, LocalDate today) {
+        String redisKey = checkinKey(userId, today);
+        List<String> keys = List.of(redisKey, monthlyCountKey(userId, today));
+        String claimToken = UUID.randomUUID().toString();
+
+        Long claim = redisTimer("claim").record(
+                () -> redisTemplate.execute(CLAIM_SCRIPT, keys, claimArgs(claimToken, today).toArray()));
+
+        checkClaim(claim);
+
+        CheckinResponse response;
+        try {
+            response = transactionLimiter.execute(() -> doCheckinTransactional(userId, today));
+        } catch (RuntimeException e) {
+            releaseClaim(keys, claimToken);
+            throw e;
+        }
+
+        markCheckedIn(userId, redisKey, today);
+        return response;
+    }
+
+    private void checkClaim(Long claim) {
+        if (claim == null) {
+            throw new BusinessException("Unable to claim check-in. Please try again.");
+        }
+        if (claim == ALREADY_CHECKED_IN) {
+            throw alreadyCheckedIn();
+        }
+        if (claim == MONTHLY_LIMIT_REACHED) {
+            throw MetricsUtil.reject(meterRegistry, MetricsUtil.REASON_MONTHLY_CAP, MetricsUtil.STAGE_ADMISSION,
+                    "Maximum " + checkinConfig.getMaxPerMonth() + " check-ins per month reached");
+        }
+        if (claim != CLAIMED) {
+            throw new BusinessException("Check-in is already in progress. Please try again.");
+        }
+    }
+
+    private void releaseClaim(List<String> keys, String claimToken) {
+        try {
+            redisTimer("release").record(() -> redisTemplate.execute(RELEASE_SCRIPT, keys, claimToken));
+        } catch (RuntimeException e) {
+            // Claim sẽ tự hết hạn sau claim-ttl-seconds
+            log.warn("Failed to release check-in claim {}: {}", keys.get(0), e.getMessage());
+        }
+    }
+
+    private List<String> claimArgs(String claimToken, LocalDate today) {
+        return List.of(claimToken,
+                String.valueOf(checkinConfig.getMaxPerMonth()),
+                String.valueOf(checkinConfig.getClaimTtlSeconds()),
+                String.valueOf(secondsUntil(today.withDayOfMonth(1).plusMonths(1))));
+    }
+
+    private CompletableFuture<Void> releaseClaimAsync(List<String> keys, String claimToken) {
+        return MetricsUtil.recordAsync(meterRegistry, redisTimer("release"),
+                        reactiveRedisTemplate.execute(RELEASE_SCRIPT, keys, List.of(claimToken)).then().toFuture())
+                .handle((released, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to release check-in claim {}: {}", keys.get(0), error.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> markCheckedInAsync(Long userId, String redisKey, LocalDate today) {
+        return MetricsUtil.recordAsync(meterRegistry, redisTimer("mark_checked_in"), reactiveRedisTemplate.opsForValue()
+                .set(redisKey, "1", Duration.ofSeconds(secondsUntil(today.plusDays(1))))
+                .toFuture()
+                .thenCompose(marked -> checkinCalendarService.recordCheckinAsync(userId, today)));
+    }
+
+    private void markCheckedIn(Long userId, String redisKey, LocalDate today) {
+        redisTimer("mark_checked_in").record(() -> {
+            redisTemplate.opsForValue().set(redisKey, "1", secondsUntil(today.plusDays(1)), TimeUnit.SECONDS);
+            checkinCalendarService.recordCheckin(userId, today);
+        });
+    }
+
+    /**
+     * The transaction including its commit, as seen from the caller. Callers take a {@code transactionLimiter}
+     * slot first, after the lock is held but before the worker queue, and a full limiter sheds the request with
+     * 429; a SCRIPT claim is then released like for any other failure.
+     */
+    private CheckinResponse doCheckinTransactional(Long userId, LocalDate today) {
+        return MetricsUtil.recordOutcome(meterRegistry, "checkin.transaction",
+                () -> checkinTransactionService.doCheckinTransactional(userId, today));
+    }
+
+    private BusinessException alreadyCheckedIn() {
+        return MetricsUtil.reject(meterRegistry, MetricsUtil.REASON_ALREADY_CHECKED_IN, MetricsUtil.STAGE_ADMISSION,
+                "You have already checked in today");
+    }
+
+    private Timer redisTimer(String operation) {
+        return MetricsUtil.timer(meterRegistry, "checkin.redis", "operation", operation);
+    }
+
+    private Timer lockWaitTimer(boolean locked) {
+        return MetricsUtil.timer(meterRegistry, "checkin.lock.wait", "result", locked ? "acquired" : "timeout");
+    }
+
+    private long secondsUntil(LocalDate date) {
+        return Duration.between(LocalDateTime.now(clock), date.atStartOfDay()).getSeconds();
+    }
+
+    private String lockKey(Long userId) {
+        return String.format("lock:checkin:%d", userId);
+    }
+
+    private String checkinKey(Long userId, LocalDate date) {
+        return String.format("checkin:%d:%s", userId, date.format(DateTimeFormatter.ISO_DATE));
+    }
+
+    private String monthlyCountKey(Long userId, LocalDate date) {
+        return String.format("checkin:count:%d:%s", userId, YearMonth.from(date));
+    }
+
     @Override
     public List<CheckinStatusResponse> getCheckinStatusForCurrentMonth(Long userId) {
-        LocalDate today = LocalDate.now();
-        int year = today.getYear();
-        int month = today.getMonthValue();
-
-        // Get all check-ins for current month
-        List<DailyCheckin> checkins = dailyCheckinRepository.findByUserIdAndMonth(userId, year, month);
+        LocalDate today = LocalDate.now(clock);
+        YearMonth currentMonth = YearMonth.from(today);
 
-        // Create a map of check-in dates for quick lookup
-        Map<LocalDate, DailyCheckin> checkinMap = checkins.stream()
-                .collect(Collectors.toMap(DailyCheckin::getCheckinDate, Function.identity()));
+        // Check-ins của tháng hiện tại từ bitmap trong Redis (DB chỉ khi cache miss), sorted by date
+        List<CheckinStatusResponse> checkins = toCheckinStatuses(
+                currentMonth, checkinCalendarService.getMonthBitmap(userId, currentMonth));
 
         int maxPerMonth = checkinConfig.getMaxPerMonth();
         int[] pointsSequence = checkinConfig.getPointsSequence();
         int checkedInCount = checkins.size();
 
-        List<CheckinStatusResponse> statusList = new ArrayList<>();
-
-        // Add all checked-in days (sorted by date)
-        List<DailyCheckin> sortedCheckins = checkins.stream()
-                .sorted(Comparator.comparing(DailyCheckin::getCheckinDate))
-                .toList();
-
-        for (DailyCheckin checkin : sortedCheckins) {
-            statusList.add(CheckinStatusResponse.builder()
-                    .date(checkin.getCheckinDate())
-                    .checkedIn(true)
-                    .pointsEarned(checkin.getPointsEarned())
-                    .build());
-        }
+        List<CheckinStatusResponse> statusList = new ArrayList<>(checkins);
 
         // Add today if not checked in yet
-        boolean todayCheckedIn = checkinMap.containsKey(today);
+        boolean todayCheckedIn = checkins.stream().anyMatch(checkin -> today.equals(checkin.getDate()));
         if (!todayCheckedIn && checkedInCount < maxPerMonth) {
             if (checkedInCount < pointsSequence.length) {
                 statusList.add(CheckinStatusResponse.builder()
@@ -152,6 +401,51 @@ public class CheckinServiceImpl implements CheckinService {
         return statusList;
     }
 
+    @Override
+    public List<CheckinCalendarResponse> getCheckinCalendarForYear(Long userId, Integer year) {
+        int targetYear = year != null ? year : LocalDate.now(clock).getYear();
+        Map<Integer, Integer> bitmaps = checkinCalendarService.getYearBitmaps(userId, targetYear);
+
+        List<CheckinCalendarResponse> calendar = new ArrayList<>(12);
+        for (int month = 1; month <= 12; month++) {
+            int bitmap = bitmaps.getOrDefault(month, 0);
+            List<CheckinStatusResponse> checkins = toCheckinStatuses(YearMonth.of(targetYear, month), bitmap);
+            calendar.add(CheckinCalendarResponse.builder()
+                    .year(targetYear)
+                    .month(month)
+                    .checkinBitmap(bitmap)
+                    .checkinCount(checkins.size())
+                    .pointsEarned(checkins.stream()
+                            .map(CheckinStatusResponse::getPointsEarned)
+                            .filter(Objects::nonNull)
+                            .mapToInt(Integer::intValue)
+                            .sum())
+                    .checkins(checkins)
+                    .build());
+        }
+        return calendar;
+    }
+
+    /**
+     * Expands a day bitmap into check-in statuses; the n-th check-in of the month earns the n-th points in the sequence.
+     */
+    private List<CheckinStatusResponse> toCheckinStatuses(YearMonth month, int bitmap) {
+        int[] pointsSequence = checkinConfig.getPointsSequence();
+        List<CheckinStatusResponse> checkins = new ArrayList<>(Integer.bitCount(bitmap));
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            if ((bitmap & (1 << (day - 1))) == 0) {
+                continue;
+            }
+            int order = checkins.size();
+            checkins.add(CheckinStatusResponse.builder()
+                    .date(month.atDay(day))
+                    .checkedIn(true)
+                    .pointsEarned(order < pointsSequence.length ? pointsSequence[order] : null)
+                    .build());
+        }
+        return checkins;
+    }
+
     private boolean isValidCheckinTime(LocalTime time) {
         return (time.isAfter(MORNING_START) && time.isBefore(MORNING_END)) ||
                (time.isAfter(EVENING_START) && time.isBefore(EVENING_END)) ||
@@ -1,7 +1,10 @@
 package vn.ghtk.loyalty.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
@@ -9,71 +12,128 @@ import vn.ghtk.loyalty.config.CheckinConfig;
 import vn.ghtk.loyalty.dto.response.CheckinResponse;
 import vn.ghtk.loyalty.entity.DailyCheckin;
 import vn.ghtk.loyalty.entity.User;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckin;
 import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.enums.CheckinTransactionMode;
 import vn.ghtk.loyalty.enums.PointsTransactionType;
+import vn.ghtk.loyalty.event.UserPointsChangedEvent;
 import vn.ghtk.loyalty.exception.BusinessException;
 import vn.ghtk.loyalty.repository.DailyCheckinRepository;
-import vn.ghtk.loyalty.repository.UserPointsHistoryRepository;
+import vn.ghtk.loyalty.repository.UserMonthlyCheckinRepository;
 import vn.ghtk.loyalty.repository.UserRepository;
 import vn.ghtk.loyalty.service.CheckinTransactionService;
+import vn.ghtk.loyalty.service.PointsHistoryWriter;
+import vn.ghtk.loyalty.service.PointsOutboxService;
+import vn.ghtk.loyalty.util.MetricsUtil;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CheckinTransactionServiceImpl implements CheckinTransactionService {
 
+    private static final String DAILY_CHECKIN_UNIQUE_CONSTRAINT = "uk_daily_checkin_user_date";
+
     private final UserRepository userRepository;
     private final DailyCheckinRepository dailyCheckinRepository;
-    private final UserPointsHistoryRepository userPointsHistoryRepository;
+    private final UserMonthlyCheckinRepository userMonthlyCheckinRepository;
+    private final PointsHistoryWriter pointsHistoryWriter;
+    private final PointsOutboxService pointsOutboxService;
     private final CheckinConfig checkinConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public CheckinResponse doCheckinTransactional(Long userId, LocalDate today) {
-        // Đảm bảo theo DB: một user chỉ được check-in một lần trong ngày
-        boolean existsToday = dailyCheckinRepository
-                .findByUserIdAndCheckinDate(userId, today)
-                .isPresent();
-        if (existsToday) {
-            throw new BusinessException("You have already checked in today");
-        }
-
-        // Check monthly limit
-        int currentMonthCheckins = dailyCheckinRepository.countByUserIdAndMonth(
-                userId, today.getYear(), today.getMonthValue()
-        ).intValue();
-        int maxPerMonth = checkinConfig.getMaxPerMonth();
-        if (currentMonthCheckins >= maxPerMonth) {
-            throw new BusinessException("Maximum " + maxPerMonth + " check-ins per month reached");
+        if (checkinConfig.getTransactionMode() == CheckinTransactionMode.STREAMLINED) {
+            return doCheckinStreamlined(userId, today);
         }
+        return doCheckinStandard(userId, today);
+    }
 
+    private CheckinResponse doCheckinStandard(Long userId, LocalDate today) {
         // Get user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BusinessException("User not found"));
 
+        // Admission, monthly limit and order all come from the locked summary row of the month
+        UserMonthlyCheckin summary = lockMonthlySummary(userId, YearMonth.from(today));
+        if (today.equals(summary.getLastCheckinDate())) {
+            throw alreadyCheckedIn();
+        }
+        int maxPerMonth = checkinConfig.getMaxPerMonth();
+        if (summary.getCheckinCount() >= maxPerMonth) {
+            throw MetricsUtil.reject(meterRegistry, MetricsUtil.REASON_MONTHLY_CAP, MetricsUtil.STAGE_TRANSACTION,
+                    "Maximum " + maxPerMonth + " check-ins per month reached");
+        }
+
         // Calculate check-in order and points
-        Integer maxOrder = dailyCheckinRepository.findMaxCheckinOrderByUserIdAndMonth(
-                userId, today.getYear(), today.getMonthValue()
-        );
-        int checkinOrder = (maxOrder == null ? 0 : maxOrder) + 1;
-        int[] pointsSequence = checkinConfig.getPointsSequence();
-        int pointsEarned = pointsSequence[checkinOrder - 1];
+        int checkinOrder = summary.getLastOrder() + 1;
+        int pointsEarned = checkinConfig.pointsForOrder(checkinOrder);
 
-        // Save check-in record
+        // Save check-in record; a summary that lags daily_checkin (e.g. rows imported without it) leaves the
+        // unique key as the only guard against a second check-in today
         DailyCheckin checkin = DailyCheckin.builder()
                 .userId(userId)
                 .checkinDate(today)
                 .pointsEarned(pointsEarned)
                 .checkinOrder(checkinOrder)
                 .build();
-        dailyCheckinRepository.save(checkin);
+        try {
+            dailyCheckinRepository.save(checkin);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateCheckinOr(e);
+        }
+
+        // Update monthly summary (flushed with the transaction)
+        summary.setCheckinCount(summary.getCheckinCount() + 1);
+        summary.setLastOrder(checkinOrder);
+        summary.setPointsEarned(summary.getPointsEarned() + pointsEarned);
+        summary.setLastCheckinDate(today);
 
         // Update user points
         user.setTotalPoints(user.getTotalPoints() + pointsEarned);
         userRepository.save(user);
 
+        return completeCheckin(userId, checkinOrder, pointsEarned, user.getTotalPoints());
+    }
+
+    /**
+     * Three writes (the summary reservation, the check-in INSERT and the balance increment) that derive order and
+     * points in SQL, relying on {@code uk_daily_checkin_user_date} instead of a pre-read to reject a second
+     * check-in the same day. One read-back by primary and unique key then returns order, points and balance for
+     * the response.
+     */
+    private CheckinResponse doCheckinStreamlined(Long userId, LocalDate today) {
+        int[] pointsSequence = checkinConfig.getPointsSequence();
+        LocalDateTime now = LocalDateTime.now(clock);
+        int reserved = dailyCheckinRepository.reserveNextCheckin(
+                userId, today, checkinConfig.getMaxPerMonth(), pointsSequence, now);
+        if (reserved == 0) {
+            // Missing summary row, monthly limit or unknown user: the standard path creates the row or reports which
+            return doCheckinStandard(userId, today);
+        }
+
+        try {
+            dailyCheckinRepository.insertReservedCheckin(userId, today, pointsSequence, now);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateCheckinOr(e);
+        }
+        userRepository.addCheckinPoints(userId, today);
+
+        DailyCheckinRepository.CheckinResult result = dailyCheckinRepository.findCheckinResult(userId, today);
+        return completeCheckin(userId, result.getCheckinOrder(), result.getPointsEarned(), result.getTotalPoints());
+    }
+
+    private CheckinResponse completeCheckin(Long userId, int checkinOrder, int pointsEarned, int totalPoints) {
         // Save points history
         UserPointsHistory history = UserPointsHistory.builder()
                 .userId(userId)
@@ -81,7 +141,9 @@ public class CheckinTransactionServiceImpl implements CheckinTransactionService
                 .transactionType(PointsTransactionType.CHECKIN)
                 .description(String.format("Daily check-in #%d", checkinOrder))
                 .build();
-        userPointsHistoryRepository.save(history);
+        pointsHistoryWriter.record(history);
+        pointsOutboxService.record(List.of(history));
+        eventPublisher.publishEvent(new UserPointsChangedEvent(List.of(userId)));
 
         log.info("User {} checked in successfully. Points earned: {}, Order: {}", userId, pointsEarned, checkinOrder);
 
@@ -89,10 +151,42 @@ public class CheckinTransactionServiceImpl implements CheckinTransactionService
                 .success(true)
                 .message("Check-in successful")
                 .pointsEarned(pointsEarned)
-                .totalPoints(user.getTotalPoints())
+                .totalPoints(totalPoints)
                 .checkinOrder(checkinOrder)
                 .build();
     }
+
+    private BusinessException alreadyCheckedIn() {
+        return MetricsUtil.reject(meterRegistry, MetricsUtil.REASON_ALREADY_CHECKED_IN, MetricsUtil.STAGE_TRANSACTION,
+                "You have already checked in today");
+    }
+
+    /**
+     * The "already checked in" rejection when {@code e} is a violation of {@code uk_daily_checkin_user_date},
+     * otherwise {@code e} itself.
+     */
+    private RuntimeException duplicateCheckinOr(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        boolean duplicate = message != null
+                && message.toLowerCase(Locale.ROOT).contains(DAILY_CHECKIN_UNIQUE_CONSTRAINT);
+        return duplicate ? alreadyCheckedIn() : e;
+    }
+
+    /**
+     * Summary row of the month, locked for the rest of the transaction. A missing row (first check-in of the
+     * month, or a month that was never backfilled) is created from daily_checkin first; INSERT IGNORE lets a
+     * concurrent creator win without failing this transaction.
+     */
+    private UserMonthlyCheckin lockMonthlySummary(Long userId, YearMonth month) {
+        int monthKey = UserMonthlyCheckin.monthKey(month);
+        return userMonthlyCheckinRepository.findForUpdate(userId, monthKey)
+                .orElseGet(() -> {
+                    userMonthlyCheckinRepository.createFromCheckins(userId, month);
+                    return userMonthlyCheckinRepository.findForUpdate(userId, monthKey)
+                            .orElseThrow(() -> new IllegalStateException(
+                                    "Monthly check-in summary missing for user " + userId));
+                });
+    }
 }
 
 
@@ -0,0 +1,50 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.event.PointsEvent;
+import vn.ghtk.loyalty.service.PointsEventSink;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends one JSON line per event to {@code loyalty.outbox.file-path}; each batch is forced to disk before the
+ * relay deletes it from the outbox.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "loyalty.outbox", name = "sink", havingValue = "file")
+public class FilePointsEventSink implements PointsEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final OutboxConfig outboxConfig;
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    @Override
+    public void publish(List<PointsEvent> events) {
+        Path path = Path.of(outboxConfig.getFilePath());
+        appendLock.lock();
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC)) {
+            for (PointsEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append points events to " + path, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+}
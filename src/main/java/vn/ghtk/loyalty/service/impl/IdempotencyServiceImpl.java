@@ -0,0 +1,187 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import vn.ghtk.loyalty.config.IdempotencyConfig;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.service.IdempotencyService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Redis dedupe store: {@code idempotency:{scope}:{userId}:{key}} holds {@code P:<token>} while the first
+ * request runs and {@code D:<json response>} afterwards. A replay costs one Lua call and no DB transaction.
+ * Failed requests release their claim, so only successful responses are replayed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final RedisScript<String> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/idempotency-claim.lua"), String.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/idempotency-release.lua"), Long.class);
+    private static final String PENDING_PREFIX = "P:";
+    private static final String DONE_PREFIX = "D:";
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyConfig idempotencyConfig;
+
+    @Override
+    public <T> T execute(String scope, Long userId, String idempotencyKey, Class<T> responseType, Supplier<T> action) {
+        String redisKey = redisKey(scope, userId, idempotencyKey);
+        String pendingMarker = PENDING_PREFIX + UUID.randomUUID();
+
+        String existing;
+        try {
+            existing = redisTemplate.execute(CLAIM_SCRIPT, List.of(redisKey),
+                    pendingMarker, String.valueOf(idempotencyConfig.getPendingTtlSeconds()));
+        } catch (RuntimeException e) {
+            // The DB unique constraint on (user_id, idempotency_key) still rejects duplicate points mutations
+            log.warn("Idempotency store unavailable, running {} for user {} without replay: {}",
+                    scope, userId, e.getMessage());
+            return action.get();
+        }
+
+        if (existing != null) {
+            if (existing.startsWith(DONE_PREFIX)) {
+                log.debug("Replaying {} response for user {} and key {}", scope, userId, idempotencyKey);
+                return readResponse(existing.substring(DONE_PREFIX.length()), responseType);
+            }
+            throw new BusinessException("A request with this Idempotency-Key is still being processed");
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(redisKey, pendingMarker);
+            throw e;
+        }
+        store(redisKey, response);
+        return response;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(String scope, Long userId, String idempotencyKey,
+                                                 Class<T> responseType, Supplier<CompletableFuture<T>> action) {
+        String redisKey = redisKey(scope, userId, idempotencyKey);
+        String pendingMarker = PENDING_PREFIX + UUID.randomUUID();
+
+        return reactiveRedisTemplate.execute(CLAIM_SCRIPT, List.of(redisKey),
+                        List.of(pendingMarker, String.valueOf(idempotencyConfig.getPendingTtlSeconds())))
+                .next()
+                .toFuture()
+                .handle((existing, error) -> {
+                    if (error != null) {
+                        log.warn("Idempotency store unavailable, running {} for user {} without replay: {}",
+                                scope, userId, error.getMessage());
+                        return start(action);
+                    }
+                    if (existing != null) {
+                        if (existing.startsWith(DONE_PREFIX)) {
+                            log.debug("Replaying {} response for user {} and key {}", scope, userId, idempotencyKey);
+                            return CompletableFuture.completedFuture(
+                                    readResponse(existing.substring(DONE_PREFIX.length()), responseType));
+                        }
+                        return CompletableFuture.<T>failedFuture(new BusinessException(
+                                "A request with this Idempotency-Key is still being processed"));
+                    }
+                    return start(action).handle((response, failure) -> failure != null
+                                    ? releaseAsync(redisKey, pendingMarker)
+                                            .thenCompose(released -> CompletableFuture.<T>failedFuture(failure))
+                                    : storeAsync(redisKey, response).thenApply(stored -> response))
+                            .thenCompose(Function.identity());
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> action) {
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<Void> storeAsync(String redisKey, Object response) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to store idempotent response under {}", redisKey, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return reactiveRedisTemplate.opsForValue()
+                .set(redisKey, DONE_PREFIX + json, Duration.ofHours(idempotencyConfig.getTtlHours()))
+                .toFuture()
+                .handle((stored, error) -> {
+                    if (error != null) {
+                        log.error("Failed to store idempotent response under {}", redisKey, error);
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> releaseAsync(String redisKey, String pendingMarker) {
+        return reactiveRedisTemplate.execute(RELEASE_SCRIPT, List.of(redisKey), List.of(pendingMarker))
+                .then()
+                .toFuture()
+                .handle((released, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to release idempotency claim {}, it expires on its own: {}",
+                                redisKey, error.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    private String redisKey(String scope, Long userId, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        return String.format("idempotency:%s:%d:%s", scope, userId, idempotencyKey);
+    }
+
+    private void store(String redisKey, Object response) {
+        try {
+            redisTemplate.opsForValue().set(redisKey, DONE_PREFIX + objectMapper.writeValueAsString(response),
+                    Duration.ofHours(idempotencyConfig.getTtlHours()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The mutation is committed; a later replay falls through to the DB constraint
+            log.error("Failed to store idempotent response under {}", redisKey, e);
+        }
+    }
+
+    private void release(String redisKey, String pendingMarker) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(redisKey), pendingMarker);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release idempotency claim {}, it expires on its own: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private <T> T readResponse(String json, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(json, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted idempotent response", e);
+        }
+    }
+}
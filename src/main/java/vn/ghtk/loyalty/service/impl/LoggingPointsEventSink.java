@@ -0,0 +1,20 @@
+package vn.ghtk.loyalty.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.event.PointsEvent;
+import vn.ghtk.loyalty.service.PointsEventSink;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "loyalty.outbox", name = "sink", havingValue = "log", matchIfMissing = true)
+public class LoggingPointsEventSink implements PointsEventSink {
+
+    @Override
+    public void publish(List<PointsEvent> events) {
+        events.forEach(event -> log.info("Points event: {}", event));
+    }
+}
@@ -0,0 +1,85 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import vn.ghtk.loyalty.config.AuthConfig;
+import vn.ghtk.loyalty.service.LoginThrottleService;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.util.List;
+
+/**
+ * Fixed-window failure counters in Redis, shared by every node: {@code login:fail:user:{username}} and
+ * {@code login:fail:ip:{ip}}. A throttled login costs one Lua call and no BCrypt. Redis failures let the
+ * login through; the hashing executor still bounds the CPU it can take.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoginThrottleServiceImpl implements LoginThrottleService {
+
+    private static final RedisScript<Long> CHECK_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login-throttle-check.lua"), Long.class);
+    private static final RedisScript<Long> FAILURE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login-failure.lua"), Long.class);
+    private static final String USER_KEY_PREFIX = "login:fail:user:";
+    private static final String IP_KEY_PREFIX = "login:fail:ip:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AuthConfig authConfig;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void checkAllowed(String username, String clientIp) {
+        if (!authConfig.isThrottleEnabled()) {
+            return;
+        }
+        Long retryAfterSeconds;
+        try {
+            retryAfterSeconds = redisTemplate.execute(CHECK_SCRIPT, keys(username, clientIp),
+                    String.valueOf(authConfig.getMaxFailuresPerUsername()),
+                    String.valueOf(authConfig.getMaxFailuresPerIp()));
+        } catch (RuntimeException e) {
+            log.warn("Login throttle unavailable, letting {} through: {}", username, e.getMessage());
+            return;
+        }
+        if (retryAfterSeconds != null && retryAfterSeconds > 0) {
+            log.debug("Login for {} from {} throttled for {}s", username, clientIp, retryAfterSeconds);
+            throw MetricsUtil.throttleLogin(meterRegistry, retryAfterSeconds);
+        }
+    }
+
+    @Override
+    public void recordFailure(String username, String clientIp) {
+        if (!authConfig.isThrottleEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.execute(FAILURE_SCRIPT, keys(username, clientIp),
+                    String.valueOf(authConfig.getThrottleWindowSeconds()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to count failed login for {}: {}", username, e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordSuccess(String username) {
+        if (!authConfig.isThrottleEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(USER_KEY_PREFIX + username);
+        } catch (RuntimeException e) {
+            log.warn("Failed to reset failed logins for {}, they expire on their own: {}", username, e.getMessage());
+        }
+    }
+
+    private List<String> keys(String username, String clientIp) {
+        return List.of(USER_KEY_PREFIX + username, IP_KEY_PREFIX + (clientIp != null ? clientIp : "unknown"));
+    }
+}
@@ -0,0 +1,79 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import vn.ghtk.loyalty.config.AuthConfig;
+import vn.ghtk.loyalty.service.PasswordHashingService;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps BCrypt off the request threads: every hash runs on {@code passwordHashingExecutor}, sized to the cores,
+ * so a login burst queues there (bounded) instead of competing for CPU with the check-in requests.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+
+    static final String HASH_TIMER = "auth.password.hash";
+    static final String QUEUE_WAIT_TIMER = "auth.password.hash.wait";
+
+    private static final Pattern BCRYPT_STRENGTH = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor passwordHashingExecutor;
+    private final AuthConfig authConfig;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean matches(String rawPassword, String encodedPassword) {
+        CompletableFuture<Boolean> result;
+        try {
+            result = submit("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw MetricsUtil.shed(meterRegistry, MetricsUtil.STAGE_PASSWORD_HASHING,
+                    authConfig.getHashingRetryAfterSeconds());
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        try {
+            return submit("encode", () -> passwordEncoder.encode(rawPassword));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_STRENGTH.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != authConfig.getBcryptStrength();
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, Supplier<T> hash) {
+        Timer.Sample queued = Timer.start(meterRegistry);
+        return CompletableFuture.supplyAsync(() -> {
+            queued.stop(MetricsUtil.timer(meterRegistry, QUEUE_WAIT_TIMER));
+            return MetricsUtil.timer(meterRegistry, HASH_TIMER, "operation", operation).record(hash);
+        }, passwordHashingExecutor);
+    }
+}
@@ -0,0 +1,93 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.dto.response.PointsHistoryExportRow;
+import vn.ghtk.loyalty.enums.PointsHistoryExportFormat;
+import vn.ghtk.loyalty.repository.UserPointsHistoryRepository;
+import vn.ghtk.loyalty.service.PointsHistoryExportService;
+import vn.ghtk.loyalty.service.ReadRoutingService;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Each row goes from the cursor through a Jackson {@link SequenceWriter} straight to the response stream, so
+ * memory holds one fetch of rows and the writer's buffer however large the export is.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointsHistoryExportServiceImpl implements PointsHistoryExportService {
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new JavaTimeModule())
+            .build();
+
+    private final UserPointsHistoryRepository userPointsHistoryRepository;
+    private final ReadRoutingService readRoutingService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long export(Long userId, YearMonth month, PointsHistoryExportFormat format, OutputStream out)
+            throws IOException {
+        if (userId != null) {
+            readRoutingService.usePrimaryIfRecentlyWritten(userId);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long rows = 0;
+
+        try (Stream<PointsHistoryExportRow> history = openStream(userId, month);
+             SequenceWriter writer = writerFor(format).writeValues(out)) {
+            Iterator<PointsHistoryExportRow> iterator = history.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                rows++;
+            }
+        }
+        if (format == PointsHistoryExportFormat.NDJSON && rows > 0) {
+            // The root value separator goes between values; NDJSON also ends the last line
+            out.write('\n');
+        }
+
+        sample.stop(MetricsUtil.timer(meterRegistry, "points.history.export", "format", format.name()));
+        log.info("Points history export (user {}, month {}, {}): {} rows", userId, month, format, rows);
+        return rows;
+    }
+
+    private Stream<PointsHistoryExportRow> openStream(Long userId, YearMonth month) {
+        if (month == null) {
+            return userPointsHistoryRepository.streamExportByUserId(userId);
+        }
+        LocalDateTime fromTime = month.atDay(1).atStartOfDay();
+        LocalDateTime toTime = month.plusMonths(1).atDay(1).atStartOfDay();
+        return userId != null
+                ? userPointsHistoryRepository.streamExportByUserIdAndCreatedAtRange(userId, fromTime, toTime)
+                : userPointsHistoryRepository.streamExportByCreatedAtRange(fromTime, toTime);
+    }
+
+    private ObjectWriter writerFor(PointsHistoryExportFormat format) {
+        ObjectWriter writer = format == PointsHistoryExportFormat.CSV
+                ? CSV_MAPPER.writer(CSV_MAPPER.schemaFor(PointsHistoryExportRow.class).withHeader())
+                : objectMapper.writerFor(PointsHistoryExportRow.class).withRootValueSeparator("\n");
+        // The caller owns the response stream (and the gzip wrapper around it)
+        return writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+}
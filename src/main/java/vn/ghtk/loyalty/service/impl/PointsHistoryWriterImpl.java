@@ -0,0 +1,91 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.entity.UserPointsHistoryBuffer;
+import vn.ghtk.loyalty.enums.PointsHistoryWriteMode;
+import vn.ghtk.loyalty.repository.UserPointsHistoryBufferRepository;
+import vn.ghtk.loyalty.repository.UserPointsHistoryRepository;
+import vn.ghtk.loyalty.service.PointsHistoryWriter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffered entries are written in the business transaction, so they are exactly as durable as the balance
+ * change; a flush copies and deletes them in one transaction, so a crash mid-flush just leaves them buffered.
+ * Entries with an idempotency key are always written synchronously: their duplicate check is the unique
+ * constraint on {@code user_points_history}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointsHistoryWriterImpl implements PointsHistoryWriter {
+
+    private final UserPointsHistoryRepository userPointsHistoryRepository;
+    private final UserPointsHistoryBufferRepository bufferRepository;
+    private final PointsConfig pointsConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong pending = new AtomicLong();
+    private volatile boolean bufferFull;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("points.history.buffer.pending", pending, AtomicLong::get)
+                .description("History entries waiting in the write-behind buffer")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(UserPointsHistory history) {
+        if (pointsConfig.getHistoryWriteMode() != PointsHistoryWriteMode.WRITE_BEHIND
+                || history.getIdempotencyKey() != null
+                || bufferFull) {
+            userPointsHistoryRepository.save(history);
+            return;
+        }
+        bufferRepository.save(UserPointsHistoryBuffer.builder()
+                .userId(history.getUserId())
+                .points(history.getPoints())
+                .transactionType(history.getTransactionType())
+                .description(history.getDescription())
+                .build());
+    }
+
+    @Override
+    @Transactional
+    public int flush() {
+        List<Long> ids = bufferRepository.lockBatchForFlush(pointsConfig.getHistoryFlushBatchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        bufferRepository.copyToHistory(ids);
+        bufferRepository.deleteByIds(ids);
+        log.debug("Flushed {} buffered points history entries", ids.size());
+        return ids.size();
+    }
+
+    @Override
+    public long refreshBacklog() {
+        long count = bufferRepository.count();
+        pending.set(count);
+        boolean full = count >= pointsConfig.getHistoryBufferMaxPending();
+        if (full != bufferFull) {
+            log.warn(full
+                    ? "Points history buffer holds {} entries, writing history synchronously"
+                    : "Points history buffer drained to {} entries, resuming write-behind", count);
+            bufferFull = full;
+        }
+        return count;
+    }
+}
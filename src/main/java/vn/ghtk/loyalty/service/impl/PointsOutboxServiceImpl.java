@@ -0,0 +1,103 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.entity.PointsEventOutbox;
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.event.PointsEvent;
+import vn.ghtk.loyalty.repository.PointsEventOutboxRepository;
+import vn.ghtk.loyalty.service.PointsEventSink;
+import vn.ghtk.loyalty.service.PointsOutboxService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox rows are written with the points change, so an event exists exactly when the change committed. The relay
+ * publishes a batch before deleting it in the same transaction: a crash or sink failure in between redelivers the
+ * batch (at-least-once). Batches are claimed with SKIP LOCKED, so several relays run in parallel and events are in
+ * id order within a batch only. Ids are auto-increment values taken at insert, after the user's row is locked, so
+ * the events of one user sort by {@code event_id} in change order; there is no global order across users.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointsOutboxServiceImpl implements PointsOutboxService {
+
+    private final PointsEventOutboxRepository outboxRepository;
+    private final PointsEventSink pointsEventSink;
+    private final OutboxConfig outboxConfig;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private Counter published;
+
+    @PostConstruct
+    public void init() {
+        published = Counter.builder("outbox.events.published")
+                .description("Points events delivered to the sink")
+                .register(meterRegistry);
+        Gauge.builder("outbox.events.pending", pending, AtomicLong::get)
+                .description("Points events waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest unpublished points event")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<UserPointsHistory> changes) {
+        if (!outboxConfig.isEnabled() || changes.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        outboxRepository.saveAll(changes.stream()
+                .map(change -> PointsEventOutbox.builder()
+                        .userId(change.getUserId())
+                        .eventType(change.getTransactionType())
+                        .points(change.getPoints())
+                        .description(change.getDescription())
+                        .createdAt(now)
+                        .build())
+                .toList());
+    }
+
+    @Override
+    @Transactional
+    public int relayBatch() {
+        List<PointsEventOutbox> batch = outboxRepository.lockBatchForRelay(outboxConfig.getRelayBatchSize());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        pointsEventSink.publish(batch.stream()
+                .map(row -> new PointsEvent(row.getId(), row.getUserId(), row.getEventType(), row.getPoints(),
+                        row.getDescription(), row.getCreatedAt()))
+                .toList());
+        outboxRepository.deleteAllInBatch(batch);
+        published.increment(batch.size());
+        log.debug("Relayed {} points events", batch.size());
+        return batch.size();
+    }
+
+    @Override
+    public void refreshLag() {
+        pending.set(outboxRepository.count());
+        lagMillis.set(outboxRepository.findFirstByOrderByIdAsc()
+                .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now(clock)).toMillis())
+                .orElse(0L));
+    }
+}
@@ -0,0 +1,189 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.ghtk.loyalty.config.ReconciliationConfig;
+import vn.ghtk.loyalty.repository.UserRepository;
+import vn.ghtk.loyalty.repository.UserRepositoryCustom.LedgerBalance;
+import vn.ghtk.loyalty.service.PointsReconciliationService;
+import vn.ghtk.loyalty.service.UserCacheService;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the user id space into ranges of {@code range-size} users and reconciles them on {@code threads}
+ * workers. A range is read in one read-only transaction (so it goes to the replica when one is configured):
+ * its ledger rows are summed per user while streaming, then its balances are streamed and compared. Only the
+ * users that differ are re-checked on the primary with a single statement, which filters out writes that
+ * landed between the two range reads, and optionally repaired. All reads share a {@code max-rows-per-second}
+ * budget, so the scan can run during business hours.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointsReconciliationServiceImpl implements PointsReconciliationService {
+
+    static final String MISMATCHES = "points.reconciliation.mismatches";
+
+    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
+    private final ReconciliationConfig reconciliationConfig;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Report reconcile(boolean repair) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long started = System.nanoTime();
+        long maxUserId = userRepository.findMaxId();
+        int rangeSize = reconciliationConfig.getRangeSize();
+        Run run = new Run(repair, new RowRateLimiter(reconciliationConfig.getMaxRowsPerSecond()));
+
+        ExecutorService workers = Executors.newFixedThreadPool(reconciliationConfig.getThreads(),
+                new CustomizableThreadFactory("reconciliation-"));
+        try {
+            List<CompletableFuture<Void>> ranges = new ArrayList<>();
+            for (long afterUserId = 0; afterUserId < maxUserId; afterUserId += rangeSize) {
+                long from = afterUserId;
+                long to = Math.min(afterUserId + rangeSize, maxUserId);
+                ranges.add(CompletableFuture.runAsync(() -> reconcileRange(run, from, to), workers));
+            }
+            CompletableFuture.allOf(ranges.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            workers.shutdownNow();
+        }
+
+        sample.stop(MetricsUtil.timer(meterRegistry, "points.reconciliation"));
+        Report report = new Report(run.usersChecked.get(), run.ledgerRows.get(), run.mismatchCount.get(),
+                run.repaired.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                List.copyOf(run.mismatches));
+        log.info("Points reconciliation: {} users, {} ledger rows, {} mismatches, {} repaired in {} ms",
+                report.usersChecked(), report.ledgerRowsScanned(), report.mismatchCount(), report.repaired(),
+                report.durationMillis());
+        return report;
+    }
+
+    private void reconcileRange(Run run, long afterUserId, long toUserId) {
+        int fetchSize = reconciliationConfig.getFetchSize();
+        Map<Long, Long> ledgerSums = new HashMap<>();
+        List<Long> suspects = new ArrayList<>();
+        long[] rows = new long[2];
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try {
+            readOnly.executeWithoutResult(status -> {
+                userRepository.forEachLedgerEntry(afterUserId, toUserId, fetchSize, (userId, points) -> {
+                    ledgerSums.merge(userId, points, Long::sum);
+                    if (++rows[0] % fetchSize == 0) {
+                        run.rateLimiter.acquire(fetchSize);
+                    }
+                });
+                userRepository.forEachBalance(afterUserId, toUserId, fetchSize, (userId, balance) -> {
+                    if (balance != ledgerSums.getOrDefault(userId, 0L)) {
+                        suspects.add(userId);
+                    }
+                    if (++rows[1] % fetchSize == 0) {
+                        run.rateLimiter.acquire(fetchSize);
+                    }
+                });
+            });
+            run.ledgerRows.addAndGet(rows[0]);
+            run.usersChecked.addAndGet(rows[1]);
+
+            for (Long userId : suspects) {
+                userRepository.findLedgerBalance(userId)
+                        .filter(ledgerBalance -> ledgerBalance.balance() != ledgerBalance.ledgerSum())
+                        .ifPresent(ledgerBalance -> onMismatch(run, ledgerBalance));
+            }
+        } catch (RuntimeException e) {
+            // The other ranges go on; the next run covers this one again
+            log.error("Points reconciliation of users ({}, {}] failed", afterUserId, toUserId, e);
+        }
+    }
+
+    private void onMismatch(Run run, LedgerBalance mismatch) {
+        if (run.mismatchCount.incrementAndGet() <= reconciliationConfig.getReportLimit()) {
+            run.mismatches.add(mismatch);
+        }
+
+        boolean repaired = run.repair && userRepository.resetBalanceToLedger(mismatch.userId()) > 0;
+        if (repaired) {
+            run.repaired.incrementAndGet();
+            userCacheService.evict(List.of(mismatch.userId()));
+        }
+        Counter.builder(MISMATCHES)
+                .description("Balances found different from the sum of their points history")
+                .tag("repaired", String.valueOf(repaired))
+                .register(meterRegistry)
+                .increment();
+        log.warn("Balance of user {} is {} but its history sums to {}{}", mismatch.userId(), mismatch.balance(),
+                mismatch.ledgerSum(), repaired ? ", repaired" : "");
+    }
+
+    private static final class Run {
+
+        final boolean repair;
+        final RowRateLimiter rateLimiter;
+        final AtomicLong usersChecked = new AtomicLong();
+        final AtomicLong ledgerRows = new AtomicLong();
+        final AtomicLong mismatchCount = new AtomicLong();
+        final AtomicLong repaired = new AtomicLong();
+        final Queue<LedgerBalance> mismatches = new ConcurrentLinkedQueue<>();
+
+        Run(boolean repair, RowRateLimiter rateLimiter) {
+            this.repair = repair;
+            this.rateLimiter = rateLimiter;
+        }
+    }
+
+    /**
+     * Paces the rows read by all workers together: each batch reserves the next slot of the budget and sleeps
+     * until it starts.
+     */
+    private static final class RowRateLimiter {
+
+        private final double nanosPerRow;
+        private final AtomicLong nextFreeNanos = new AtomicLong(System.nanoTime());
+
+        RowRateLimiter(long maxRowsPerSecond) {
+            this.nanosPerRow = maxRowsPerSecond > 0 ? (double) TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond : 0;
+        }
+
+        void acquire(int rows) {
+            if (nanosPerRow == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long cost = (long) (rows * nanosPerRow);
+            long start = Math.max(now, nextFreeNanos.getAndAccumulate(now, (next, at) -> Math.max(next, at) + cost));
+            long waitNanos = start - now;
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Points reconciliation interrupted", e);
+                }
+            }
+        }
+    }
+}
@@ -1,26 +1,54 @@
 package vn.ghtk.loyalty.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.PointsConfig;
 import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationBatchRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationItemRequest;
 import vn.ghtk.loyalty.dto.response.PageResponse;
 import vn.ghtk.loyalty.dto.response.PointsHistoryResponse;
+import vn.ghtk.loyalty.dto.response.PointsMutationBatchResponse;
+import vn.ghtk.loyalty.dto.response.PointsMutationResult;
 import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.enums.PointsDeductionMode;
 import vn.ghtk.loyalty.exception.BusinessException;
 import vn.ghtk.loyalty.repository.UserPointsHistoryRepository;
+import vn.ghtk.loyalty.service.IdempotencyService;
 import vn.ghtk.loyalty.service.PointsService;
 import vn.ghtk.loyalty.service.PointsTransactionService;
+import vn.ghtk.loyalty.service.ReadRoutingService;
+import vn.ghtk.loyalty.util.AdaptiveConcurrencyLimiter;
+import vn.ghtk.loyalty.util.AsyncUtil;
+import vn.ghtk.loyalty.util.CursorUtil;
+import vn.ghtk.loyalty.util.MetricsUtil;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,27 +56,71 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PointsServiceImpl implements PointsService {
 
+    private static final long LOCK_WAIT_SECONDS = 5;
+    private static final long LOCK_LEASE_SECONDS = 20;
+    // No lease: Redisson's watchdog renews the lock until it is released
+    private static final long WATCHDOG_LEASE = -1;
+    private static final String DUPLICATE_KEY_MESSAGE = "Duplicate request for this Idempotency-Key";
+
     private final UserPointsHistoryRepository userPointsHistoryRepository;
     private final RedissonClient redissonClient;
     private final PointsTransactionService pointsTransactionService;
+    private final IdempotencyService idempotencyService;
+    private final ReadRoutingService readRoutingService;
+    private final PointsConfig pointsConfig;
+    private final ThreadPoolTaskExecutor transactionExecutor;
+    private final AdaptiveConcurrencyLimiter transactionLimiter;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
 
     @Override
-    public void deductPoints(Long userId, DeductPointsRequest request) {
+    public void deductPoints(Long userId, DeductPointsRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            doDeductPoints(userId, request, null);
+            return;
+        }
+        idempotencyService.execute("deduct", userId, idempotencyKey, Boolean.class, () -> {
+            doDeductPoints(userId, request, idempotencyKey);
+            return Boolean.TRUE;
+        });
+    }
+
+    private void doDeductPoints(Long userId, DeductPointsRequest request, String idempotencyKey) {
+        try {
+            if (pointsConfig.getDeductionMode() == PointsDeductionMode.CONDITIONAL_UPDATE) {
+                // The conditional UPDATE is atomic on its own, no distributed lock needed
+                transactionLimiter.execute(() -> recordTransaction(() -> pointsTransactionService
+                        .doDeductPointsConditional(userId, request, idempotencyKey)));
+                return;
+            }
+            doDeductPointsWithLock(userId, request, idempotencyKey);
+        } catch (DataIntegrityViolationException e) {
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            // uk_user_points_history_user_idempotency_key: the same key was already applied
+            throw new BusinessException(DUPLICATE_KEY_MESSAGE);
+        }
+    }
+
+    private void doDeductPointsWithLock(Long userId, DeductPointsRequest request, String idempotencyKey) {
 
         // Use Redisson distributed lock to prevent concurrent deduction
-        String lockKey = String.format("lock:points:deduct:%d", userId);
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient.getLock(deductLockKey(userId));
         boolean locked = false;
 
         try {
             // Try to acquire lock with 5 seconds timeout, lease time 20s
-            locked = lock.tryLock(5, 20, TimeUnit.SECONDS);
+            Timer.Sample lockWait = Timer.start(meterRegistry);
+            locked = lock.tryLock(LOCK_WAIT_SECONDS, LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
+            lockWait.stop(lockWaitTimer(locked));
             if (!locked) {
                 throw new BusinessException("Unable to acquire lock. Please try again.");
             }
 
-            // Perform deduction in transaction
-            pointsTransactionService.doDeductPointsTransactional(userId, request);
+            // Perform deduction in transaction; the limiter slot is taken only now, so lock waits are not sampled
+            transactionLimiter.execute(() -> recordTransaction(() -> pointsTransactionService
+                    .doDeductPointsTransactional(userId, request, idempotencyKey)));
 
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -60,30 +132,168 @@ public class PointsServiceImpl implements PointsService {
         }
     }
 
+    @Override
+    public CompletableFuture<Void> deductPointsAsync(Long userId, DeductPointsRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return doDeductPointsAsync(userId, request, null);
+        }
+        return idempotencyService.executeAsync("deduct", userId, idempotencyKey, Boolean.class,
+                        () -> doDeductPointsAsync(userId, request, idempotencyKey).thenApply(deducted -> Boolean.TRUE))
+                .thenApply(deducted -> null);
+    }
+
+    /**
+     * Same modes as {@link #doDeductPoints}; the Redisson lock is awaited asynchronously and a worker thread
+     * (and with it a JDBC connection) is taken only for the transaction.
+     */
+    private CompletableFuture<Void> doDeductPointsAsync(Long userId, DeductPointsRequest request,
+                                                        String idempotencyKey) {
+        CompletableFuture<Void> deduction;
+        if (pointsConfig.getDeductionMode() == PointsDeductionMode.CONDITIONAL_UPDATE) {
+            deduction = transactionLimiter.executeAsync(() -> AsyncUtil.runAsync(
+                    () -> recordTransaction(() -> pointsTransactionService.doDeductPointsConditional(
+                            userId, request, idempotencyKey)),
+                    transactionExecutor,
+                    meterRegistry));
+        } else {
+            deduction = withDeductLockAsync(userId, () -> transactionLimiter.executeAsync(() -> AsyncUtil.runAsync(
+                    () -> recordTransaction(() -> pointsTransactionService.doDeductPointsTransactional(
+                            userId, request, idempotencyKey)),
+                    transactionExecutor,
+                    meterRegistry)));
+        }
+        return deduction.exceptionally(error -> {
+            Throwable cause = AsyncUtil.unwrap(error);
+            if (idempotencyKey != null && cause instanceof DataIntegrityViolationException) {
+                throw new BusinessException(DUPLICATE_KEY_MESSAGE);
+            }
+            throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        });
+    }
+
+    /**
+     * Awaits the user's deduction lock without holding a thread, then runs {@code task} and releases the lock when
+     * its future completes. The continuations run on Redisson threads, so the lock is owned by an id rather than a
+     * thread. It is taken without a lease, so it cannot expire while the transaction waits for a worker.
+     */
+    private <T> CompletableFuture<T> withDeductLockAsync(Long userId, Supplier<CompletableFuture<T>> task) {
+        RLock lock = redissonClient.getLock(deductLockKey(userId));
+        long lockOwner = AsyncUtil.nextLockOwnerId();
+        Timer.Sample lockWait = Timer.start(meterRegistry);
+        return lock.tryLockAsync(LOCK_WAIT_SECONDS, WATCHDOG_LEASE, TimeUnit.SECONDS, lockOwner)
+                .toCompletableFuture()
+                .thenCompose(locked -> {
+                    lockWait.stop(lockWaitTimer(locked));
+                    if (!locked) {
+                        throw new BusinessException("Unable to acquire lock. Please try again.");
+                    }
+                    CompletableFuture<T> result;
+                    try {
+                        result = task.get();
+                    } catch (RuntimeException e) {
+                        lock.unlockAsync(lockOwner);
+                        throw e;
+                    }
+                    return result.whenComplete((value, error) -> lock.unlockAsync(lockOwner));
+                });
+    }
+
+    /**
+     * The deduction transaction including its commit, as seen from the caller. Callers take a
+     * {@code transactionLimiter} slot first: once the lock is held, and before the worker queue on the async path.
+     * The limiter is shared with check-ins since both draw from the same connection pool.
+     */
+    private Void recordTransaction(Runnable transaction) {
+        return MetricsUtil.recordOutcome(meterRegistry, "points.transaction", () -> {
+            transaction.run();
+            return null;
+        });
+    }
+
+    private Timer lockWaitTimer(boolean locked) {
+        return MetricsUtil.timer(meterRegistry, "points.lock.wait", "result", locked ? "acquired" : "timeout");
+    }
+
+    private String deductLockKey(Long userId) {
+        return String.format("lock:points:deduct:%d", userId);
+    }
+
+    @Override
+    public PointsMutationBatchResponse applyMutations(Long userId, PointsMutationBatchRequest request,
+                                                      String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return doApplyMutations(request, null);
+        }
+        return idempotencyService.execute("mutations", userId, idempotencyKey, PointsMutationBatchResponse.class,
+                () -> doApplyMutations(request, idempotencyKey));
+    }
+
+    private PointsMutationBatchResponse doApplyMutations(PointsMutationBatchRequest request, String idempotencyKey) {
+        List<PointsMutationItemRequest> items = request.getItems();
+
+        // Group by user in id order, so every chunk locks its rows in the same order
+        TreeMap<Long, List<Integer>> itemIndexesByUser = new TreeMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            itemIndexesByUser.computeIfAbsent(items.get(i).getUserId(), userId -> new ArrayList<>()).add(i);
+        }
+
+        PointsMutationResult[] results = new PointsMutationResult[items.size()];
+        Map<Long, List<Integer>> chunk = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<Integer>> entry : itemIndexesByUser.entrySet()) {
+            chunk.put(entry.getKey(), entry.getValue());
+            if (chunk.size() == pointsConfig.getMutationChunkSize()) {
+                applyMutationChunk(items, chunk, idempotencyKey, results);
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyMutationChunk(items, chunk, idempotencyKey, results);
+        }
+
+        int succeeded = (int) Arrays.stream(results).filter(PointsMutationResult::getSuccess).count();
+        return PointsMutationBatchResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private void applyMutationChunk(List<PointsMutationItemRequest> items, Map<Long, List<Integer>> chunk,
+                                    String idempotencyKey, PointsMutationResult[] results) {
+        try {
+            pointsTransactionService.doApplyMutationsTransactional(items, chunk, idempotencyKey)
+                    .forEach(result -> results[result.getIndex()] = result);
+        } catch (RuntimeException e) {
+            // A chunk is atomic: report its items as not applied and keep going with the next chunk
+            log.error("Points mutation chunk of {} users failed", chunk.size(), e);
+            String message = e instanceof DataIntegrityViolationException && idempotencyKey != null
+                    ? "Duplicate request for this Idempotency-Key"
+                    : "Mutation not applied, please retry";
+            chunk.forEach((userId, indexes) -> indexes.forEach(index -> results[index] = PointsMutationResult.builder()
+                    .index(index)
+                    .userId(userId)
+                    .success(false)
+                    .message(message)
+                    .build()));
+        }
+    }
 
     @Override
     @Transactional(readOnly = true)
     public PageResponse<PointsHistoryResponse> getPointsHistory(Long userId, Integer page, Integer size, Integer month) {
+        readRoutingService.usePrimaryIfRecentlyWritten(userId);
         Pageable pageable = PageRequest.of(page, size);
         Page<UserPointsHistory> historyPage;
 
         if (month != null) {
-            LocalDate now = LocalDate.now();
+            LocalDate now = LocalDate.now(clock);
             int year = now.getYear();
             historyPage = userPointsHistoryRepository.findByUserIdAndMonth(userId, year, month, pageable);
         } else {
             historyPage = userPointsHistoryRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
         }
 
-        List<PointsHistoryResponse> content = historyPage.getContent().stream()
-                .map(h -> PointsHistoryResponse.builder()
-                        .id(h.getId())
-                        .points(h.getPoints())
-                        .transactionType(h.getTransactionType())
-                        .description(h.getDescription())
-                        .createdAt(h.getCreatedAt())
-                        .build())
-                .collect(Collectors.toList());
+        List<PointsHistoryResponse> content = toHistoryResponses(historyPage.getContent());
 
         return PageResponse.<PointsHistoryResponse>builder()
                 .content(content)
@@ -95,5 +305,57 @@ public class PointsServiceImpl implements PointsService {
                 .last(historyPage.isLast())
                 .build();
     }
-}
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<PointsHistoryResponse> getPointsHistoryByCursor(Long userId, String cursor, Integer size, Integer month) {
+        readRoutingService.usePrimaryIfRecentlyWritten(userId);
+        // Fetch one extra row to know whether there is a next page without counting
+        Limit limit = Limit.of(size + 1);
+        CursorUtil.Position position = (cursor == null || cursor.isBlank()) ? null : CursorUtil.decode(cursor);
+        List<UserPointsHistory> rows;
+
+        if (month != null) {
+            YearMonth yearMonth = YearMonth.of(LocalDate.now(clock).getYear(), month);
+            LocalDateTime fromTime = yearMonth.atDay(1).atStartOfDay();
+            // First page seeks from the exclusive end of the month: (startOfNextMonth, id < 0)
+            LocalDateTime beforeTime = position != null
+                    ? position.createdAt()
+                    : yearMonth.plusMonths(1).atDay(1).atStartOfDay();
+            Long beforeId = position != null ? position.id() : 0L;
+            rows = userPointsHistoryRepository.findByUserIdAndCreatedAtFromBefore(
+                    userId, fromTime, beforeTime, beforeId, limit);
+        } else if (position != null) {
+            rows = userPointsHistoryRepository.findByUserIdBefore(
+                    userId, position.createdAt(), position.id(), limit);
+        } else {
+            rows = userPointsHistoryRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, limit);
+        }
+
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+        UserPointsHistory lastRow = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+
+        return PageResponse.<PointsHistoryResponse>builder()
+                .content(toHistoryResponses(rows))
+                .size(size)
+                .first(position == null)
+                .last(!hasNext)
+                .nextCursor(hasNext ? CursorUtil.encode(lastRow.getCreatedAt(), lastRow.getId()) : null)
+                .build();
+    }
+
+    private List<PointsHistoryResponse> toHistoryResponses(List<UserPointsHistory> histories) {
+        return histories.stream()
+                .map(h -> PointsHistoryResponse.builder()
+                        .id(h.getId())
+                        .points(h.getPoints())
+                        .transactionType(h.getTransactionType())
+                        .description(h.getDescription())
+                        .createdAt(h.getCreatedAt())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -1,18 +1,34 @@
 package vn.ghtk.loyalty.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationItemRequest;
+import vn.ghtk.loyalty.dto.response.PointsMutationResult;
 import vn.ghtk.loyalty.entity.User;
 import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.enums.PointsMutationType;
 import vn.ghtk.loyalty.enums.PointsTransactionType;
+import vn.ghtk.loyalty.event.UserPointsChangedEvent;
 import vn.ghtk.loyalty.exception.BusinessException;
 import vn.ghtk.loyalty.repository.UserPointsHistoryRepository;
 import vn.ghtk.loyalty.repository.UserRepository;
+import vn.ghtk.loyalty.service.PointsHistoryWriter;
+import vn.ghtk.loyalty.service.PointsOutboxService;
 import vn.ghtk.loyalty.service.PointsTransactionService;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -21,17 +37,21 @@ public class PointsTransactionServiceImpl implements PointsTransactionService {
 
     private final UserRepository userRepository;
     private final UserPointsHistoryRepository userPointsHistoryRepository;
+    private final PointsHistoryWriter pointsHistoryWriter;
+    private final PointsOutboxService pointsOutboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public void doDeductPointsTransactional(Long userId, DeductPointsRequest request) {
+    public void doDeductPointsTransactional(Long userId, DeductPointsRequest request, String idempotencyKey) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BusinessException("User not found"));
 
         int pointsToDeduct = request.getPoints();
 
         if (user.getTotalPoints() < pointsToDeduct) {
-            throw new BusinessException("Insufficient points. Current points: " + user.getTotalPoints());
+            throw insufficientPoints(user.getTotalPoints());
         }
 
         // Deduct points
@@ -39,16 +59,119 @@ public class PointsTransactionServiceImpl implements PointsTransactionService {
         userRepository.save(user);
 
         // Save transaction history
+        recordDeduction(userId, pointsToDeduct, idempotencyKey);
+
+        log.info("Deducted {} points from user {}. Remaining points: {}", 
+                pointsToDeduct, userId, user.getTotalPoints());
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void doDeductPointsConditional(Long userId, DeductPointsRequest request, String idempotencyKey) {
+        int pointsToDeduct = request.getPoints();
+
+        // Check and deduct in one statement; no entity read, no distributed lock
+        int updated = userRepository.deductPointsIfSufficient(userId, pointsToDeduct);
+        if (updated == 0) {
+            // Failure path only: tell "missing user" apart from "not enough points"
+            Integer currentPoints = userRepository.findTotalPointsById(userId)
+                    .orElseThrow(() -> new BusinessException("User not found"));
+            throw insufficientPoints(currentPoints);
+        }
+
+        recordDeduction(userId, pointsToDeduct, idempotencyKey);
+
+        log.info("Deducted {} points from user {}", pointsToDeduct, userId);
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<PointsMutationResult> doApplyMutationsTransactional(List<PointsMutationItemRequest> items,
+                                                                    Map<Long, List<Integer>> itemIndexesByUser,
+                                                                    String idempotencyKey) {
+        // One locking read for all users of the chunk
+        Map<Long, Integer> balances = new HashMap<>();
+        userRepository.findBalancesForUpdate(itemIndexesByUser.keySet())
+                .forEach(balance -> balances.put(balance.getId(), balance.getTotalPoints()));
+
+        List<PointsMutationResult> results = new ArrayList<>();
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        List<UserPointsHistory> histories = new ArrayList<>();
+
+        itemIndexesByUser.forEach((userId, indexes) -> {
+            Integer balance = balances.get(userId);
+            int delta = 0;
+            // Items of one user are applied in request order against the running balance
+            for (int index : indexes) {
+                PointsMutationItemRequest item = items.get(index);
+                if (balance == null) {
+                    results.add(mutationResult(index, userId, false, "User not found", null));
+                    continue;
+                }
+                boolean earn = item.getType() == PointsMutationType.EARN;
+                int signedPoints = earn ? item.getPoints() : -item.getPoints();
+                if (balance + signedPoints < 0) {
+                    results.add(mutationResult(index, userId, false,
+                            "Insufficient points. Current points: " + balance, balance));
+                    continue;
+                }
+                balance += signedPoints;
+                delta += signedPoints;
+                histories.add(UserPointsHistory.builder()
+                        .userId(userId)
+                        .points(signedPoints)
+                        .transactionType(earn ? PointsTransactionType.EARN : PointsTransactionType.DEDUCT)
+                        .description(item.getDescription() != null
+                                ? item.getDescription()
+                                : (earn ? "Points earned" : "Points deduction"))
+                        .idempotencyKey(idempotencyKey != null ? idempotencyKey + "#" + index : null)
+                        .build());
+                results.add(mutationResult(index, userId, true, earn ? "Points earned" : "Points deducted", balance));
+            }
+            if (delta != 0) {
+                deltas.put(userId, delta);
+            }
+        });
+
+        // Net delta per user in one JDBC batch, history rows batched by Hibernate (pooled sequence ids)
+        userRepository.addPointsBatch(deltas);
+        userPointsHistoryRepository.saveAll(histories);
+        pointsOutboxService.record(histories);
+        if (!deltas.isEmpty()) {
+            eventPublisher.publishEvent(new UserPointsChangedEvent(List.copyOf(deltas.keySet())));
+        }
+
+        log.info("Applied {} points mutations for {} users", histories.size(), deltas.size());
+        return results;
+    }
+
+    private PointsMutationResult mutationResult(int index, Long userId, boolean success, String message,
+                                                Integer totalPoints) {
+        return PointsMutationResult.builder()
+                .index(index)
+                .userId(userId)
+                .success(success)
+                .message(message)
+                .totalPoints(totalPoints)
+                .build();
+    }
+
+    private BusinessException insufficientPoints(int currentPoints) {
+        return MetricsUtil.reject(meterRegistry, MetricsUtil.REASON_INSUFFICIENT_POINTS, MetricsUtil.STAGE_TRANSACTION,
+                "Insufficient points. Current points: " + currentPoints);
+    }
+
+    private void recordDeduction(Long userId, int pointsToDeduct, String idempotencyKey) {
         UserPointsHistory history = UserPointsHistory.builder()
                 .userId(userId)
                 .points(-pointsToDeduct)
                 .transactionType(PointsTransactionType.DEDUCT)
                 .description("Points deduction")
+                .idempotencyKey(idempotencyKey)
                 .build();
-        userPointsHistoryRepository.save(history);
-
-        log.info("Deducted {} points from user {}. Remaining points: {}", 
-                pointsToDeduct, userId, user.getTotalPoints());
+        pointsHistoryWriter.record(history);
+        pointsOutboxService.record(List.of(history));
+        eventPublisher.publishEvent(new UserPointsChangedEvent(List.of(userId)));
     }
 }
 
@@ -0,0 +1,82 @@
+package vn.ghtk.loyalty.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import vn.ghtk.loyalty.config.ReadReplicaRoutingDataSource;
+import vn.ghtk.loyalty.config.ReplicaDataSourceConfig;
+import vn.ghtk.loyalty.event.UserPointsChangedEvent;
+import vn.ghtk.loyalty.service.ReadRoutingService;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-your-writes on top of replica routing: after a points change commits, {@code db:primary-pin:{userId}} is
+ * set in Redis for {@code read-your-writes-seconds}, so every node keeps that user's reads on the primary until the
+ * replica has had time to catch up. Redis failures fall back to the primary, which is always correct.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadRoutingServiceImpl implements ReadRoutingService {
+
+    private static final String PIN_KEY_PREFIX = "db:primary-pin:";
+    private static final byte[] PIN_VALUE = "1".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ReplicaDataSourceConfig replicaDataSourceConfig;
+
+    @Override
+    public void usePrimaryIfRecentlyWritten(Long userId) {
+        if (!readYourWrites()) {
+            return;
+        }
+        boolean pinned;
+        try {
+            pinned = Boolean.TRUE.equals(redisTemplate.hasKey(PIN_KEY_PREFIX + userId));
+        } catch (RuntimeException e) {
+            log.warn("Read-your-writes check for user {} failed, reading from primary: {}", userId, e.getMessage());
+            pinned = true;
+        }
+        if (pinned) {
+            ReadReplicaRoutingDataSource.pinCurrentTransactionToPrimary();
+        }
+    }
+
+    /**
+     * Ordered before the user cache eviction, so a reload triggered by the eviction already sees the pin.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserPointsChanged(UserPointsChangedEvent event) {
+        if (!readYourWrites() || event.userIds().isEmpty()) {
+            return;
+        }
+        Expiration ttl = Expiration.seconds(replicaDataSourceConfig.getReadYourWritesSeconds());
+        try {
+            // One round trip for a whole mutation batch
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : event.userIds()) {
+                    connection.stringCommands().set((PIN_KEY_PREFIX + userId).getBytes(StandardCharsets.UTF_8),
+                            PIN_VALUE, ttl, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to pin users {} to the primary, their next reads may lag: {}",
+                    event.userIds(), e.getMessage());
+        }
+    }
+
+    private boolean readYourWrites() {
+        return replicaDataSourceConfig.isEnabled() && replicaDataSourceConfig.getReadYourWritesSeconds() > 0;
+    }
+}
@@ -0,0 +1,158 @@
+package vn.ghtk.loyalty.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+import vn.ghtk.loyalty.config.AuthConfig;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.service.RefreshTokenService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque refresh tokens in Redis, rotated on every use. A token is {@code {familyId}.{random}} and only an HMAC of
+ * it is stored: {@code auth:refresh:{familyId}:{digest}} holds the user id and {@code auth:refresh:family:{familyId}}
+ * the digest of the family's current token, both expiring after {@code refresh-token-ttl-days}. The family id in
+ * the token lets the scripts receive every key they touch, and its hash tag keeps a family in one cluster slot. A
+ * refresh costs one HMAC and one Lua call; no database and no BCrypt. Replaying a rotated token revokes the whole
+ * family, so a stolen token stops working for the thief and the owner alike.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final RedisScript<String> ROTATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh-token-rotate.lua"), String.class);
+    private static final RedisScript<Long> REVOKE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh-token-revoke.lua"), Long.class);
+    private static final String TOKEN_KEY_PREFIX = "auth:refresh:";
+    private static final String FAMILY_KEY_PREFIX = "auth:refresh:family:";
+    private static final String REUSED = "R";
+    private static final String INVALID_TOKEN_MESSAGE = "Invalid or expired refresh token";
+    private static final char FAMILY_SEPARATOR = '.';
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int TOKEN_BYTES = 32;
+    private static final int FAMILY_BYTES = 16;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AuthConfig authConfig;
+
+    @Value("${spring.security.jwt.secret}")
+    private String secret;
+
+    private SecretKeySpec digestKey;
+
+    @PostConstruct
+    public void init() {
+        this.digestKey = new SecretKeySpec(("refresh:" + secret).getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    @Override
+    public String issue(Long userId) {
+        String familyId = randomToken(FAMILY_BYTES);
+        String token = newToken(familyId);
+        String digest = digest(token);
+        Expiration ttl = Expiration.seconds(authConfig.getRefreshTokenTtlSeconds());
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().set(bytes(tokenKey(familyId, digest)), bytes(String.valueOf(userId)), ttl,
+                    RedisStringCommands.SetOption.upsert());
+            connection.stringCommands().set(bytes(familyKey(familyId)), bytes(digest), ttl,
+                    RedisStringCommands.SetOption.upsert());
+            return null;
+        });
+        return token;
+    }
+
+    @Override
+    public Rotation rotate(String refreshToken) {
+        String familyId = familyId(refreshToken);
+        if (familyId == null) {
+            throw new BusinessException(INVALID_TOKEN_MESSAGE);
+        }
+        String digest = digest(refreshToken);
+        String next = newToken(familyId);
+        String nextDigest = digest(next);
+
+        String result = redisTemplate.execute(ROTATE_SCRIPT,
+                List.of(tokenKey(familyId, digest), tokenKey(familyId, nextDigest), familyKey(familyId)),
+                digest, nextDigest, String.valueOf(authConfig.getRefreshTokenTtlSeconds()));
+        if (result == null) {
+            throw new BusinessException(INVALID_TOKEN_MESSAGE);
+        }
+        if (REUSED.equals(result)) {
+            log.warn("Rotated refresh token replayed, its family has been revoked");
+            throw new BusinessException(INVALID_TOKEN_MESSAGE);
+        }
+        return new Rotation(Long.valueOf(result), next);
+    }
+
+    @Override
+    public void revoke(String refreshToken) {
+        String familyId = familyId(refreshToken);
+        if (familyId == null) {
+            return;
+        }
+        redisTemplate.execute(REVOKE_SCRIPT,
+                List.of(tokenKey(familyId, digest(refreshToken)), familyKey(familyId)));
+    }
+
+    private static String newToken(String familyId) {
+        return familyId + FAMILY_SEPARATOR + randomToken(TOKEN_BYTES);
+    }
+
+    /**
+     * The family id a token was issued with, or null if it is not a token of ours.
+     */
+    private static String familyId(String refreshToken) {
+        int separator = refreshToken.indexOf(FAMILY_SEPARATOR);
+        return separator > 0 ? refreshToken.substring(0, separator) : null;
+    }
+
+    private static String tokenKey(String familyId, String digest) {
+        return TOKEN_KEY_PREFIX + "{" + familyId + "}:" + digest;
+    }
+
+    private static String familyKey(String familyId) {
+        return FAMILY_KEY_PREFIX + "{" + familyId + "}";
+    }
+
+    private String digest(String token) {
+        try {
+            // Mac instances are not thread-safe; creating one is cheap next to the Redis round trip
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(digestKey);
+            return ENCODER.encodeToString(mac.doFinal(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+        }
+    }
+
+    private static String randomToken(int length) {
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,257 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import vn.ghtk.loyalty.config.UserCacheConfig;
+import vn.ghtk.loyalty.dto.response.UserProfileResponse;
+import vn.ghtk.loyalty.dto.response.UserResponse;
+import vn.ghtk.loyalty.event.UserPointsChangedEvent;
+import vn.ghtk.loyalty.service.UserCacheService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Near cache for user responses: a bounded Caffeine L1 per node in front of a shared Redis L2
+ * ({@code user:cache:profile:{userId}:{yyyy-MM}} and {@code user:cache:info:{userId}}).
+ * <p>
+ * Points and check-in transactions publish {@link UserPointsChangedEvent}; after commit the users are dropped
+ * from L1 and L2 and their ids are broadcast on {@value #EVICTION_CHANNEL} so every other node drops its L1 copy.
+ * A load that read before the commit must not put its value back afterwards: every eviction bumps a per-user
+ * generation, in Redis ({@code user:cache:gen:{userId}}, checked atomically by the L2 write) and on each node (checked
+ * by the L1 fill), and a load only fills the cache if its user's generation has not moved since it started.
+ * Redis failures only cost the L2 layer: reads fall through to the loader.
+ * <p>
+ * L1 is filled cache-aside rather than with {@code Cache.get(key, loader)}: the loader would run inside the
+ * Caffeine map's bin lock, and an after-commit eviction, still holding its pool connection, would block on that
+ * bin while the loader waits for a connection.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserCacheServiceImpl implements UserCacheService, MessageListener {
+
+    static final String EVICTION_CHANNEL = "user-cache:evict";
+    private static final String PROFILE_KEY_PREFIX = "user:cache:profile:";
+    private static final String INFO_KEY_PREFIX = "user:cache:info:";
+    private static final String GENERATION_KEY_PREFIX = "user:cache:gen:";
+    private static final RedisScript<Long> PUT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-cache-put.lua"), Long.class);
+    private static final RedisScript<Long> EVICT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-cache-evict.lua"), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final UserCacheConfig userCacheConfig;
+    private final Clock clock;
+
+    /** Tags broadcasts so a node skips its own eviction messages. */
+    private final String nodeId = UUID.randomUUID().toString();
+    /** Node-local eviction counter; {@link #evictedAt} holds its value at each user's last eviction. */
+    private final AtomicLong evictions = new AtomicLong();
+
+    private Cache<Long, Long> evictedAt;
+
+    private Cache<ProfileKey, UserProfileResponse> profiles;
+    private Cache<Long, UserResponse> users;
+    private Counter l2ProfileHits;
+    private Counter l2ProfileMisses;
+    private Counter l2InfoHits;
+    private Counter l2InfoMisses;
+
+    private record ProfileKey(Long userId, YearMonth month) {
+    }
+
+    @PostConstruct
+    public void init() {
+        profiles = newL1Cache();
+        users = newL1Cache();
+        // Only needs to outlive the loads in flight; an L1 entry put after this expires no later than it would
+        evictedAt = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getL1MaxSize())
+                .expireAfterWrite(Duration.ofSeconds(userCacheConfig.getL1TtlSeconds()))
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size under /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "user.profile");
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "user.info");
+        l2ProfileHits = l2Counter("user.profile", "hit");
+        l2ProfileMisses = l2Counter("user.profile", "miss");
+        l2InfoHits = l2Counter("user.info", "hit");
+        l2InfoMisses = l2Counter("user.info", "miss");
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(EVICTION_CHANNEL));
+    }
+
+    @Override
+    public UserProfileResponse getProfile(Long userId, YearMonth month, Supplier<UserProfileResponse> loader) {
+        ProfileKey key = new ProfileKey(userId, month);
+        UserProfileResponse profile = profiles.getIfPresent(key);
+        if (profile == null) {
+            long loadStarted = evictions.get();
+            profile = readThrough(userId, PROFILE_KEY_PREFIX + userId + ":" + month, UserProfileResponse.class,
+                    loader, l2ProfileHits, l2ProfileMisses);
+            fillL1(profiles, key, profile, userId, loadStarted);
+        }
+        return profile;
+    }
+
+    @Override
+    public UserResponse getUser(Long userId, Supplier<UserResponse> loader) {
+        UserResponse user = users.getIfPresent(userId);
+        if (user == null) {
+            long loadStarted = evictions.get();
+            user = readThrough(userId, INFO_KEY_PREFIX + userId, UserResponse.class, loader, l2InfoHits,
+                    l2InfoMisses);
+            fillL1(users, userId, user, userId, loadStarted);
+        }
+        return user;
+    }
+
+    @Override
+    public void evict(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        YearMonth month = YearMonth.now(clock);
+        List<String> redisKeys = new ArrayList<>(userIds.size() * 3);
+        for (Long userId : userIds) {
+            redisKeys.add(PROFILE_KEY_PREFIX + userId + ":" + month);
+            redisKeys.add(INFO_KEY_PREFIX + userId);
+            redisKeys.add(GENERATION_KEY_PREFIX + userId);
+        }
+        try {
+            redisTemplate.execute(EVICT_SCRIPT, redisKeys, String.valueOf(userCacheConfig.getL2TtlSeconds()));
+            redisTemplate.convertAndSend(EVICTION_CHANNEL, nodeId + "|" + month + "|" + userIds.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict users {} from L2 or broadcast the eviction, other nodes catch up by TTL: {}",
+                    userIds, e.getMessage());
+        }
+        // After L2: a local load that starts in between would otherwise fill L1 from the old L2 entry
+        evictLocal(userIds, month);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserPointsChanged(UserPointsChangedEvent event) {
+        evict(event.userIds());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            List<Long> userIds = Arrays.stream(parts[2].split(","))
+                    .map(Long::valueOf)
+                    .toList();
+            evictLocal(userIds, YearMonth.parse(parts[1]));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed user cache eviction message: {}", e.getMessage());
+        }
+    }
+
+    private void evictLocal(Collection<Long> userIds, YearMonth month) {
+        for (Long userId : userIds) {
+            // Recorded before invalidating, so a load that checks in between still sees it
+            evictedAt.put(userId, evictions.incrementAndGet());
+            profiles.invalidate(new ProfileKey(userId, month));
+            users.invalidate(userId);
+        }
+    }
+
+    private <K, V> void fillL1(Cache<K, V> cache, K key, V value, Long userId, long loadStarted) {
+        if (evictedSince(userId, loadStarted)) {
+            return;
+        }
+        cache.put(key, value);
+        // An eviction between the check and the put has already run its invalidate
+        if (evictedSince(userId, loadStarted)) {
+            cache.invalidate(key);
+        }
+    }
+
+    private boolean evictedSince(Long userId, long loadStarted) {
+        Long evicted = evictedAt.getIfPresent(userId);
+        return evicted != null && evicted > loadStarted;
+    }
+
+    private <T> T readThrough(Long userId, String redisKey, Class<T> type, Supplier<T> loader, Counter hits,
+                              Counter misses) {
+        String generationKey = GENERATION_KEY_PREFIX + userId;
+        String generation = null;
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(redisKey, generationKey));
+            String json = values.get(0);
+            generation = values.get(1) != null ? values.get(1) : "0";
+            if (json != null) {
+                hits.increment();
+                return objectMapper.readValue(json, type);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("User cache L2 read of {} failed, loading from DB: {}", redisKey, e.getMessage());
+        }
+        misses.increment();
+
+        T value = loader.get();
+        if (generation == null) {
+            // Without the generation the write could not be checked against a concurrent eviction
+            return value;
+        }
+        try {
+            redisTemplate.execute(PUT_SCRIPT, List.of(redisKey, generationKey), objectMapper.writeValueAsString(value),
+                    String.valueOf(userCacheConfig.getL2TtlSeconds()), generation);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("User cache L2 write of {} failed: {}", redisKey, e.getMessage());
+        }
+        return value;
+    }
+
+    private <K, V> Cache<K, V> newL1Cache() {
+        return Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getL1MaxSize())
+                .expireAfterWrite(Duration.ofSeconds(userCacheConfig.getL1TtlSeconds()))
+                .recordStats()
+                .build();
+    }
+
+    private Counter l2Counter(String cacheName, String result) {
+        return Counter.builder("user.cache.l2.gets")
+                .description("Redis (L2) lookups after an L1 miss")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -3,17 +3,24 @@ package vn.ghtk.loyalty.service.impl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import vn.ghtk.loyalty.dto.request.CreateUserRequest;
 import vn.ghtk.loyalty.dto.response.UserProfileResponse;
 import vn.ghtk.loyalty.dto.response.UserResponse;
 import vn.ghtk.loyalty.entity.User;
 import vn.ghtk.loyalty.exception.BusinessException;
 import vn.ghtk.loyalty.repository.DailyCheckinRepository;
+import vn.ghtk.loyalty.repository.UserMonthlyCheckinRepository;
 import vn.ghtk.loyalty.repository.UserRepository;
+import vn.ghtk.loyalty.service.ReadRoutingService;
+import vn.ghtk.loyalty.service.UserCacheService;
 import vn.ghtk.loyalty.service.UserService;
 
-import java.time.LocalDate;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -21,7 +28,12 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final DailyCheckinRepository dailyCheckinRepository;
+    private final UserMonthlyCheckinRepository userMonthlyCheckinRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCacheService userCacheService;
+    private final ReadRoutingService readRoutingService;
+    private final PlatformTransactionManager transactionManager;
+    private final Clock clock;
 
     @Override
     @Transactional
@@ -50,37 +62,64 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public UserProfileResponse getUserProfile(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-
-        LocalDate now = LocalDate.now();
-        Long totalCheckinDays = dailyCheckinRepository.countByUserIdAndMonth(
-                userId, now.getYear(), now.getMonthValue()
-        );
-
-        return UserProfileResponse.builder()
-                .name(user.getName())
-                .avatar(user.getAvatar())
-                .totalPoints(user.getTotalPoints())
-                .totalCheckinDaysInMonth(totalCheckinDays)
-                .build();
+        // No transaction around the cache: a hit must not borrow a connection
+        YearMonth month = YearMonth.now(clock);
+        return userCacheService.getProfile(userId, month, () -> loadUserProfile(userId, month));
+    }
+
+    private UserProfileResponse loadUserProfile(Long userId, YearMonth month) {
+        return readOnly(userId, () -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+
+            // Summary row if the month has one; otherwise the user has not checked in since it was introduced
+            Long totalCheckinDays = userMonthlyCheckinRepository.findByUserIdAndMonth(userId, month)
+                    .map(summary -> summary.getCheckinCount().longValue())
+                    .orElseGet(() -> dailyCheckinRepository.countByUserIdAndMonth(
+                            userId, month.getYear(), month.getMonthValue()
+                    ));
+
+            return UserProfileResponse.builder()
+                    .name(user.getName())
+                    .avatar(user.getAvatar())
+                    .totalPoints(user.getTotalPoints())
+                    .totalCheckinDaysInMonth(totalCheckinDays)
+                    .build();
+        });
     }
 
     @Override
-    @Transactional(readOnly = true)
     public UserResponse getUserById(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        return userCacheService.getUser(userId, () -> loadUser(userId));
+    }
 
-        return UserResponse.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .avatar(user.getAvatar())
-                .totalPoints(user.getTotalPoints())
-                .createdAt(user.getCreatedAt())
-                .build();
+    private UserResponse loadUser(Long userId) {
+        return readOnly(userId, () -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+
+            return UserResponse.builder()
+                    .id(user.getId())
+                    .name(user.getName())
+                    .avatar(user.getAvatar())
+                    .totalPoints(user.getTotalPoints())
+                    .createdAt(user.getCreatedAt())
+                    .build();
+        });
+    }
+
+    /**
+     * Cache misses load in a read-only transaction, which runs on the replica when one is configured; the
+     * transaction is opened here rather than on the public methods so a cache hit still borrows no connection.
+     */
+    private <T> T readOnly(Long userId, Supplier<T> load) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            readRoutingService.usePrimaryIfRecentlyWritten(userId);
+            return load.get();
+        });
     }
 }
 
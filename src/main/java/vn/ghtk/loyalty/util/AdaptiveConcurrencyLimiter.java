@@ -0,0 +1,172 @@
+package vn.ghtk.loyalty.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import vn.ghtk.loyalty.config.LimiterConfig;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Caps the check-in and deduction transactions running at once, from the worker queue through the commit, so a burst
+ * is shed with 429 in microseconds instead of queueing for a worker or a Hikari connection and failing in bulk.
+ * Slots are taken after the per-user lock: a lock wait is contention on one user, not load on the database, and
+ * must not shrink the limit everyone shares.
+ * <p>
+ * The limit adapts like TCP Vegas: the lowest transaction latency seen is taken as the no-load latency, and
+ * {@code limit * (1 - noLoad / latency)} estimates how many transactions are queueing (for connections, row
+ * locks, disk). Below {@value #ALPHA}·log10(limit) queued the limit grows, above {@value #BETA}·log10(limit) it
+ * shrinks; a failed transaction (connection timeout, deadlock) cuts it by {@value #BACKOFF_RATIO}. Every
+ * {@value #PROBE_MULTIPLIER}·limit samples the no-load latency is re-learned, so a permanently slower database
+ * does not look like queueing forever.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdaptiveConcurrencyLimiter {
+
+    static final String LIMIT = "loyalty.limiter.limit";
+    static final String IN_FLIGHT = "loyalty.limiter.in_flight";
+
+    private static final int ALPHA = 3;
+    private static final int BETA = 6;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final LimiterConfig limiterConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile double limit;
+
+    // Guarded by updateLock
+    private long noLoadLatencyNanos;
+    private long samplesSinceProbe;
+
+    @PostConstruct
+    public void init() {
+        limit = limiterConfig.getInitialLimit();
+        Gauge.builder(LIMIT, this, limiter -> limiter.limit)
+                .description("Transactions allowed to run at once")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("Transactions running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code transaction} if the limit allows, otherwise throws {@link ServerBusyException} without
+     * calling it. Business rejections count as normal samples, other failures as drops.
+     */
+    public <T> T execute(Supplier<T> transaction) {
+        if (!limiterConfig.isEnabled()) {
+            return transaction.get();
+        }
+        int running = acquire();
+
+        long started = System.nanoTime();
+        boolean dropped = true;
+        try {
+            T result = transaction.get();
+            dropped = false;
+            return result;
+        } catch (BusinessException e) {
+            dropped = false;
+            throw e;
+        } finally {
+            release(started, running, dropped);
+        }
+    }
+
+    /**
+     * Same as {@link #execute} for a transaction that completes later: the slot is taken before
+     * {@code transaction} is called (so before it is queued on a worker) and given back when its future
+     * completes. A full limiter fails the returned future with {@link ServerBusyException}.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> transaction) {
+        if (!limiterConfig.isEnabled()) {
+            return transaction.get();
+        }
+        int running;
+        try {
+            running = acquire();
+        } catch (ServerBusyException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = transaction.get();
+        } catch (RuntimeException e) {
+            release(started, running, !(e instanceof BusinessException));
+            throw e;
+        }
+        return future.whenComplete((result, error) -> release(started, running,
+                error != null && !(AsyncUtil.unwrap(error) instanceof BusinessException)));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    private int acquire() {
+        int running = inFlight.incrementAndGet();
+        if (running > (int) limit) {
+            inFlight.decrementAndGet();
+            throw MetricsUtil.shed(meterRegistry, limiterConfig.getRetryAfterSeconds());
+        }
+        return running;
+    }
+
+    private void release(long started, int running, boolean dropped) {
+        inFlight.decrementAndGet();
+        onSample(System.nanoTime() - started, running, dropped);
+    }
+
+    void onSample(long latencyNanos, int running, boolean dropped) {
+        // Losing a sample to a concurrent update is fine; waiting for the lock on every commit is not
+        if (!updateLock.tryLock()) {
+            return;
+        }
+        try {
+            double current = limit;
+            if (dropped) {
+                limit = clamp(current * BACKOFF_RATIO);
+                return;
+            }
+
+            if (++samplesSinceProbe >= PROBE_MULTIPLIER * current) {
+                samplesSinceProbe = 0;
+                noLoadLatencyNanos = latencyNanos;
+            } else if (noLoadLatencyNanos == 0 || latencyNanos < noLoadLatencyNanos) {
+                noLoadLatencyNanos = latencyNanos;
+            }
+
+            // Well below the limit the latency says nothing about whether a higher limit would still be fast
+            if (running * 2 < current) {
+                return;
+            }
+            double queued = current * (1 - (double) noLoadLatencyNanos / latencyNanos);
+            double step = Math.max(1, Math.log10(current));
+            if (queued <= ALPHA * step) {
+                limit = clamp(current + step);
+            } else if (queued >= BETA * step) {
+                limit = clamp(current - step);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(limiterConfig.getMinLimit(), Math.min(limiterConfig.getMaxLimit(), value));
+    }
+}
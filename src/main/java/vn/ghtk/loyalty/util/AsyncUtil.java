@@ -0,0 +1,51 @@
+package vn.ghtk.loyalty.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public final class AsyncUtil {
+
+    private static final long REJECTED_RETRY_AFTER_SECONDS = 1;
+    // Negative, so async lock owners never collide with the ids of threads holding the same lock synchronously
+    private static final AtomicLong LOCK_OWNER_IDS = new AtomicLong(Long.MIN_VALUE);
+
+    private AsyncUtil() {
+    }
+
+    /**
+     * Runs {@code task} on {@code executor}; a full executor fails the future with a {@link ServerBusyException}
+     * (429), counted like any other shed request.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor, MeterRegistry registry) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(MetricsUtil.shed(registry, REJECTED_RETRY_AFTER_SECONDS));
+        }
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor, MeterRegistry registry) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        }, executor, registry);
+    }
+
+    /**
+     * Owner id for Redisson {@code *Async(..., threadId)} lock calls, whose continuations run on other threads.
+     */
+    public static long nextLockOwnerId() {
+        return LOCK_OWNER_IDS.getAndIncrement();
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,44 @@
+package vn.ghtk.loyalty.util;
+
+import vn.ghtk.loyalty.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public class CursorUtil {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Position of the last row of a page, ordered by (createdAt DESC, id DESC).
+     */
+    public record Position(LocalDateTime createdAt, Long id) {
+    }
+
+    /**
+     * Encodes a keyset position into an opaque, URL-safe cursor.
+     */
+    public static String encode(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode}; a tampered cursor is a client error.
+     */
+    public static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BusinessException("Invalid cursor");
+            }
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+}
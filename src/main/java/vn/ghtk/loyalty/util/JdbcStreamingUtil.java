@@ -0,0 +1,22 @@
+package vn.ghtk.loyalty.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public final class JdbcStreamingUtil {
+
+    private static final String MYSQL = "MySQL";
+
+    private JdbcStreamingUtil() {
+    }
+
+    /**
+     * Fetch size that makes a forward-only, read-only result set stream instead of being buffered whole. MySQL
+     * Connector/J ignores the fetch size unless {@code useCursorFetch} is set for the whole connection, but streams
+     * row by row with {@link Integer#MIN_VALUE}; other drivers fetch {@code rows} per round trip. While a MySQL
+     * result set streams, its connection runs no other statement.
+     */
+    public static int fetchSize(Connection connection, int rows) throws SQLException {
+        return MYSQL.equals(connection.getMetaData().getDatabaseProductName()) ? Integer.MIN_VALUE : rows;
+    }
+}
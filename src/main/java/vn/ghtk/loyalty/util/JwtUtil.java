@@ -1,14 +1,25 @@
 package vn.ghtk.loyalty.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 
 @Slf4j
@@ -21,8 +32,52 @@ public class JwtUtil {
     @Value("${spring.security.jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @Value("${spring.security.jwt.cache-max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${spring.security.jwt.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // Built once: the key and parser are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * SHA-256 digest of a verified token -> principal. An entry never outlives the token's own expiry.
+     */
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    /**
+     * Identity carried by a verified token.
+     */
+    public record JwtPrincipal(String userId, Instant expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String digest, JwtPrincipal principal, long currentTime) {
+                        return remainingNanos(principal);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, JwtPrincipal principal, long currentTime,
+                                                  long currentDuration) {
+                        return remainingNanos(principal);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, JwtPrincipal principal, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String userId) {
@@ -33,7 +88,7 @@ public class JwtUtil {
                 .subject(userId)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -41,30 +96,45 @@ public class JwtUtil {
         return expiration;
     }
 
-    public String extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.getSubject();
-    }
+    /**
+     * Verifies the token once and returns its principal, or null if it is invalid or expired.
+     * Tokens verified recently are answered from the cache without HMAC or JSON parsing.
+     */
+    public JwtPrincipal verify(String token) {
+        String digest = digest(token);
+        JwtPrincipal cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
 
-    public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getSubject() == null) {
+                return null;
+            }
+            Instant expiresAt = claims.getExpiration() != null
+                    ? claims.getExpiration().toInstant()
+                    : Instant.now().plusSeconds(cacheTtlSeconds);
+            JwtPrincipal principal = new JwtPrincipal(claims.getSubject(), expiresAt);
+            verifiedTokens.put(digest, principal);
+            return principal;
+        } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private long remainingNanos(JwtPrincipal principal) {
+        long untilExpiry = Duration.between(Instant.now(), principal.expiresAt()).toNanos();
+        return Math.max(0, Math.min(untilExpiry, Duration.ofSeconds(cacheTtlSeconds).toNanos()));
     }
-}
 
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
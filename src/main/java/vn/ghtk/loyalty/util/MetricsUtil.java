@@ -0,0 +1,112 @@
+package vn.ghtk.loyalty.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the check-in, points and login pipeline. Meters are looked up by name and tags on each use; the registry
+ * returns the already registered instance, so callers need no fields per tag combination.
+ */
+public final class MetricsUtil {
+
+    public static final String REJECTIONS = "loyalty.rejections";
+
+    public static final String STAGE_ADMISSION = "admission";
+    public static final String STAGE_TRANSACTION = "transaction";
+    public static final String STAGE_PASSWORD_HASHING = "password_hashing";
+
+    public static final String REASON_OUTSIDE_WINDOW = "outside_window";
+    public static final String REASON_ALREADY_CHECKED_IN = "already_checked_in";
+    public static final String REASON_MONTHLY_CAP = "monthly_cap";
+    public static final String REASON_INSUFFICIENT_POINTS = "insufficient_points";
+    public static final String REASON_OVERLOADED = "overloaded";
+    public static final String REASON_LOGIN_THROTTLED = "login_throttled";
+
+    private MetricsUtil() {
+    }
+
+    /**
+     * Timer with a percentile histogram, so Prometheus can aggregate quantiles across instances.
+     */
+    public static Timer timer(MeterRegistry registry, String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Counts a business rejection, tagged with its reason and where it was detected (Redis admission or the DB
+     * transaction), and returns the exception to throw.
+     */
+    public static BusinessException reject(MeterRegistry registry, String reason, String stage, String message) {
+        countRejection(registry, reason, stage);
+        return new BusinessException(message);
+    }
+
+    /**
+     * Counts a request shed by the transaction limiter and returns the exception to throw.
+     */
+    public static ServerBusyException shed(MeterRegistry registry, long retryAfterSeconds) {
+        return shed(registry, STAGE_ADMISSION, retryAfterSeconds);
+    }
+
+    /**
+     * Counts a request shed by a full queue at {@code stage} and returns the exception to throw.
+     */
+    public static ServerBusyException shed(MeterRegistry registry, String stage, long retryAfterSeconds) {
+        countRejection(registry, REASON_OVERLOADED, stage);
+        return new ServerBusyException("Server is busy. Please try again.", retryAfterSeconds);
+    }
+
+    /**
+     * Counts a login refused by the failed-attempt throttle, before any password hashing, and returns the
+     * exception to throw.
+     */
+    public static ServerBusyException throttleLogin(MeterRegistry registry, long retryAfterSeconds) {
+        countRejection(registry, REASON_LOGIN_THROTTLED, STAGE_ADMISSION);
+        return new ServerBusyException("Too many failed login attempts. Please try again later.", retryAfterSeconds);
+    }
+
+    private static void countRejection(MeterRegistry registry, String reason, String stage) {
+        Counter.builder(REJECTIONS)
+                .description("Requests rejected by a business rule or shed under load")
+                .tag("reason", reason)
+                .tag("stage", stage)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Runs {@code call} and records its duration under {@code name}, tagged
+     * {@code result=success|rejected|error} (rejected: {@link BusinessException}).
+     */
+    public static <T> T recordOutcome(MeterRegistry registry, String name, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            T result = call.get();
+            sample.stop(timer(registry, name, "result", "success"));
+            return result;
+        } catch (BusinessException e) {
+            sample.stop(timer(registry, name, "result", "rejected"));
+            throw e;
+        } catch (RuntimeException e) {
+            sample.stop(timer(registry, name, "result", "error"));
+            throw e;
+        }
+    }
+
+    /**
+     * Records the time until {@code future} completes, successfully or not.
+     */
+    public static <T> CompletableFuture<T> recordAsync(MeterRegistry registry, Timer timer, CompletableFuture<T> future) {
+        Timer.Sample sample = Timer.start(registry);
+        return future.whenComplete((result, error) -> sample.stop(timer));
+    }
+}
@@ -0,0 +1,23 @@
+-- Merges bitmaps loaded from the DB into the calendar hash. Bits are OR-ed so a day recorded
+-- concurrently by calendar-record.lua is never lost.
+-- KEYS[1] checkin:calendar:{userId}:{yyyy}
+-- ARGV[1] key ttl (s), then pairs of month, bitmap
+local function bitwise_or(a, b)
+    local result, bit = 0, 1
+    for _ = 0, 31 do
+        if a % (2 * bit) >= bit or b % (2 * bit) >= bit then
+            result = result + bit
+        end
+        bit = bit * 2
+    end
+    return result
+end
+
+for i = 2, #ARGV, 2 do
+    local current = tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or '0')
+    redis.call('HSET', KEYS[1], ARGV[i], tostring(bitwise_or(current, tonumber(ARGV[i + 1]))))
+end
+if redis.call('TTL', KEYS[1]) < 0 then
+    redis.call('EXPIRE', KEYS[1], ARGV[1])
+end
+return #ARGV / 2
@@ -0,0 +1,13 @@
+-- Sets one day in a month's check-in bitmap.
+-- KEYS[1] checkin:calendar:{userId}:{yyyy}  hash: month -> bitmap (bit 0 = loaded from DB, bit d = day d)
+-- ARGV[1] month, ARGV[2] day of month, ARGV[3] key ttl (s)
+local mask = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+local day = 2 ^ tonumber(ARGV[2])
+if mask % (2 * day) < day then
+    mask = mask + day
+    redis.call('HSET', KEYS[1], ARGV[1], tostring(mask))
+end
+if redis.call('TTL', KEYS[1]) < 0 then
+    redis.call('EXPIRE', KEYS[1], ARGV[3])
+end
+return mask
@@ -0,0 +1,22 @@
+-- Claims today's check-in for a user in one round trip.
+-- KEYS[1] checkin:{userId}:{yyyy-MM-dd}   "1" once committed, "P:{token}" while a check-in is in flight
+-- KEYS[2] checkin:count:{userId}:{yyyy-MM} check-ins claimed this month
+-- ARGV[1] claim token, ARGV[2] max check-ins per month, ARGV[3] claim ttl (s), ARGV[4] counter ttl (s)
+-- Returns 0 claimed, 1 already checked in, 2 monthly limit reached, 3 another check-in in flight
+local state = redis.call('GET', KEYS[1])
+if state then
+    if string.sub(state, 1, 2) == 'P:' then
+        return 3
+    end
+    return 1
+end
+
+local count = tonumber(redis.call('GET', KEYS[2]) or '0')
+if count >= tonumber(ARGV[2]) then
+    return 2
+end
+
+redis.call('SET', KEYS[1], 'P:' .. ARGV[1], 'EX', ARGV[3])
+redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[2], ARGV[4])
+return 0
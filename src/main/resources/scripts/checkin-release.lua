@@ -0,0 +1,16 @@
+-- Releases a claim taken by checkin-claim.lua when the check-in transaction fails.
+-- KEYS[1] checkin:{userId}:{yyyy-MM-dd}, KEYS[2] checkin:count:{userId}:{yyyy-MM}
+-- ARGV[1] claim token
+-- The claim incremented the monthly counter, so the counter is decremented even when the claim itself has
+-- expired (a transaction that outlived claim-ttl-seconds); today's key is deleted only while this token holds it.
+-- Returns 1 if the claim was released, 0 if it was no longer held by this token
+local count = tonumber(redis.call('GET', KEYS[2]) or '0')
+if count > 0 then
+    redis.call('DECR', KEYS[2])
+end
+
+if redis.call('GET', KEYS[1]) ~= 'P:' .. ARGV[1] then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+return 1
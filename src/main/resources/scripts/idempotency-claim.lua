@@ -0,0 +1,12 @@
+-- Claims an idempotency key, or returns what is already stored under it, in one round trip.
+-- KEYS[1] idempotency:{scope}:{userId}:{key}
+-- ARGV[1] pending marker ('P:' .. token), ARGV[2] pending TTL in seconds
+-- Returns false (nil) if the key was claimed by this call, otherwise the stored value:
+-- 'P:<token>' while another request is running, 'D:<json>' once it has completed
+local existing = redis.call('GET', KEYS[1])
+if existing then
+    return existing
+end
+
+redis.call('SET', KEYS[1], ARGV[1], 'EX', tonumber(ARGV[2]))
+return false
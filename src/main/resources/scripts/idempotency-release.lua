@@ -0,0 +1,10 @@
+-- Drops a pending claim taken by idempotency-claim.lua when the request failed, so the client can retry.
+-- KEYS[1] idempotency:{scope}:{userId}:{key}
+-- ARGV[1] pending marker of this request
+-- Returns 1 if the claim was released, 0 if it was no longer held by this request
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+
+redis.call('DEL', KEYS[1])
+return 1
@@ -0,0 +1,9 @@
+-- Counts a failed login against the username and the client IP.
+-- KEYS[1] login:fail:user:{username}, KEYS[2] login:fail:ip:{ip}
+-- ARGV[1] window (s), started by the first failure and not extended by later ones
+for i = 1, 2 do
+    if redis.call('INCR', KEYS[i]) == 1 then
+        redis.call('EXPIRE', KEYS[i], ARGV[1])
+    end
+end
+return 0
@@ -0,0 +1,19 @@
+-- Checks the failed-login counters of a username and a client IP in one round trip, before any password hashing.
+-- KEYS[1] login:fail:user:{username}, KEYS[2] login:fail:ip:{ip}
+-- ARGV[1] max failures per username, ARGV[2] max failures per IP
+-- Returns 0 if the login may proceed, otherwise the seconds until the exhausted counter expires
+local limits = { tonumber(ARGV[1]), tonumber(ARGV[2]) }
+local wait = 0
+for i = 1, 2 do
+    local failures = tonumber(redis.call('GET', KEYS[i]) or '0')
+    if failures >= limits[i] then
+        local ttl = redis.call('TTL', KEYS[i])
+        if ttl < 1 then
+            ttl = 1
+        end
+        if ttl > wait then
+            wait = ttl
+        end
+    end
+end
+return wait
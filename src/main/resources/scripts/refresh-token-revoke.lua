@@ -0,0 +1,9 @@
+-- Revokes the family of a refresh token (logout); every token of the family stops working.
+-- KEYS[1] auth:refresh:{familyId}:{digest}, KEYS[2] auth:refresh:family:{familyId}
+-- Returns 1 if a family was revoked, 0 if the token was unknown
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+
+redis.call('DEL', KEYS[1], KEYS[2])
+return 1
@@ -0,0 +1,25 @@
+-- Rotates a refresh token in one round trip: the presented token must be the current one of its family.
+-- KEYS[1] auth:refresh:{familyId}:{digest}, KEYS[2] auth:refresh:{familyId}:{new digest},
+-- KEYS[3] auth:refresh:family:{familyId}
+-- ARGV[1] digest, ARGV[2] new digest, ARGV[3] ttl (s)
+-- Token keys hold the user id; the family key holds the digest of the family's current token.
+-- Returns the user id, false if the token is unknown or its family revoked, or 'R' if an already rotated token
+-- was replayed, in which case the whole family is revoked
+local userId = redis.call('GET', KEYS[1])
+if not userId then
+    return false
+end
+
+local current = redis.call('GET', KEYS[3])
+if not current then
+    return false
+end
+if current ~= ARGV[1] then
+    redis.call('DEL', KEYS[3])
+    return 'R'
+end
+
+-- The old token key is kept until it expires, so a replay of it is recognised as reuse
+redis.call('SET', KEYS[2], userId, 'EX', ARGV[3])
+redis.call('SET', KEYS[3], ARGV[2], 'EX', ARGV[3])
+return userId
@@ -0,0 +1,10 @@
+-- Drops the L2 entries of users and bumps their generations, so user-cache-put.lua refuses values loaded before.
+-- KEYS per user, in threes: user:cache:profile:{userId}:{yyyy-MM}, user:cache:info:{userId}, user:cache:gen:{userId}
+-- ARGV[1] generation TTL in seconds; only a load running longer than this could still write back
+-- Returns the number of users evicted
+for i = 1, #KEYS, 3 do
+    redis.call('DEL', KEYS[i], KEYS[i + 1])
+    redis.call('INCR', KEYS[i + 2])
+    redis.call('EXPIRE', KEYS[i + 2], ARGV[1])
+end
+return #KEYS / 3
@@ -0,0 +1,9 @@
+-- Writes a user cache L2 entry unless the user was evicted after the reader missed.
+-- KEYS[1] user:cache:profile:{userId}:{yyyy-MM} or user:cache:info:{userId}, KEYS[2] user:cache:gen:{userId}
+-- ARGV[1] value, ARGV[2] TTL in seconds, ARGV[3] generation read together with the miss ('0' when absent)
+-- Returns 1 if the entry was written, 0 if an eviction came in between and the loaded value may be stale
+if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[3] then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+return 1
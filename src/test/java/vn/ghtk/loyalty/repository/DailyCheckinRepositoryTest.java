@@ -0,0 +1,94 @@
+package vn.ghtk.loyalty.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import vn.ghtk.loyalty.entity.DailyCheckin;
+import vn.ghtk.loyalty.support.SqlStatementRecorder;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DailyCheckinRepositoryTest {
+
+    private static final long USER_ID = 1L;
+
+    @Autowired
+    private DailyCheckinRepository dailyCheckinRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, 'user1', 'x', 'User 1', 0, CURRENT_TIMESTAMP)", USER_ID);
+        // Month boundaries on both sides must be excluded from February
+        insertCheckin(LocalDate.of(2025, 1, 31), 5);
+        insertCheckin(LocalDate.of(2025, 2, 1), 1);
+        insertCheckin(LocalDate.of(2025, 2, 14), 2);
+        insertCheckin(LocalDate.of(2025, 2, 28), 3);
+        insertCheckin(LocalDate.of(2025, 3, 1), 1);
+        SqlStatementRecorder.clear();
+    }
+
+    @Test
+    void countByUserIdAndMonth_countsOnlyDaysInsideTheMonth() {
+        assertThat(dailyCheckinRepository.countByUserIdAndMonth(USER_ID, 2025, 2)).isEqualTo(3L);
+
+        assertRangeScan(SqlStatementRecorder.lastStatement());
+    }
+
+    @Test
+    void findByUserIdAndMonth_returnsMonthNewestFirst() {
+        List<DailyCheckin> checkins = dailyCheckinRepository.findByUserIdAndMonth(USER_ID, 2025, 2);
+
+        assertThat(checkins).extracting(DailyCheckin::getCheckinDate).containsExactly(
+                LocalDate.of(2025, 2, 28), LocalDate.of(2025, 2, 14), LocalDate.of(2025, 2, 1));
+        assertRangeScan(SqlStatementRecorder.lastStatement());
+    }
+
+    @Test
+    void findMaxCheckinOrderByUserIdAndMonth_usesCoveringIndex() {
+        assertThat(dailyCheckinRepository.findMaxCheckinOrderByUserIdAndMonth(USER_ID, 2025, 2)).isEqualTo(3);
+        assertThat(dailyCheckinRepository.findMaxCheckinOrderByUserIdAndMonth(USER_ID, 2025, 4)).isNull();
+
+        String plan = assertRangeScan(SqlStatementRecorder.lastStatement());
+        assertThat(plan).contains("idx_daily_checkin_user_date_order");
+    }
+
+    /**
+     * EXPLAINs the recorded statement and checks the date bounds are applied as index conditions
+     * (inside the index comment H2 prints after the table), not as a filter on every user row.
+     */
+    private String assertRangeScan(String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                USER_ID, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1));
+        String indexCondition = plan.substring(plan.indexOf("/*"), plan.indexOf("*/"));
+
+        assertThat(sql).doesNotContainIgnoringCase("extract(").doesNotContainIgnoringCase("month(");
+        assertThat(indexCondition)
+                .contains("user_id = ?1")
+                .contains("checkin_date >= ?2")
+                .contains("checkin_date < ?3");
+        return plan;
+    }
+
+    private void insertCheckin(LocalDate date, int order) {
+        jdbcTemplate.update("INSERT INTO daily_checkin (user_id, checkin_date, points_earned, checkin_order, created_at) " +
+                "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)", USER_ID, date, 10, order);
+    }
+}
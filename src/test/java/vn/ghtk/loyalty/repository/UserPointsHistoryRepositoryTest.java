@@ -0,0 +1,103 @@
+package vn.ghtk.loyalty.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.support.SqlStatementRecorder;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserPointsHistoryRepositoryTest {
+
+    private static final long USER_ID = 1L;
+
+    @Autowired
+    private UserPointsHistoryRepository userPointsHistoryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, 'user1', 'x', 'User 1', 0, CURRENT_TIMESTAMP)", USER_ID);
+        insertHistory(LocalDateTime.of(2025, 1, 31, 23, 59, 59));
+        insertHistory(LocalDateTime.of(2025, 2, 1, 0, 0));
+        insertHistory(LocalDateTime.of(2025, 2, 28, 23, 59, 59));
+        insertHistory(LocalDateTime.of(2025, 3, 1, 0, 0));
+        SqlStatementRecorder.clear();
+    }
+
+    @Test
+    void findByUserIdAndMonth_rangeScansUserCreatedAtIndex() {
+        Page<UserPointsHistory> page = userPointsHistoryRepository.findByUserIdAndMonth(
+                USER_ID, 2025, 2, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(UserPointsHistory::getCreatedAt).containsExactly(
+                LocalDateTime.of(2025, 2, 28, 23, 59, 59), LocalDateTime.of(2025, 2, 1, 0, 0));
+
+        String sql = SqlStatementRecorder.statements().stream()
+                .filter(statement -> statement.contains("user_points_history"))
+                .findFirst()
+                .orElseThrow();
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                USER_ID, LocalDateTime.of(2025, 2, 1, 0, 0), LocalDateTime.of(2025, 3, 1, 0, 0), 10);
+        String indexCondition = plan.substring(plan.indexOf("/*"), plan.indexOf("*/"));
+
+        assertThat(indexCondition)
+                .contains("idx_user_points_history_user_created_at")
+                .contains("created_at >= ?2")
+                .contains("created_at < ?3");
+    }
+
+    @Test
+    void findByUserIdBefore_walksPagesAcrossEqualTimestampsWithoutCounting() {
+        // Three more rows sharing one timestamp, so the id tie-breaker decides page boundaries
+        LocalDateTime sameSecond = LocalDateTime.of(2025, 2, 10, 12, 0);
+        insertHistory(sameSecond);
+        insertHistory(sameSecond);
+        insertHistory(sameSecond);
+        List<Long> expectedIds = jdbcTemplate.queryForList(
+                "SELECT id FROM user_points_history WHERE user_id = ? ORDER BY created_at DESC, id DESC",
+                Long.class, USER_ID);
+        SqlStatementRecorder.clear();
+
+        List<Long> walkedIds = new ArrayList<>();
+        List<UserPointsHistory> page = userPointsHistoryRepository.findByUserIdOrderByCreatedAtDescIdDesc(
+                USER_ID, Limit.of(2));
+        while (!page.isEmpty()) {
+            page.forEach(h -> walkedIds.add(h.getId()));
+            UserPointsHistory last = page.get(page.size() - 1);
+            page = userPointsHistoryRepository.findByUserIdBefore(
+                    USER_ID, last.getCreatedAt(), last.getId(), Limit.of(2));
+        }
+
+        assertThat(walkedIds).containsExactlyElementsOf(expectedIds);
+        assertThat(SqlStatementRecorder.statements()).noneMatch(sql -> sql.toLowerCase().contains("count("));
+    }
+
+    private void insertHistory(LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO user_points_history (user_id, points, transaction_type, description, created_at) " +
+                "VALUES (?, 10, 'CHECKIN', 'test', ?)", USER_ID, createdAt);
+    }
+}
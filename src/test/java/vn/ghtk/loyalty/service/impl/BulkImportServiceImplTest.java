@@ -0,0 +1,234 @@
+package vn.ghtk.loyalty.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.BulkImportConfig;
+import vn.ghtk.loyalty.enums.BulkImportKind;
+import vn.ghtk.loyalty.repository.BulkImportRepository;
+import vn.ghtk.loyalty.service.BulkImportService.Report;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batches of 2 records, committed by the service itself, so the checkpoints are real.
+ */
+@DataJpaTest(properties = {
+        "loyalty.import.batch-size=2",
+        "loyalty.import.hashing-threads=2"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        BulkImportServiceImpl.class,
+        BulkImportRepository.class,
+        BulkImportConfig.class,
+        JacksonAutoConfiguration.class,
+        BulkImportServiceImplTest.Stubs.class
+})
+class BulkImportServiceImplTest {
+
+    private static final PasswordEncoder PASSWORD_ENCODER = new BCryptPasswordEncoder(4);
+
+    @Autowired
+    private BulkImportServiceImpl bulkImportService;
+
+    @Autowired
+    private BulkImportRepository bulkImportRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TempDir
+    private Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return PASSWORD_ENCODER;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM bulk_import_checkpoint");
+        jdbcTemplate.update("DELETE FROM user_points_history");
+        jdbcTemplate.update("DELETE FROM user_monthly_checkin");
+        jdbcTemplate.update("DELETE FROM daily_checkin");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void importUsers_hashesPlainPasswordsAndKeepsExistingHashes() throws IOException {
+        String bobHash = PASSWORD_ENCODER.encode("bob-secret");
+        Path file = write("users.csv",
+                "username,password,password_hash,name,total_points",
+                "alice,alice-secret,,Alice,30",
+                "bob,," + bobHash + ",Bob,",
+                "carol,,,Carol,5",
+                "alice,other,,Alice again,1",
+                "dave,,not-a-hash,Dave,0");
+
+        Report report = bulkImportService.importFile(BulkImportKind.USERS, file);
+
+        assertThat(report.read()).isEqualTo(5);
+        assertThat(report.written()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(3);
+        Map<String, Object> alice = jdbcTemplate.queryForMap(
+                "SELECT password, name, total_points FROM users WHERE username = 'alice'");
+        assertThat(PASSWORD_ENCODER.matches("alice-secret", (String) alice.get("password"))).isTrue();
+        assertThat(alice.get("name")).isEqualTo("Alice");
+        assertThat(alice.get("total_points")).isEqualTo(30);
+        assertThat(jdbcTemplate.queryForObject("SELECT password FROM users WHERE username = 'bob'", String.class))
+                .isEqualTo(bobHash);
+        assertThat(report.source()).startsWith("users:users.csv@");
+        assertThat(bulkImportRepository.findCheckpoint(report.source())).isEqualTo(5);
+    }
+
+    @Test
+    void importPointsHistory_resumesAfterTheCheckpointAndKeepsTimestamps() throws IOException {
+        insertUser("alice");
+        Path file = write("history.ndjson",
+                "{\"username\":\"alice\",\"points\":5,\"transaction_type\":\"EARN\",\"created_at\":\"2024-01-01T09:00:00\"}",
+                "{\"username\":\"alice\",\"points\":8,\"transaction_type\":\"EARN\",\"created_at\":\"2024-01-02T09:00:00\"}",
+                "{\"username\":\"ghost\",\"points\":1,\"transaction_type\":\"EARN\"}",
+                "{\"username\":\"alice\",\"points\":-3,\"transaction_type\":\"DEDUCT\",\"description\":\"Voucher\"}");
+        // A previous run committed the first record
+        bulkImportRepository.saveCheckpoint(
+                BulkImportServiceImpl.checkpointSource(BulkImportKind.POINTS_HISTORY, file), 1);
+
+        Report report = bulkImportService.importFile(BulkImportKind.POINTS_HISTORY, file);
+
+        assertThat(report.resumedAfter()).isEqualTo(1);
+        assertThat(report.read()).isEqualTo(3);
+        assertThat(report.written()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT points FROM user_points_history ORDER BY id", Integer.class))
+                .containsExactly(8, -3);
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM user_points_history WHERE points = 8",
+                Timestamp.class).toLocalDateTime()).isEqualTo(LocalDateTime.of(2024, 1, 2, 9, 0));
+
+        Report rerun = bulkImportService.importFile(BulkImportKind.POINTS_HISTORY, file);
+
+        assertThat(rerun.read()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_points_history", Long.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void importCheckins_defaultsCreatedAtToTheCheckinDay() throws IOException {
+        insertUser("alice");
+        Path file = write("checkins.csv",
+                "username,checkin_date,points_earned,checkin_order",
+                "alice,2024-03-01,1,1",
+                "alice,2024-03-02,2,2",
+                "alice,,3,3");
+
+        Report report = bulkImportService.importFile(BulkImportKind.CHECKINS, file);
+
+        assertThat(report.written()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(1);
+        List<Timestamp> createdAt = jdbcTemplate.queryForList(
+                "SELECT created_at FROM daily_checkin ORDER BY checkin_date", Timestamp.class);
+        assertThat(createdAt).extracting(Timestamp::toLocalDateTime).containsExactly(
+                LocalDateTime.of(2024, 3, 1, 0, 0), LocalDateTime.of(2024, 3, 2, 0, 0));
+    }
+
+    @Test
+    void importCheckins_rejectsDaysAlreadyCheckedInAndRebuildsTheMonthlySummary() throws IOException {
+        insertUser("alice");
+        long aliceId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'alice'", Long.class);
+        // Checked in live on March 3rd, before the import ran
+        jdbcTemplate.update("INSERT INTO daily_checkin (user_id, checkin_date, points_earned, checkin_order, " +
+                "created_at) VALUES (?, '2024-03-03', 3, 3, CURRENT_TIMESTAMP)", aliceId);
+        jdbcTemplate.update("INSERT INTO user_monthly_checkin (user_id, checkin_month, checkin_count, last_order, " +
+                "points_earned, last_checkin_date, updated_at) VALUES (?, 202403, 1, 3, 3, '2024-03-03', " +
+                "CURRENT_TIMESTAMP)", aliceId);
+        Path file = write("checkins.csv",
+                "username,checkin_date,points_earned,checkin_order",
+                "alice,2024-03-01,1,1",
+                "alice,2024-03-01,1,1",
+                "alice,2024-03-02,2,2",
+                "alice,2024-03-03,3,3",
+                "alice,2024-04-01,1,1");
+
+        Report report = bulkImportService.importFile(BulkImportKind.CHECKINS, file);
+
+        assertThat(report.written()).isEqualTo(3);
+        assertThat(report.rejected()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM daily_checkin", Long.class)).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForList("SELECT checkin_month, checkin_count, last_order, points_earned, " +
+                        "last_checkin_date FROM user_monthly_checkin WHERE user_id = ? ORDER BY checkin_month", aliceId))
+                .extracting(row -> List.of(row.get("checkin_month"), row.get("checkin_count"), row.get("last_order"),
+                        row.get("points_earned"), row.get("last_checkin_date").toString()))
+                .containsExactly(
+                        List.of(202403, 3, 3, 6, "2024-03-03"),
+                        List.of(202404, 1, 1, 1, "2024-04-01"));
+
+        bulkImportRepository.saveCheckpoint(report.source(), 0);
+        Report rerun = bulkImportService.importFile(BulkImportKind.CHECKINS, file);
+
+        assertThat(rerun.written()).isZero();
+        assertThat(rerun.rejected()).isEqualTo(5);
+    }
+
+    @Test
+    void importFile_keepsSeparateCheckpointsForSameNamedFiles() throws IOException {
+        insertUser("alice");
+        String line = "{\"username\":\"alice\",\"points\":5,\"transaction_type\":\"EARN\"}";
+        Path first = write("history.ndjson", line, line);
+        Path second = Files.write(Files.createDirectory(dir.resolve("next")).resolve("history.ndjson"),
+                List.of(line, line));
+
+        Report firstReport = bulkImportService.importFile(BulkImportKind.POINTS_HISTORY, first);
+        Report secondReport = bulkImportService.importFile(BulkImportKind.POINTS_HISTORY, second);
+
+        assertThat(secondReport.source()).isNotEqualTo(firstReport.source());
+        assertThat(secondReport.resumedAfter()).isZero();
+        assertThat(secondReport.written()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_points_history", Long.class))
+                .isEqualTo(4);
+    }
+
+    private void insertUser(String username) {
+        jdbcTemplate.update("INSERT INTO users (username, password, name, total_points, created_at) " +
+                "VALUES (?, 'x', ?, 0, CURRENT_TIMESTAMP)", username, username);
+    }
+
+    private Path write(String fileName, String... lines) throws IOException {
+        return Files.write(dir.resolve(fileName), List.of(lines));
+    }
+}
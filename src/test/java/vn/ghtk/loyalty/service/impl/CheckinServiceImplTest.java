@@ -0,0 +1,281 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.CheckinConfig;
+import vn.ghtk.loyalty.config.LimiterConfig;
+import vn.ghtk.loyalty.dto.response.CheckinResponse;
+import vn.ghtk.loyalty.enums.CheckinAdmissionMode;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+import vn.ghtk.loyalty.service.CheckinCalendarService;
+import vn.ghtk.loyalty.service.CheckinTransactionService;
+import vn.ghtk.loyalty.support.InMemoryRedissonClient;
+import vn.ghtk.loyalty.util.AdaptiveConcurrencyLimiter;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Admission paths against an in-process Redis (jedis-mock) and in-memory locks; the DB transaction is a stub.
+ */
+class CheckinServiceImplTest {
+
+    private static final long USER_ID = 1L;
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+    private static final String CHECKIN_KEY = "checkin:1:2025-01-15";
+    private static final String COUNT_KEY = "checkin:count:1:2025-01";
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, String> redisTemplate;
+    private ThreadPoolTaskExecutor transactionExecutor;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CheckinConfig checkinConfig = new CheckinConfig();
+    private final RedissonClient redissonClient = InMemoryRedissonClient.create();
+    private CheckinTransactionService transaction;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        transactionExecutor = new ThreadPoolTaskExecutor();
+        transactionExecutor.setCorePoolSize(2);
+        transactionExecutor.setMaxPoolSize(2);
+        transactionExecutor.setQueueCapacity(10);
+        transactionExecutor.setThreadNamePrefix("tx-worker-");
+        transactionExecutor.initialize();
+
+        ReflectionTestUtils.setField(checkinConfig, "pointsSequenceStr", "1,2,3,5,8,13,21");
+        ReflectionTestUtils.setField(checkinConfig, "maxPerMonth", 7);
+        ReflectionTestUtils.setField(checkinConfig, "admissionMode", CheckinAdmissionMode.SCRIPT);
+        ReflectionTestUtils.setField(checkinConfig, "claimTtlSeconds", 30L);
+        checkinConfig.init();
+
+        transaction = (userId, today) -> checkedIn(1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transactionExecutor.shutdown();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void scriptCheckin_marksTheDayAndCountsTheMonth() {
+        CheckinResponse response = newService().checkin(USER_ID, null);
+
+        assertThat(response.getCheckinOrder()).isEqualTo(1);
+        assertThat(redisTemplate.opsForValue().get(CHECKIN_KEY)).isEqualTo("1");
+        assertThat(redisTemplate.opsForValue().get(COUNT_KEY)).isEqualTo("1");
+    }
+
+    @Test
+    void scriptCheckin_failureAfterTheClaimExpiredStillGivesBackTheMonthlySlot() {
+        transaction = (userId, today) -> {
+            // The transaction outlived claim-ttl-seconds
+            redisTemplate.delete(CHECKIN_KEY);
+            throw new IllegalStateException("Connection is not available");
+        };
+
+        assertThatThrownBy(() -> newService().checkin(USER_ID, null)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(redisTemplate.opsForValue().get(COUNT_KEY)).isEqualTo("0");
+        assertThat(redisTemplate.hasKey(CHECKIN_KEY)).isFalse();
+    }
+
+    @Test
+    void scriptCheckin_failureDoesNotReleaseAClaimTakenByAnotherRequest() {
+        transaction = (userId, today) -> {
+            // Our claim expired and another request claimed the day in the meantime
+            redisTemplate.opsForValue().set(CHECKIN_KEY, "P:other");
+            redisTemplate.opsForValue().increment(COUNT_KEY);
+            throw new IllegalStateException("Connection is not available");
+        };
+
+        assertThatThrownBy(() -> newService().checkin(USER_ID, null)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(redisTemplate.opsForValue().get(CHECKIN_KEY)).isEqualTo("P:other");
+        assertThat(redisTemplate.opsForValue().get(COUNT_KEY)).isEqualTo("1");
+    }
+
+    @Test
+    void checkinAsync_lockModeChecksInOnAWorker() throws Exception {
+        ReflectionTestUtils.setField(checkinConfig, "admissionMode", CheckinAdmissionMode.LOCK);
+        transaction = (userId, today) -> {
+            assertThat(Thread.currentThread().getName()).startsWith("tx-worker-");
+            return checkedIn(1);
+        };
+
+        CheckinResponse response = newService().checkinAsync(USER_ID, null).get(5, TimeUnit.SECONDS);
+
+        assertThat(response.getCheckinOrder()).isEqualTo(1);
+        assertThat(redisTemplate.opsForValue().get(CHECKIN_KEY)).isEqualTo("1");
+    }
+
+    @Test
+    void checkinAsync_lockWaitDoesNotTakeAWorker() throws Exception {
+        ReflectionTestUtils.setField(checkinConfig, "admissionMode", CheckinAdmissionMode.LOCK);
+        transactionExecutor.shutdown();
+        transactionExecutor = new ThreadPoolTaskExecutor();
+        transactionExecutor.setCorePoolSize(1);
+        transactionExecutor.setMaxPoolSize(1);
+        transactionExecutor.setQueueCapacity(10);
+        transactionExecutor.initialize();
+        RLock userLock = redissonClient.getLock("lock:checkin:1");
+        userLock.lock();
+        CheckinServiceImpl service = newService();
+        CompletableFuture<CheckinResponse> waiting;
+        try {
+            waiting = service.checkinAsync(USER_ID, null);
+
+            // The only worker is free while user 1 waits for its lock
+            assertThat(service.checkinAsync(2L, null).get(2, TimeUnit.SECONDS).getSuccess()).isTrue();
+            assertThat(waiting).isNotDone();
+        } finally {
+            userLock.unlock();
+        }
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getSuccess()).isTrue();
+    }
+
+    @Test
+    void checkinAsync_concurrentRequestsOfAUserRunTheirTransactionsOneAtATime() throws Exception {
+        ReflectionTestUtils.setField(checkinConfig, "admissionMode", CheckinAdmissionMode.LOCK);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        transaction = (userId, today) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return checkedIn(1);
+        };
+        CheckinServiceImpl service = newService();
+
+        CompletableFuture<CheckinResponse> first = service.checkinAsync(USER_ID, null);
+        CompletableFuture<CheckinResponse> second = service.checkinAsync(USER_ID, null);
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void checkinAsync_fullExecutorIsShedWith429() throws Exception {
+        ReflectionTestUtils.setField(checkinConfig, "admissionMode", CheckinAdmissionMode.LOCK);
+        transactionExecutor.shutdown();
+        transactionExecutor = new ThreadPoolTaskExecutor();
+        transactionExecutor.setCorePoolSize(1);
+        transactionExecutor.setMaxPoolSize(1);
+        transactionExecutor.setQueueCapacity(0);
+        transactionExecutor.initialize();
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        transaction = (userId, today) -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return checkedIn(1);
+        };
+        CheckinServiceImpl service = newService();
+
+        CompletableFuture<CheckinResponse> occupying = service.checkinAsync(USER_ID, null);
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+        try {
+            assertThatThrownBy(() -> service.checkinAsync(2L, null).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ServerBusyException.class);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(occupying.get(5, TimeUnit.SECONDS).getSuccess()).isTrue();
+        assertThat(meterRegistry.get(MetricsUtil.REJECTIONS)
+                .tag("reason", MetricsUtil.REASON_OVERLOADED)
+                .counter().count()).isEqualTo(1);
+    }
+
+    private CheckinServiceImpl newService() {
+        LimiterConfig limiterConfig = new LimiterConfig();
+        ReflectionTestUtils.setField(limiterConfig, "enabled", false);
+        Clock clock = Clock.fixed(LocalDateTime.of(TODAY, LocalTime.of(9, 30)).atZone(ZONE).toInstant(),
+                ZONE);
+        return new CheckinServiceImpl(redisTemplate, new ReactiveStringRedisTemplate(connectionFactory),
+                redissonClient, (userId, today) -> transaction.doCheckinTransactional(userId, today),
+                new NoOpCalendar(), null, transactionExecutor,
+                new AdaptiveConcurrencyLimiter(limiterConfig, meterRegistry), checkinConfig, meterRegistry, clock);
+    }
+
+    private static CheckinResponse checkedIn(int order) {
+        return CheckinResponse.builder()
+                .success(true)
+                .message("Check-in successful")
+                .pointsEarned(order)
+                .totalPoints(order)
+                .checkinOrder(order)
+                .build();
+    }
+
+    private static class NoOpCalendar implements CheckinCalendarService {
+
+        @Override
+        public void recordCheckin(Long userId, LocalDate date) {
+        }
+
+        @Override
+        public CompletableFuture<Void> recordCheckinAsync(Long userId, LocalDate date) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public int getMonthBitmap(Long userId, YearMonth month) {
+            return 0;
+        }
+
+        @Override
+        public Map<Integer, Integer> getYearBitmaps(Long userId, int year) {
+            return Map.of();
+        }
+    }
+}
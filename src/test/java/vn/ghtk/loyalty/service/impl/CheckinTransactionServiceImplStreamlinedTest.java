@@ -0,0 +1,157 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.CheckinConfig;
+import vn.ghtk.loyalty.config.ClockConfig;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.dto.response.CheckinResponse;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.support.InMemoryPointsEventSink;
+import vn.ghtk.loyalty.support.SqlStatementRecorder;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * STREAMLINED transaction mode, outside the test transaction so every check-in commits on its own.
+ */
+@DataJpaTest(properties = "loyalty.checkin.transaction-mode=STREAMLINED")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        CheckinTransactionServiceImpl.class,
+        PointsHistoryWriterImpl.class,
+        PointsOutboxServiceImpl.class,
+        CheckinConfig.class,
+        PointsConfig.class,
+        OutboxConfig.class,
+        ClockConfig.class,
+        InMemoryPointsEventSink.class,
+        SimpleMeterRegistry.class,
+        CheckinTransactionServiceImplStreamlinedTest.FixedClockConfig.class
+})
+class CheckinTransactionServiceImplStreamlinedTest {
+
+    private static final long USER_ID = 1L;
+    private static final YearMonth MONTH = YearMonth.of(2025, 3);
+    private static final LocalDateTime NOW = MONTH.atDay(2).atTime(9, 30);
+
+    @TestConfiguration
+    static class FixedClockConfig {
+
+        @Bean
+        @Primary
+        Clock fixedClock() {
+            ZoneId zone = ZoneId.systemDefault();
+            return Clock.fixed(NOW.atZone(zone).toInstant(), zone);
+        }
+    }
+
+    @Autowired
+    private CheckinTransactionServiceImpl checkinTransactionService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, 'user1', 'x', 'User 1', 100, CURRENT_TIMESTAMP)", USER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_monthly_checkin");
+        jdbcTemplate.update("DELETE FROM daily_checkin");
+        jdbcTemplate.update("DELETE FROM user_points_history");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void checkin_derivesOrderAndPointsInSqlAndEnforcesLimit() {
+        for (int day = 1; day <= 7; day++) {
+            CheckinResponse response = checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(day));
+            assertThat(response.getCheckinOrder()).isEqualTo(day);
+        }
+
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(8)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Maximum 7 check-ins per month reached");
+
+        assertThat(jdbcTemplate.queryForList("SELECT points_earned FROM daily_checkin ORDER BY checkin_order",
+                Integer.class)).containsExactly(1, 2, 3, 5, 8, 13, 21);
+        assertThat(jdbcTemplate.queryForObject("SELECT total_points FROM users WHERE id = ?", Integer.class, USER_ID))
+                .isEqualTo(153);
+        assertThat(jdbcTemplate.queryForMap("SELECT checkin_count, last_order, points_earned " +
+                "FROM user_monthly_checkin WHERE user_id = ?", USER_ID))
+                .containsEntry("checkin_count", 7)
+                .containsEntry("last_order", 7)
+                .containsEntry("points_earned", 53);
+    }
+
+    @Test
+    void checkin_mapsDuplicateKeyToAlreadyCheckedInAndRollsBackReservation() {
+        checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(1));
+
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(1)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("You have already checked in today");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT checkin_count FROM user_monthly_checkin WHERE user_id = ?",
+                Integer.class, USER_ID)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT total_points FROM users WHERE id = ?", Integer.class, USER_ID))
+                .isEqualTo(101);
+    }
+
+    @Test
+    void checkin_issuesReserveInsertIncrementReadBackAndHistoryOnly() {
+        // First check-in of the month creates the summary row (standard path) and warms the history id pool
+        checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(1));
+        SqlStatementRecorder.clear();
+
+        CheckinResponse response = checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(2));
+
+        assertThat(response.getCheckinOrder()).isEqualTo(2);
+        assertThat(response.getPointsEarned()).isEqualTo(2);
+        assertThat(response.getTotalPoints()).isEqualTo(103);
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM daily_checkin WHERE checkin_date = ?",
+                Timestamp.class, MONTH.atDay(2))).isEqualTo(Timestamp.valueOf(NOW));
+        assertThat(jdbcTemplate.queryForObject("SELECT updated_at FROM user_monthly_checkin WHERE user_id = ?",
+                Timestamp.class, USER_ID)).isEqualTo(Timestamp.valueOf(NOW));
+        assertThat(SqlStatementRecorder.statements())
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .satisfiesExactly(
+                        sql -> assertThat(sql).startsWith("update user_monthly_checkin"),
+                        sql -> assertThat(sql).startsWith("insert into daily_checkin"),
+                        sql -> assertThat(sql).startsWith("update users"),
+                        sql -> assertThat(sql).startsWith("select d.checkin_order"),
+                        sql -> assertThat(sql).startsWith("insert into user_points_history"));
+    }
+}
@@ -0,0 +1,233 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.CheckinConfig;
+import vn.ghtk.loyalty.config.ClockConfig;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.dto.response.CheckinResponse;
+import vn.ghtk.loyalty.entity.UserMonthlyCheckin;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.job.MonthlyCheckinSummaryBackfillJob;
+import vn.ghtk.loyalty.support.InMemoryPointsEventSink;
+import vn.ghtk.loyalty.support.SqlStatementRecorder;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs outside the test transaction so every check-in commits on its own, as it does in production.
+ * Uses the default points sequence 1,2,3,5,8,13,21 and 7 check-ins per month.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        CheckinTransactionServiceImpl.class,
+        PointsHistoryWriterImpl.class,
+        PointsOutboxServiceImpl.class,
+        MonthlyCheckinSummaryBackfillJob.class,
+        CheckinConfig.class,
+        PointsConfig.class,
+        OutboxConfig.class,
+        ClockConfig.class,
+        InMemoryPointsEventSink.class,
+        SimpleMeterRegistry.class
+})
+class CheckinTransactionServiceImplTest {
+
+    private static final long USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+    private static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+    @Autowired
+    private CheckinTransactionServiceImpl checkinTransactionService;
+
+    @Autowired
+    private MonthlyCheckinSummaryBackfillJob backfillJob;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (long id : new long[]{USER_ID, OTHER_USER_ID}) {
+            jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                    "VALUES (?, ?, 'x', 'User', 0, CURRENT_TIMESTAMP)", id, "user" + id);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_monthly_checkin");
+        jdbcTemplate.update("DELETE FROM daily_checkin");
+        jdbcTemplate.update("DELETE FROM user_points_history");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void checkin_maintainsMonthlySummaryAndEnforcesAdmissionAndLimitFromIt() {
+        for (int day = 1; day <= 7; day++) {
+            CheckinResponse response = checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(day));
+            assertThat(response.getCheckinOrder()).isEqualTo(day);
+        }
+
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(7)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("You have already checked in today");
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(8)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Maximum 7 check-ins per month reached");
+
+        assertThat(summary(USER_ID, MONTH))
+                .containsEntry("checkin_count", 7)
+                .containsEntry("last_order", 7)
+                .containsEntry("points_earned", 53)
+                .containsEntry("last_checkin_date", Date.valueOf(MONTH.atDay(7)));
+        assertThat(jdbcTemplate.queryForObject("SELECT total_points FROM users WHERE id = ?", Integer.class, USER_ID))
+                .isEqualTo(53);
+
+        // A new month starts a new summary row
+        assertThat(checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.plusMonths(1).atDay(1))
+                .getCheckinOrder()).isEqualTo(1);
+    }
+
+    @Test
+    void checkin_countsRejectionsByReason() {
+        double alreadyBefore = rejections(MetricsUtil.REASON_ALREADY_CHECKED_IN);
+        double capBefore = rejections(MetricsUtil.REASON_MONTHLY_CAP);
+        jdbcTemplate.update("INSERT INTO user_monthly_checkin (user_id, checkin_month, checkin_count, last_order, " +
+                "points_earned, last_checkin_date, updated_at) VALUES (?, ?, 7, 7, 53, ?, CURRENT_TIMESTAMP)",
+                USER_ID, UserMonthlyCheckin.monthKey(MONTH), MONTH.atDay(10));
+
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(10)))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(11)))
+                .isInstanceOf(BusinessException.class);
+
+        assertThat(rejections(MetricsUtil.REASON_ALREADY_CHECKED_IN) - alreadyBefore).isEqualTo(1);
+        assertThat(rejections(MetricsUtil.REASON_MONTHLY_CAP) - capBefore).isEqualTo(1);
+    }
+
+    @Test
+    void checkin_createsMissingSummaryFromExistingCheckins() {
+        insertCheckin(USER_ID, MONTH.atDay(1), 1, 1);
+        insertCheckin(USER_ID, MONTH.atDay(2), 2, 2);
+
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(2)))
+                .hasMessage("You have already checked in today");
+
+        CheckinResponse response = checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(5));
+
+        assertThat(response.getCheckinOrder()).isEqualTo(3);
+        assertThat(response.getPointsEarned()).isEqualTo(3);
+        assertThat(summary(USER_ID, MONTH))
+                .containsEntry("checkin_count", 3)
+                .containsEntry("last_order", 3)
+                .containsEntry("points_earned", 6);
+    }
+
+    @Test
+    void checkin_rejectsACheckinTheSummaryMissedAsAlreadyCheckedIn() {
+        // The summary still says day 1 while daily_checkin already has today's row
+        insertCheckin(USER_ID, MONTH.atDay(1), 1, 1);
+        insertCheckin(USER_ID, MONTH.atDay(2), 2, 2);
+        jdbcTemplate.update("INSERT INTO user_monthly_checkin (user_id, checkin_month, checkin_count, last_order, " +
+                "points_earned, last_checkin_date, updated_at) VALUES (?, ?, 1, 1, 1, ?, CURRENT_TIMESTAMP)",
+                USER_ID, UserMonthlyCheckin.monthKey(MONTH), MONTH.atDay(1));
+
+        assertThatThrownBy(() -> checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(2)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("You have already checked in today");
+
+        assertThat(summary(USER_ID, MONTH)).containsEntry("checkin_count", 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT total_points FROM users WHERE id = ?", Integer.class, USER_ID))
+                .isZero();
+    }
+
+    @Test
+    void checkin_readsUserAndLockedSummaryThenWritesCheckinBalanceSummaryAndHistory() {
+        // First check-in of the month creates the summary row and warms the history id pool
+        checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(1));
+        SqlStatementRecorder.clear();
+
+        checkinTransactionService.doCheckinTransactional(USER_ID, MONTH.atDay(2));
+
+        assertThat(SqlStatementRecorder.statements())
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .satisfiesExactly(
+                        sql -> assertThat(sql).startsWith("select").contains("from users"),
+                        sql -> assertThat(sql).startsWith("select").contains("from user_monthly_checkin"),
+                        sql -> assertThat(sql).startsWith("insert into daily_checkin"),
+                        sql -> assertThat(sql).startsWith("insert into user_points_history"),
+                        sql -> assertThat(sql).startsWith("update users"),
+                        sql -> assertThat(sql).startsWith("update user_monthly_checkin"));
+    }
+
+    @Test
+    void backfill_createsOnlyMissingSummaryRows() {
+        insertCheckin(USER_ID, MONTH.atDay(1), 1, 1);
+        insertCheckin(USER_ID, MONTH.atDay(3), 2, 2);
+        insertCheckin(OTHER_USER_ID, MONTH.atDay(2), 1, 1);
+        insertCheckin(OTHER_USER_ID, MONTH.plusMonths(1).atDay(2), 2, 2);
+        checkinTransactionService.doCheckinTransactional(OTHER_USER_ID, MONTH.atDay(4));
+
+        assertThat(backfillJob.backfill(MONTH)).isEqualTo(1);
+        assertThat(backfillJob.backfill(MONTH)).isZero();
+
+        assertThat(summary(USER_ID, MONTH))
+                .containsEntry("checkin_count", 2)
+                .containsEntry("last_order", 2)
+                .containsEntry("points_earned", 3)
+                .containsEntry("last_checkin_date", Date.valueOf(MONTH.atDay(3)));
+        assertThat(summary(OTHER_USER_ID, MONTH))
+                .containsEntry("checkin_count", 2)
+                .containsEntry("last_order", 2);
+    }
+
+    private double rejections(String reason) {
+        Counter counter = meterRegistry.find(MetricsUtil.REJECTIONS)
+                .tags("reason", reason, "stage", MetricsUtil.STAGE_TRANSACTION)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private void insertCheckin(long userId, LocalDate date, int order, int points) {
+        jdbcTemplate.update("INSERT INTO daily_checkin (user_id, checkin_date, points_earned, checkin_order, created_at) " +
+                "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)", userId, date, points, order);
+    }
+
+    private Map<String, Object> summary(long userId, YearMonth month) {
+        return jdbcTemplate.queryForMap("SELECT checkin_count, last_order, points_earned, last_checkin_date " +
+                "FROM user_monthly_checkin WHERE user_id = ? AND checkin_month = ?",
+                userId, month.getYear() * 100 + month.getMonthValue());
+    }
+}
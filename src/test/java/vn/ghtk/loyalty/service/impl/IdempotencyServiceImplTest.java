@@ -0,0 +1,146 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.IdempotencyConfig;
+import vn.ghtk.loyalty.dto.response.CheckinResponse;
+import vn.ghtk.loyalty.exception.BusinessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the claim/release Lua scripts against an in-process Redis (jedis-mock).
+ */
+class IdempotencyServiceImplTest {
+
+    private static final long USER_ID = 1L;
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, String> redisTemplate;
+    private IdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        IdempotencyConfig config = new IdempotencyConfig();
+        ReflectionTestUtils.setField(config, "ttlHours", 24L);
+        ReflectionTestUtils.setField(config, "pendingTtlSeconds", 30L);
+        idempotencyService = new IdempotencyServiceImpl(redisTemplate,
+                new ReactiveStringRedisTemplate(connectionFactory), new ObjectMapper(), config);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void execute_replaysStoredResponseWithoutRunningActionAgain() {
+        AtomicInteger runs = new AtomicInteger();
+        CheckinResponse original = CheckinResponse.builder()
+                .success(true)
+                .message("Check-in successful")
+                .pointsEarned(5)
+                .totalPoints(11)
+                .checkinOrder(4)
+                .build();
+
+        CheckinResponse first = idempotencyService.execute("checkin", USER_ID, "key-1", CheckinResponse.class, () -> {
+            runs.incrementAndGet();
+            return original;
+        });
+        CheckinResponse replay = idempotencyService.execute("checkin", USER_ID, "key-1", CheckinResponse.class, () -> {
+            runs.incrementAndGet();
+            return CheckinResponse.builder().build();
+        });
+
+        assertThat(runs).hasValue(1);
+        assertThat(first).isEqualTo(original);
+        assertThat(replay).isEqualTo(original);
+        assertThat(redisTemplate.getExpire("idempotency:checkin:1:key-1")).isPositive();
+    }
+
+    @Test
+    void execute_releasesClaimWhenActionFails() {
+        assertThatThrownBy(() -> idempotencyService.execute("deduct", USER_ID, "key-2", Boolean.class, () -> {
+            throw new BusinessException("Insufficient points. Current points: 0");
+        })).isInstanceOf(BusinessException.class);
+
+        assertThat(redisTemplate.hasKey("idempotency:deduct:1:key-2")).isFalse();
+        assertThat(idempotencyService.execute("deduct", USER_ID, "key-2", Boolean.class, () -> Boolean.TRUE)).isTrue();
+    }
+
+    @Test
+    void execute_rejectsConcurrentRequestWithSameKey() {
+        redisTemplate.opsForValue().set("idempotency:deduct:1:key-3", "P:other-request");
+
+        assertThatThrownBy(() -> idempotencyService.execute("deduct", USER_ID, "key-3", Boolean.class, () -> Boolean.TRUE))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("A request with this Idempotency-Key is still being processed");
+    }
+
+    @Test
+    void execute_scopesKeysPerUser() {
+        idempotencyService.execute("deduct", USER_ID, "key-4", Boolean.class, () -> Boolean.TRUE);
+
+        AtomicInteger runs = new AtomicInteger();
+        idempotencyService.execute("deduct", 2L, "key-4", Boolean.class, () -> runs.incrementAndGet() > 0);
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void executeAsync_sharesStoreWithBlockingVariant() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+
+        Boolean first = idempotencyService.executeAsync("deduct", USER_ID, "key-5", Boolean.class,
+                () -> CompletableFuture.supplyAsync(() -> runs.incrementAndGet() > 0)).get(5, TimeUnit.SECONDS);
+        Boolean asyncReplay = idempotencyService.executeAsync("deduct", USER_ID, "key-5", Boolean.class,
+                () -> CompletableFuture.completedFuture(runs.incrementAndGet() < 0)).get(5, TimeUnit.SECONDS);
+        Boolean blockingReplay = idempotencyService.execute("deduct", USER_ID, "key-5", Boolean.class,
+                () -> runs.incrementAndGet() < 0);
+
+        assertThat(runs).hasValue(1);
+        assertThat(first).isTrue();
+        assertThat(asyncReplay).isTrue();
+        assertThat(blockingReplay).isTrue();
+    }
+
+    @Test
+    void executeAsync_releasesClaimWhenActionFails() {
+        CompletableFuture<Boolean> failed = idempotencyService.executeAsync("deduct", USER_ID, "key-6", Boolean.class,
+                () -> CompletableFuture.failedFuture(new BusinessException("Insufficient points. Current points: 0")));
+
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(BusinessException.class);
+        assertThat(redisTemplate.hasKey("idempotency:deduct:1:key-6")).isFalse();
+    }
+}
@@ -0,0 +1,89 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.AuthConfig;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * Runs the throttle Lua scripts against an in-process Redis (jedis-mock).
+ */
+class LoginThrottleServiceImplTest {
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, String> redisTemplate;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoginThrottleServiceImpl throttleService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        AuthConfig config = new AuthConfig();
+        ReflectionTestUtils.setField(config, "throttleEnabled", true);
+        ReflectionTestUtils.setField(config, "maxFailuresPerUsername", 2);
+        ReflectionTestUtils.setField(config, "maxFailuresPerIp", 3);
+        ReflectionTestUtils.setField(config, "throttleWindowSeconds", 600L);
+        throttleService = new LoginThrottleServiceImpl(redisTemplate, config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void usernameIsThrottledAfterMaxFailuresUntilALoginSucceeds() {
+        throttleService.recordFailure("john", "10.0.0.1");
+        assertThatCode(() -> throttleService.checkAllowed("john", "10.0.0.1")).doesNotThrowAnyException();
+        throttleService.recordFailure("john", "10.0.0.2");
+
+        ServerBusyException throttled = catchThrowableOfType(
+                () -> throttleService.checkAllowed("john", "10.0.0.3"), ServerBusyException.class);
+        assertThat(throttled.getRetryAfterSeconds()).isBetween(1L, 600L);
+        assertThat(meterRegistry.get(MetricsUtil.REJECTIONS)
+                .tag("reason", MetricsUtil.REASON_LOGIN_THROTTLED)
+                .counter().count()).isEqualTo(1);
+        assertThat(redisTemplate.getExpire("login:fail:user:john")).isBetween(1L, 600L);
+
+        throttleService.recordSuccess("john");
+        assertThatCode(() -> throttleService.checkAllowed("john", "10.0.0.3")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void ipIsThrottledAcrossUsernamesAndSurvivesSuccessfulLogins() {
+        throttleService.recordFailure("a", "10.0.0.9");
+        throttleService.recordFailure("b", "10.0.0.9");
+        throttleService.recordFailure("c", "10.0.0.9");
+        throttleService.recordSuccess("c");
+
+        assertThatThrownBy(() -> throttleService.checkAllowed("d", "10.0.0.9"))
+                .isInstanceOf(ServerBusyException.class);
+        assertThatCode(() -> throttleService.checkAllowed("d", "10.0.0.10")).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,92 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.AuthConfig;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceImplTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void matches_shedsWithoutHashingWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.matches(rawPassword, encodedPassword);
+            }
+        };
+        PasswordHashingServiceImpl service = newService(blockingEncoder, 4);
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        // One thread busy, one task queued: the next one is rejected
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> service.matches("secret", hash));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = service.encodeAsync("other");
+
+        assertThatThrownBy(() -> service.matches("secret", hash))
+                .isInstanceOf(ServerBusyException.class)
+                .extracting("retryAfterSeconds").isEqualTo(2L);
+        assertThat(meterRegistry.get(MetricsUtil.REJECTIONS)
+                .tag("reason", MetricsUtil.REASON_OVERLOADED)
+                .tag("stage", MetricsUtil.STAGE_PASSWORD_HASHING)
+                .counter().count()).isEqualTo(1);
+        assertThat(service.encodeAsync("dropped")).isCompletedExceptionally();
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).startsWith("$2a$04$");
+        assertThat(meterRegistry.get(PasswordHashingServiceImpl.HASH_TIMER)
+                .tag("operation", "matches")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void needsRehash_onlyForBcryptHashesWithAnotherCost() {
+        PasswordHashingServiceImpl service = newService(new BCryptPasswordEncoder(5), 5);
+
+        assertThat(service.needsRehash(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(service.needsRehash(new BCryptPasswordEncoder(6).encode("secret"))).isTrue();
+        assertThat(service.needsRehash(new BCryptPasswordEncoder(5).encode("secret"))).isFalse();
+        assertThat(service.needsRehash("plain")).isFalse();
+        assertThat(service.needsRehash(null)).isFalse();
+    }
+
+    private PasswordHashingServiceImpl newService(PasswordEncoder encoder, int strength) {
+        AuthConfig config = new AuthConfig();
+        ReflectionTestUtils.setField(config, "bcryptStrength", strength);
+        ReflectionTestUtils.setField(config, "hashingThreads", 1);
+        ReflectionTestUtils.setField(config, "hashingQueueCapacity", 1);
+        ReflectionTestUtils.setField(config, "hashingRetryAfterSeconds", 2L);
+        executor = config.passwordHashingExecutor();
+        return new PasswordHashingServiceImpl(encoder, executor, config, meterRegistry);
+    }
+}
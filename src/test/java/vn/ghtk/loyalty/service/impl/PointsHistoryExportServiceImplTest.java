@@ -0,0 +1,122 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import vn.ghtk.loyalty.enums.PointsHistoryExportFormat;
+import vn.ghtk.loyalty.service.ReadRoutingService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({
+        PointsHistoryExportServiceImpl.class,
+        JacksonAutoConfiguration.class,
+        SimpleMeterRegistry.class,
+        PointsHistoryExportServiceImplTest.Stubs.class
+})
+class PointsHistoryExportServiceImplTest {
+
+    @Autowired
+    private PointsHistoryExportServiceImpl exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        ReadRoutingService readRoutingService() {
+            return userId -> {
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        insertUser(1);
+        insertUser(2);
+        insertHistory(1, 5, "EARN", "Check-in, day 1", "2025-01-01 09:00:00");
+        insertHistory(1, -3, "DEDUCT", "Voucher", "2025-01-20 12:30:00");
+        insertHistory(1, 8, "EARN", null, "2025-02-01 09:00:00");
+        insertHistory(2, 2, "EARN", null, "2025-01-15 09:00:00");
+    }
+
+    @Test
+    void export_ndjsonOfOneUserInAMonth() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(1L, YearMonth.of(2025, 1), PointsHistoryExportFormat.NDJSON, out);
+
+        assertThat(rows).isEqualTo(2);
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertThat(lines).extracting(line -> line.get("points").asInt()).containsExactly(5, -3);
+        assertThat(lines.get(1).get("user_id").asLong()).isEqualTo(1);
+        assertThat(lines.get(1).get("transaction_type").asText()).isEqualTo("DEDUCT");
+        assertThat(lines.get(1).get("created_at").asText()).isEqualTo("2025-01-20 12:30:00");
+    }
+
+    @Test
+    void export_csvOfEveryUserInAMonth() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(null, YearMonth.of(2025, 1), PointsHistoryExportFormat.CSV, out);
+
+        assertThat(rows).isEqualTo(3);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).isEqualTo("id,user_id,points,transaction_type,description,created_at");
+        assertThat(lines.subList(1, 4)).extracting(line -> line.split(",")[1]).containsExactly("1", "1", "2");
+        assertThat(lines.get(1)).contains(",5,EARN,\"Check-in, day 1\",").contains("2025-01-01 09:00:00");
+    }
+
+    @Test
+    void export_wholeHistoryOfOneUser() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exportService.export(1L, null, PointsHistoryExportFormat.NDJSON, out)).isEqualTo(3);
+        assertThat(exportService.export(3L, null, PointsHistoryExportFormat.NDJSON, new ByteArrayOutputStream()))
+                .isZero();
+    }
+
+    private void insertUser(long id) {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, ?, 'x', ?, 0, CURRENT_TIMESTAMP)", id, "user" + id, "User " + id);
+    }
+
+    private void insertHistory(long userId, int points, String type, String description, String createdAt) {
+        jdbcTemplate.update("INSERT INTO user_points_history (user_id, points, transaction_type, description, " +
+                "created_at) VALUES (?, ?, ?, ?, ?)", userId, points, type, description,
+                Timestamp.valueOf(createdAt));
+    }
+}
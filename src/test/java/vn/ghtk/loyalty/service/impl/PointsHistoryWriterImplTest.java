@@ -0,0 +1,123 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.enums.PointsTransactionType;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Write-behind mode with tiny batches and buffer limit, outside the test transaction so every write commits.
+ */
+@DataJpaTest(properties = {
+        "loyalty.points.history-write-mode=WRITE_BEHIND",
+        "loyalty.points.history-flush-batch-size=2",
+        "loyalty.points.history-buffer-max-pending=3"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PointsHistoryWriterImpl.class, PointsConfig.class, SimpleMeterRegistry.class})
+class PointsHistoryWriterImplTest {
+
+    private static final long USER_ID = 1L;
+
+    @Autowired
+    private PointsHistoryWriterImpl pointsHistoryWriter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, 'user1', 'x', 'User 1', 0, CURRENT_TIMESTAMP)", USER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_points_history_buffer");
+        jdbcTemplate.update("DELETE FROM user_points_history");
+        jdbcTemplate.update("DELETE FROM users");
+        pointsHistoryWriter.refreshBacklog();
+    }
+
+    @Test
+    void flush_movesBufferedEntriesInBatchesKeepingIdsAndTimestamps() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 1; i <= 3; i++) {
+                pointsHistoryWriter.record(history(i, null));
+            }
+        });
+        List<Map<String, Object>> buffered = jdbcTemplate.queryForList(
+                "SELECT id, points, created_at FROM user_points_history_buffer ORDER BY id");
+        assertThat(buffered).hasSize(3);
+        assertThat(historyCount()).isZero();
+
+        assertThat(pointsHistoryWriter.flush()).isEqualTo(2);
+        assertThat(pointsHistoryWriter.flush()).isEqualTo(1);
+        assertThat(pointsHistoryWriter.flush()).isZero();
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT id, points, created_at FROM user_points_history ORDER BY id")).isEqualTo(buffered);
+        assertThat(pointsHistoryWriter.refreshBacklog()).isZero();
+    }
+
+    @Test
+    void record_writesSynchronouslyWithIdempotencyKeyOrWhenBufferIsFull() {
+        transactionTemplate.executeWithoutResult(status -> pointsHistoryWriter.record(history(1, "key-1")));
+        assertThat(historyCount()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 2; i <= 4; i++) {
+                pointsHistoryWriter.record(history(i, null));
+            }
+        });
+        assertThat(pointsHistoryWriter.refreshBacklog()).isEqualTo(3);
+
+        transactionTemplate.executeWithoutResult(status -> pointsHistoryWriter.record(history(5, null)));
+        assertThat(historyCount()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_points_history_buffer", Integer.class))
+                .isEqualTo(3);
+    }
+
+    private int historyCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_points_history", Integer.class);
+    }
+
+    private UserPointsHistory history(int points, String idempotencyKey) {
+        return UserPointsHistory.builder()
+                .userId(USER_ID)
+                .points(points)
+                .transactionType(PointsTransactionType.EARN)
+                .description("Points earned")
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.ghtk.loyalty.config.ClockConfig;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.entity.UserPointsHistory;
+import vn.ghtk.loyalty.enums.PointsTransactionType;
+import vn.ghtk.loyalty.event.PointsEvent;
+import vn.ghtk.loyalty.support.InMemoryPointsEventSink;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Outbox enabled with batches of two, outside the test transaction so writes and relays commit on their own.
+ */
+@DataJpaTest(properties = {
+        "loyalty.outbox.enabled=true",
+        "loyalty.outbox.relay-batch-size=2"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        PointsOutboxServiceImpl.class,
+        OutboxConfig.class,
+        ClockConfig.class,
+        InMemoryPointsEventSink.class,
+        SimpleMeterRegistry.class
+})
+class PointsOutboxServiceImplTest {
+
+    @Autowired
+    private PointsOutboxServiceImpl pointsOutboxService;
+
+    @Autowired
+    private InMemoryPointsEventSink sink;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM points_event_outbox");
+        sink.clear();
+    }
+
+    @Test
+    void relayBatch_publishesInIdOrderAndDeletesPublishedEvents() {
+        transactionTemplate.executeWithoutResult(status -> pointsOutboxService.record(List.of(
+                change(1L, 5, PointsTransactionType.CHECKIN),
+                change(2L, -3, PointsTransactionType.DEDUCT),
+                change(1L, 8, PointsTransactionType.CHECKIN))));
+
+        assertThat(pointsOutboxService.relayBatch()).isEqualTo(2);
+        assertThat(pointsOutboxService.relayBatch()).isEqualTo(1);
+        assertThat(pointsOutboxService.relayBatch()).isZero();
+
+        assertThat(sink.events()).extracting(PointsEvent::userId, PointsEvent::points)
+                .containsExactly(
+                        tuple(1L, 5),
+                        tuple(2L, -3),
+                        tuple(1L, 8));
+        assertThat(sink.events()).extracting(PointsEvent::eventId).isSorted();
+        assertThat(outboxCount()).isZero();
+    }
+
+    @Test
+    void relayBatch_keepsBatchForRedeliveryWhenSinkFails() {
+        transactionTemplate.executeWithoutResult(status -> pointsOutboxService.record(List.of(
+                change(1L, 5, PointsTransactionType.CHECKIN))));
+
+        sink.failNext();
+        assertThatThrownBy(() -> pointsOutboxService.relayBatch()).isInstanceOf(IllegalStateException.class);
+        assertThat(outboxCount()).isEqualTo(1);
+
+        assertThat(pointsOutboxService.relayBatch()).isEqualTo(1);
+        assertThat(sink.events()).hasSize(1);
+        assertThat(outboxCount()).isZero();
+    }
+
+    @Test
+    void record_isRolledBackWithTheChange() {
+        transactionTemplate.executeWithoutResult(status -> {
+            pointsOutboxService.record(List.of(change(1L, 5, PointsTransactionType.CHECKIN)));
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxCount()).isZero();
+    }
+
+    private int outboxCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM points_event_outbox", Integer.class);
+    }
+
+    private UserPointsHistory change(Long userId, int points, PointsTransactionType type) {
+        return UserPointsHistory.builder()
+                .userId(userId)
+                .points(points)
+                .transactionType(type)
+                .description(type.name())
+                .build();
+    }
+}
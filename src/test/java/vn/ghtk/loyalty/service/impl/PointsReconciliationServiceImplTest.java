@@ -0,0 +1,151 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.ReconciliationConfig;
+import vn.ghtk.loyalty.dto.response.UserProfileResponse;
+import vn.ghtk.loyalty.dto.response.UserResponse;
+import vn.ghtk.loyalty.repository.UserRepositoryCustom.LedgerBalance;
+import vn.ghtk.loyalty.service.PointsReconciliationService.Report;
+import vn.ghtk.loyalty.service.UserCacheService;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ranges of 2 users on 3 workers over 5 users, committed outside the test transaction so the workers see them.
+ */
+@DataJpaTest(properties = {
+        "loyalty.reconciliation.threads=3",
+        "loyalty.reconciliation.range-size=2",
+        "loyalty.reconciliation.fetch-size=2",
+        "loyalty.reconciliation.max-rows-per-second=0"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        PointsReconciliationServiceImpl.class,
+        ReconciliationConfig.class,
+        SimpleMeterRegistry.class,
+        PointsReconciliationServiceImplTest.Stubs.class
+})
+class PointsReconciliationServiceImplTest {
+
+    @Autowired
+    private PointsReconciliationServiceImpl reconciliationService;
+
+    @Autowired
+    private RecordingUserCacheService userCacheService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        RecordingUserCacheService userCacheService() {
+            return new RecordingUserCacheService();
+        }
+    }
+
+    static class RecordingUserCacheService implements UserCacheService {
+
+        final Queue<Long> evicted = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public UserProfileResponse getProfile(Long userId, YearMonth month, Supplier<UserProfileResponse> loader) {
+            return loader.get();
+        }
+
+        @Override
+        public UserResponse getUser(Long userId, Supplier<UserResponse> loader) {
+            return loader.get();
+        }
+
+        @Override
+        public void evict(Collection<Long> userIds) {
+            evicted.addAll(userIds);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // User 2 lost an update, user 4 has a buffered row that is counted, user 5 has no history
+        insertUser(1, 15, 10, 5);
+        insertUser(2, 8, 10, -1);
+        insertUser(3, 0);
+        insertUser(4, 7, 3);
+        jdbcTemplate.update("INSERT INTO user_points_history_buffer " +
+                "(id, user_id, points, transaction_type, created_at) VALUES (1000, 4, 4, 'EARN', CURRENT_TIMESTAMP)");
+        insertUser(5, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_points_history_buffer");
+        jdbcTemplate.update("DELETE FROM user_points_history");
+        jdbcTemplate.update("DELETE FROM users");
+        userCacheService.evicted.clear();
+    }
+
+    @Test
+    void reconcile_reportsDriftWithoutRepairing() {
+        Report report = reconciliationService.reconcile(false);
+
+        assertThat(report.usersChecked()).isEqualTo(5);
+        assertThat(report.ledgerRowsScanned()).isEqualTo(6);
+        assertThat(report.mismatchCount()).isEqualTo(2);
+        assertThat(report.repaired()).isZero();
+        assertThat(report.mismatches()).containsExactlyInAnyOrder(
+                new LedgerBalance(2, 8, 9), new LedgerBalance(5, 3, 0));
+        assertThat(balance(2)).isEqualTo(8);
+        assertThat(userCacheService.evicted).isEmpty();
+    }
+
+    @Test
+    void reconcile_repairsDriftAndEvictsTheCachedBalances() {
+        Report report = reconciliationService.reconcile(true);
+
+        assertThat(report.repaired()).isEqualTo(2);
+        assertThat(balance(2)).isEqualTo(9);
+        assertThat(balance(5)).isZero();
+        assertThat(userCacheService.evicted).containsExactlyInAnyOrder(2L, 5L);
+        assertThat(reconciliationService.reconcile(false).mismatchCount()).isZero();
+    }
+
+    private void insertUser(long id, int balance, int... history) {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, ?, 'x', ?, ?, CURRENT_TIMESTAMP)", id, "user" + id, "User " + id, balance);
+        for (int points : history) {
+            jdbcTemplate.update("INSERT INTO user_points_history (user_id, points, transaction_type, created_at) " +
+                    "VALUES (?, ?, 'EARN', CURRENT_TIMESTAMP)", id, points);
+        }
+    }
+
+    private int balance(long userId) {
+        return jdbcTemplate.queryForObject("SELECT total_points FROM users WHERE id = ?", Integer.class, userId);
+    }
+}
@@ -0,0 +1,263 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.LimiterConfig;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationItemRequest;
+import vn.ghtk.loyalty.dto.response.PointsMutationResult;
+import vn.ghtk.loyalty.enums.PointsDeductionMode;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+import vn.ghtk.loyalty.service.PointsTransactionService;
+import vn.ghtk.loyalty.support.InMemoryRedissonClient;
+import vn.ghtk.loyalty.util.AdaptiveConcurrencyLimiter;
+import vn.ghtk.loyalty.util.MetricsUtil;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Async deduction against in-memory locks; the DB transaction is a stub.
+ */
+class PointsServiceImplTest {
+
+    private static final long USER_ID = 1L;
+
+    private ThreadPoolTaskExecutor transactionExecutor;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PointsConfig pointsConfig = new PointsConfig();
+    private final RedissonClient redissonClient = InMemoryRedissonClient.create();
+    private final LimiterConfig limiterConfig = new LimiterConfig();
+    private AdaptiveConcurrencyLimiter limiter;
+    private Runnable deduction;
+
+    @BeforeEach
+    void setUp() {
+        transactionExecutor = newExecutor(2, 10);
+        ReflectionTestUtils.setField(pointsConfig, "deductionMode", PointsDeductionMode.LOCK);
+        ReflectionTestUtils.setField(limiterConfig, "enabled", false);
+        deduction = () -> {
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionExecutor.shutdown();
+    }
+
+    @Test
+    void deductPointsAsync_runsTheTransactionOnAWorkerUnderTheLock() throws Exception {
+        AtomicInteger deducted = new AtomicInteger();
+        deduction = () -> {
+            assertThat(Thread.currentThread().getName()).startsWith("tx-worker-");
+            // Owned by the request's id, not by the worker thread
+            assertThat(redissonClient.getLock("lock:points:deduct:1").isLocked()).isTrue();
+            assertThat(redissonClient.getLock("lock:points:deduct:1").isHeldByCurrentThread()).isFalse();
+            deducted.incrementAndGet();
+        };
+
+        newService().deductPointsAsync(USER_ID, new DeductPointsRequest(10), null).get(5, TimeUnit.SECONDS);
+
+        assertThat(deducted).hasValue(1);
+        assertThat(redissonClient.getLock("lock:points:deduct:1").isLocked()).isFalse();
+    }
+
+    @Test
+    void deductPointsAsync_lockWaitDoesNotTakeAWorker() throws Exception {
+        transactionExecutor.shutdown();
+        transactionExecutor = newExecutor(1, 10);
+        RLock userLock = redissonClient.getLock("lock:points:deduct:1");
+        userLock.lock();
+        PointsServiceImpl service = newService();
+        CompletableFuture<Void> waiting;
+        try {
+            waiting = service.deductPointsAsync(USER_ID, new DeductPointsRequest(10), null);
+
+            // The only worker is free while user 1 waits for its lock
+            service.deductPointsAsync(2L, new DeductPointsRequest(10), null).get(2, TimeUnit.SECONDS);
+            assertThat(waiting).isNotDone();
+        } finally {
+            userLock.unlock();
+        }
+
+        waiting.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void deductPointsAsync_concurrentRequestsOfAUserRunTheirTransactionsOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        deduction = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+        PointsServiceImpl service = newService();
+
+        CompletableFuture<Void> first = service.deductPointsAsync(USER_ID, new DeductPointsRequest(10), null);
+        CompletableFuture<Void> second = service.deductPointsAsync(USER_ID, new DeductPointsRequest(10), null);
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void deductPointsAsync_fullExecutorIsShedWith429() throws Exception {
+        transactionExecutor.shutdown();
+        transactionExecutor = newExecutor(1, 0);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        deduction = () -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        PointsServiceImpl service = newService();
+
+        CompletableFuture<Void> occupying = service.deductPointsAsync(USER_ID, new DeductPointsRequest(10), null);
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+        try {
+            assertThatThrownBy(() -> service.deductPointsAsync(2L, new DeductPointsRequest(10), null)
+                    .get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ServerBusyException.class);
+        } finally {
+            release.countDown();
+        }
+
+        occupying.get(5, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get(MetricsUtil.REJECTIONS)
+                .tag("reason", MetricsUtil.REASON_OVERLOADED)
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void deductPoints_fullLimiterShedsWithoutQueueing() throws Exception {
+        enableLimiter(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        deduction = () -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        PointsServiceImpl service = newService();
+
+        // Holds the only slot
+        CompletableFuture<Void> occupying = service.deductPointsAsync(USER_ID, new DeductPointsRequest(10), null);
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+        long started = System.nanoTime();
+        try {
+            assertThatThrownBy(() -> service.deductPoints(2L, new DeductPointsRequest(10), null))
+                    .isInstanceOf(ServerBusyException.class);
+            assertThatThrownBy(() -> service.deductPointsAsync(3L, new DeductPointsRequest(10), null)
+                    .get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ServerBusyException.class);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(1));
+        occupying.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void deductPoints_lockContentionOnOneUserDoesNotLowerTheLimitForOthers() throws Exception {
+        enableLimiter(4);
+        PointsServiceImpl service = newService();
+        // Learns the no-load latency
+        service.deductPoints(2L, new DeductPointsRequest(10), null);
+
+        RLock userLock = redissonClient.getLock("lock:points:deduct:1");
+        userLock.lock();
+        List<CompletableFuture<Void>> contended = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                contended.add(service.deductPointsAsync(USER_ID, new DeductPointsRequest(10), null));
+            }
+            Thread.sleep(300);
+
+            // Requests queued on user 1's lock hold no slot
+            service.deductPoints(2L, new DeductPointsRequest(10), null);
+            service.deductPointsAsync(3L, new DeductPointsRequest(10), null).get(5, TimeUnit.SECONDS);
+        } finally {
+            userLock.unlock();
+        }
+
+        CompletableFuture.allOf(contended.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        // Their time spent waiting for the lock was not sampled as transaction latency
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(meterRegistry.find(MetricsUtil.REJECTIONS).counter()).isNull();
+    }
+
+    private void enableLimiter(int maxLimit) {
+        ReflectionTestUtils.setField(limiterConfig, "enabled", true);
+        ReflectionTestUtils.setField(limiterConfig, "initialLimit", maxLimit);
+        ReflectionTestUtils.setField(limiterConfig, "minLimit", 1);
+        ReflectionTestUtils.setField(limiterConfig, "maxLimit", maxLimit);
+        ReflectionTestUtils.setField(limiterConfig, "retryAfterSeconds", 1L);
+    }
+
+    private PointsServiceImpl newService() {
+        limiter = new AdaptiveConcurrencyLimiter(limiterConfig, meterRegistry);
+        limiter.init();
+        return new PointsServiceImpl(null, redissonClient, new StubTransactions(), null, null, pointsConfig,
+                transactionExecutor, limiter, meterRegistry, Clock.systemUTC());
+    }
+
+    private static ThreadPoolTaskExecutor newExecutor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("tx-worker-");
+        executor.initialize();
+        return executor;
+    }
+
+    private class StubTransactions implements PointsTransactionService {
+
+        @Override
+        public void doDeductPointsTransactional(Long userId, DeductPointsRequest request, String idempotencyKey) {
+            deduction.run();
+        }
+
+        @Override
+        public void doDeductPointsConditional(Long userId, DeductPointsRequest request, String idempotencyKey) {
+            deduction.run();
+        }
+
+        @Override
+        public List<PointsMutationResult> doApplyMutationsTransactional(List<PointsMutationItemRequest> items,
+                                                                        Map<Long, List<Integer>> itemIndexesByUser,
+                                                                        String idempotencyKey) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package vn.ghtk.loyalty.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import vn.ghtk.loyalty.config.ClockConfig;
+import vn.ghtk.loyalty.config.OutboxConfig;
+import vn.ghtk.loyalty.config.PointsConfig;
+import vn.ghtk.loyalty.dto.request.DeductPointsRequest;
+import vn.ghtk.loyalty.dto.request.PointsMutationItemRequest;
+import vn.ghtk.loyalty.dto.response.PointsMutationResult;
+import vn.ghtk.loyalty.enums.PointsMutationType;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.support.InMemoryPointsEventSink;
+import vn.ghtk.loyalty.support.SqlStatementRecorder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs outside the test transaction so every deduction commits on its own, as it does in production.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        PointsTransactionServiceImpl.class,
+        PointsHistoryWriterImpl.class,
+        PointsOutboxServiceImpl.class,
+        PointsConfig.class,
+        OutboxConfig.class,
+        ClockConfig.class,
+        InMemoryPointsEventSink.class,
+        SimpleMeterRegistry.class
+})
+class PointsTransactionServiceImplTest {
+
+    private static final long USER_ID = 1L;
+    private static final int INITIAL_POINTS = 100;
+
+    @Autowired
+    private PointsTransactionServiceImpl pointsTransactionService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, 'user1', 'x', 'User 1', ?, CURRENT_TIMESTAMP)", USER_ID, INITIAL_POINTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_points_history");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void doDeductPointsConditional_neverOverdrawsUnderConcurrency() throws Exception {
+        int threads = 16;
+        int attempts = 50;
+        int pointsPerDeduction = 3;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        pointsTransactionService.doDeductPointsConditional(
+                                USER_ID, new DeductPointsRequest(pointsPerDeduction), null);
+                        return true;
+                    } catch (BusinessException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+
+            int expectedSuccesses = INITIAL_POINTS / pointsPerDeduction;
+            assertThat(succeeded).isEqualTo(expectedSuccesses);
+            assertThat(totalPoints()).isEqualTo(INITIAL_POINTS - expectedSuccesses * pointsPerDeduction);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM user_points_history WHERE user_id = ?", Integer.class, USER_ID))
+                    .isEqualTo(expectedSuccesses);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void doDeductPointsConditional_reportsInsufficientBalanceAndMissingUser() {
+        assertThatThrownBy(() -> pointsTransactionService.doDeductPointsConditional(
+                USER_ID, new DeductPointsRequest(INITIAL_POINTS + 1), null))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Insufficient points. Current points: " + INITIAL_POINTS);
+        assertThatThrownBy(() -> pointsTransactionService.doDeductPointsConditional(
+                999L, new DeductPointsRequest(1), null))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("User not found");
+        assertThat(totalPoints()).isEqualTo(INITIAL_POINTS);
+    }
+
+    @Test
+    void doDeductPointsConditional_rejectsReusedIdempotencyKeyInDatabase() {
+        pointsTransactionService.doDeductPointsConditional(USER_ID, new DeductPointsRequest(10), "order-1");
+
+        assertThatThrownBy(() -> pointsTransactionService.doDeductPointsConditional(
+                USER_ID, new DeductPointsRequest(10), "order-1"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(totalPoints()).isEqualTo(INITIAL_POINTS - 10);
+    }
+
+    @Test
+    void doApplyMutationsTransactional_appliesItemsInOrderWithBatchedWrites() {
+        long secondUserId = 2L;
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, 'user2', 'x', 'User 2', 0, CURRENT_TIMESTAMP)", secondUserId);
+        List<PointsMutationItemRequest> items = List.of(
+                mutation(USER_ID, PointsMutationType.DEDUCT, 60),
+                mutation(secondUserId, PointsMutationType.EARN, 10),
+                mutation(USER_ID, PointsMutationType.DEDUCT, 50),
+                mutation(999L, PointsMutationType.EARN, 1),
+                mutation(USER_ID, PointsMutationType.EARN, 5),
+                mutation(secondUserId, PointsMutationType.DEDUCT, 10));
+        Map<Long, List<Integer>> itemIndexesByUser = new LinkedHashMap<>();
+        itemIndexesByUser.put(USER_ID, List.of(0, 2, 4));
+        itemIndexesByUser.put(secondUserId, List.of(1, 5));
+        itemIndexesByUser.put(999L, List.of(3));
+        SqlStatementRecorder.clear();
+
+        List<PointsMutationResult> results = pointsTransactionService.doApplyMutationsTransactional(
+                items, itemIndexesByUser, null);
+
+        assertThat(results).extracting(PointsMutationResult::getIndex, PointsMutationResult::getSuccess,
+                        PointsMutationResult::getTotalPoints)
+                .containsExactly(
+                        tuple(0, true, 40),
+                        tuple(2, false, 40),
+                        tuple(4, true, 45),
+                        tuple(1, true, 10),
+                        tuple(5, true, 0),
+                        tuple(3, false, null));
+        assertThat(totalPoints()).isEqualTo(45);
+        assertThat(jdbcTemplate.queryForObject("SELECT total_points FROM users WHERE id = ?", Integer.class,
+                secondUserId)).isEqualTo(0);
+        // Four history rows, one prepared INSERT: the pooled sequence lets Hibernate batch them
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_points_history", Integer.class))
+                .isEqualTo(4);
+        assertThat(SqlStatementRecorder.statements())
+                .filteredOn(sql -> sql.startsWith("insert into user_points_history"))
+                .hasSize(1);
+    }
+
+    private PointsMutationItemRequest mutation(Long userId, PointsMutationType type, int points) {
+        return PointsMutationItemRequest.builder()
+                .userId(userId)
+                .type(type)
+                .points(points)
+                .build();
+    }
+
+    private int totalPoints() {
+        return jdbcTemplate.queryForObject("SELECT total_points FROM users WHERE id = ?", Integer.class, USER_ID);
+    }
+}
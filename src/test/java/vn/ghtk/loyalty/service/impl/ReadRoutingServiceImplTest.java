@@ -0,0 +1,261 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.github.fppt.jedismock.RedisServer;
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import vn.ghtk.loyalty.config.ClockConfig;
+import vn.ghtk.loyalty.config.ReplicaDataSourceConfig;
+import vn.ghtk.loyalty.dto.response.UserProfileResponse;
+import vn.ghtk.loyalty.dto.response.UserResponse;
+import vn.ghtk.loyalty.event.UserPointsChangedEvent;
+import vn.ghtk.loyalty.repository.UserRepository;
+import vn.ghtk.loyalty.service.UserCacheService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two H2 databases stand in for the primary and the replica; the same user id carries a different name in each,
+ * so every read shows which one served it.
+ */
+@DataJpaTest(properties = {
+        "loyalty.datasource.replica.enabled=true",
+        "loyalty.datasource.replica.url=jdbc:h2:mem:loyalty_replica_${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "loyalty.datasource.replica.username=sa",
+        "loyalty.datasource.replica.password=replica",
+        "loyalty.datasource.replica.read-your-writes-seconds=60"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        ReplicaDataSourceConfig.class,
+        ReadRoutingServiceImpl.class,
+        UserServiceImpl.class,
+        ClockConfig.class,
+        ReadRoutingServiceImplTest.Stubs.class
+})
+class ReadRoutingServiceImplTest {
+
+    private static final long USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${spring.jpa.open-in-view}")
+    private boolean openInView;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean(destroyMethod = "stop")
+        RedisServer redisServer() throws IOException {
+            return RedisServer.newRedisServer().start();
+        }
+
+        @Bean
+        LettuceConnectionFactory redisConnectionFactory(RedisServer redisServer) {
+            return new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        }
+
+        @Bean
+        RedisTemplate<String, String> redisTemplate(LettuceConnectionFactory connectionFactory) {
+            RedisTemplate<String, String> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.setDefaultSerializer(new StringRedisSerializer());
+            return template;
+        }
+
+        /**
+         * Same schema on the replica; the primary is migrated by Spring Boot's Liquibase.
+         */
+        @Bean
+        InitializingBean replicaSchema(@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+            return () -> {
+                SpringLiquibase liquibase = new SpringLiquibase();
+                liquibase.setDataSource(replicaDataSource);
+                liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.xml");
+                liquibase.afterPropertiesSet();
+            };
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return NoOpPasswordEncoder.getInstance();
+        }
+
+        /**
+         * Always loads, so every call reaches the database.
+         */
+        @Bean
+        UserCacheService userCacheService() {
+            return new UserCacheService() {
+                @Override
+                public UserProfileResponse getProfile(Long userId, YearMonth month,
+                                                      Supplier<UserProfileResponse> loader) {
+                    return loader.get();
+                }
+
+                @Override
+                public UserResponse getUser(Long userId, Supplier<UserResponse> loader) {
+                    return loader.get();
+                }
+
+                @Override
+                public void evict(Collection<Long> userIds) {
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (long id : new long[]{USER_ID, OTHER_USER_ID}) {
+            insertUser(primary, id, "On primary");
+            insertUser(replica, id, "On replica");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.update("DELETE FROM users");
+        replica.update("DELETE FROM users");
+        redisTemplate.delete(List.of("db:primary-pin:" + USER_ID, "db:primary-pin:" + OTHER_USER_ID));
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica_writesAndNonTransactionalWorkUsePrimary() {
+        assertThat(userService.getUserById(USER_ID).getName()).isEqualTo("On replica");
+        assertThat(userService.getUserProfile(USER_ID).getName()).isEqualTo("On replica");
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        String readInWriteTransaction = readWrite.execute(
+                status -> userRepository.findById(USER_ID).orElseThrow().getName());
+        assertThat(readInWriteTransaction).isEqualTo("On primary");
+
+        assertThat(new JdbcTemplate(dataSource).queryForObject(
+                "SELECT name FROM users WHERE id = ?", String.class, USER_ID)).isEqualTo("On primary");
+    }
+
+    @Test
+    void pointsChangePinsOnlyThatUserToPrimary() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(new UserPointsChangedEvent(List.of(USER_ID))));
+
+        assertThat(userService.getUserById(USER_ID).getName()).isEqualTo("On primary");
+        assertThat(userService.getUserById(OTHER_USER_ID).getName()).isEqualTo("On replica");
+        assertThat(redisTemplate.getExpire("db:primary-pin:" + USER_ID)).isBetween(1L, 60L);
+    }
+
+    @Test
+    void pinIsNotSetWhenTheWriteRollsBack() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new UserPointsChangedEvent(List.of(USER_ID)));
+            status.setRollbackOnly();
+        });
+
+        assertThat(userService.getUserById(USER_ID).getName()).isEqualTo("On replica");
+    }
+
+    @Test
+    void writeThenReadInOneRequestUsesPrimaryThenReplica() {
+        List<String> names = inOneRequest(() -> List.of(
+                new TransactionTemplate(transactionManager).execute(
+                        status -> userRepository.findById(OTHER_USER_ID).orElseThrow().getName()),
+                userService.getUserById(USER_ID).getName()));
+
+        assertThat(names).containsExactly("On primary", "On replica");
+    }
+
+    /**
+     * Runs {@code request} the way the web layer does with the application's {@code spring.jpa.open-in-view}.
+     */
+    private <T> T inOneRequest(Supplier<T> request) {
+        if (!openInView) {
+            return request.get();
+        }
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        WebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest());
+        interceptor.preHandle(webRequest);
+        try {
+            return request.get();
+        } finally {
+            interceptor.afterCompletion(webRequest, null);
+        }
+    }
+
+    private void insertUser(JdbcTemplate jdbcTemplate, long id, String name) {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, name, total_points, created_at) " +
+                "VALUES (?, ?, 'x', ?, 0, CURRENT_TIMESTAMP)", id, "user" + id, name);
+    }
+}
@@ -0,0 +1,114 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.AuthConfig;
+import vn.ghtk.loyalty.exception.BusinessException;
+import vn.ghtk.loyalty.service.RefreshTokenService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the rotate/revoke Lua scripts against an in-process Redis (jedis-mock).
+ */
+class RefreshTokenServiceImplTest {
+
+    private static final long USER_ID = 42L;
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, String> redisTemplate;
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        AuthConfig config = new AuthConfig();
+        ReflectionTestUtils.setField(config, "refreshTokenTtlDays", 30L);
+        refreshTokenService = new RefreshTokenServiceImpl(redisTemplate, config);
+        ReflectionTestUtils.setField(refreshTokenService, "secret", "test-secret");
+        refreshTokenService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void rotate_returnsUserAndNextTokenAndStoresOnlyDigests() {
+        String first = refreshTokenService.issue(USER_ID);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+        RefreshTokenService.Rotation next = refreshTokenService.rotate(rotation.refreshToken());
+
+        assertThat(rotation.userId()).isEqualTo(USER_ID);
+        assertThat(next.userId()).isEqualTo(USER_ID);
+        assertThat(next.refreshToken()).isNotEqualTo(rotation.refreshToken());
+        assertThat(redisTemplate.keys("auth:refresh:*"))
+                .noneMatch(key -> key.contains(first) || key.contains(rotation.refreshToken()));
+    }
+
+    @Test
+    void rotate_replayOfRotatedTokenRevokesTheFamily() {
+        String first = refreshTokenService.issue(USER_ID);
+        String current = refreshTokenService.rotate(first).refreshToken();
+        String otherSession = refreshTokenService.issue(USER_ID);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(first)).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> refreshTokenService.rotate(current)).isInstanceOf(BusinessException.class);
+        assertThat(refreshTokenService.rotate(otherSession).userId()).isEqualTo(USER_ID);
+    }
+
+    @Test
+    void rotate_keepsEveryKeyOfTheFamilyUnderItsHashTag() {
+        String first = refreshTokenService.issue(USER_ID);
+        String familyId = first.substring(0, first.indexOf('.'));
+
+        String next = refreshTokenService.rotate(first).refreshToken();
+
+        assertThat(next).startsWith(familyId + ".");
+        assertThat(redisTemplate.keys("auth:refresh:*"))
+                .hasSize(3)
+                .allMatch(key -> key.contains("{" + familyId + "}"));
+    }
+
+    @Test
+    void rotate_rejectsATokenWithoutAFamily() {
+        assertThatThrownBy(() -> refreshTokenService.rotate("unknown"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Invalid or expired refresh token");
+    }
+
+    @Test
+    void revoke_invalidatesTheTokenAndIgnoresUnknownOnes() {
+        String token = refreshTokenService.issue(USER_ID);
+
+        refreshTokenService.revoke(token);
+        refreshTokenService.revoke("unknown");
+        refreshTokenService.revoke("unknown.token");
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Invalid or expired refresh token");
+    }
+}
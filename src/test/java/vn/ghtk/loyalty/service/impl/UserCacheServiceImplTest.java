@@ -0,0 +1,189 @@
+package vn.ghtk.loyalty.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.UserCacheConfig;
+import vn.ghtk.loyalty.dto.response.UserResponse;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two cache "nodes" sharing one in-process Redis (jedis-mock) for L2 and the eviction channel.
+ */
+class UserCacheServiceImplTest {
+
+    private static final long USER_ID = 7L;
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+    private RedisTemplate<String, String> redisTemplate;
+    private UserCacheServiceImpl nodeA;
+    private UserCacheServiceImpl nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        nodeA = newNode();
+        nodeB = newNode();
+        containers.forEach(RedisMessageListenerContainer::start);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (RedisMessageListenerContainer container : containers) {
+            container.destroy();
+        }
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void getUser_loadsOnceAndSharesThroughRedis() {
+        AtomicInteger loads = new AtomicInteger();
+
+        UserResponse first = nodeA.getUser(USER_ID, () -> load(loads, 100));
+        UserResponse l1Hit = nodeA.getUser(USER_ID, () -> load(loads, 999));
+        UserResponse l2Hit = nodeB.getUser(USER_ID, () -> load(loads, 999));
+
+        assertThat(loads).hasValue(1);
+        assertThat(l1Hit).isSameAs(first);
+        assertThat(l2Hit).isEqualTo(first);
+    }
+
+    @Test
+    void evict_dropsL2AndOtherNodesL1() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        nodeA.getUser(USER_ID, () -> load(loads, 100));
+        nodeB.getUser(USER_ID, () -> load(loads, 100));
+
+        nodeA.evict(Set.of(USER_ID));
+
+        // Node B drops its L1 copy when the broadcast arrives, then reloads the new balance
+        UserResponse reloaded = null;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            reloaded = nodeB.getUser(USER_ID, () -> load(loads, 80));
+            if (reloaded.getTotalPoints() == 80) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertThat(reloaded.getTotalPoints()).isEqualTo(80);
+        assertThat(nodeA.getUser(USER_ID, () -> load(loads, 999)).getTotalPoints()).isEqualTo(80);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evict_doesNotWaitForALoadInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<UserResponse> read = CompletableFuture.supplyAsync(() -> nodeA.getUser(USER_ID, () -> {
+            loading.countDown();
+            try {
+                // Stands in for a loader waiting for a pool connection held by the evicting transaction
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return load(loads, 100);
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            CompletableFuture.runAsync(() -> nodeA.evict(Set.of(USER_ID))).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(read.get(5, TimeUnit.SECONDS).getTotalPoints()).isEqualTo(100);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evict_dropsTheValueOfALoadThatReadBeforeIt() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<UserResponse> staleRead = CompletableFuture.supplyAsync(() -> nodeA.getUser(USER_ID, () -> {
+            UserResponse beforeCommit = load(loads, 100);
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return beforeCommit;
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        nodeA.evict(Set.of(USER_ID));
+        release.countDown();
+
+        assertThat(staleRead.get(5, TimeUnit.SECONDS).getTotalPoints()).isEqualTo(100);
+        // Neither L1 nor L2 kept the value read before the eviction
+        assertThat(redisTemplate.hasKey("user:cache:info:" + USER_ID)).isFalse();
+        assertThat(nodeA.getUser(USER_ID, () -> load(loads, 80)).getTotalPoints()).isEqualTo(80);
+        assertThat(nodeB.getUser(USER_ID, () -> load(loads, 999)).getTotalPoints()).isEqualTo(80);
+        assertThat(loads).hasValue(2);
+    }
+
+    private UserCacheServiceImpl newNode() throws Exception {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        containers.add(container);
+
+        UserCacheConfig config = new UserCacheConfig();
+        ReflectionTestUtils.setField(config, "l1MaxSize", 1000L);
+        ReflectionTestUtils.setField(config, "l1TtlSeconds", 60L);
+        ReflectionTestUtils.setField(config, "l2TtlSeconds", 60L);
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+        UserCacheServiceImpl node = new UserCacheServiceImpl(redisTemplate, container, objectMapper,
+                new SimpleMeterRegistry(), config, Clock.systemDefaultZone());
+        node.init();
+        return node;
+    }
+
+    private UserResponse load(AtomicInteger loads, int totalPoints) {
+        loads.incrementAndGet();
+        return UserResponse.builder()
+                .id(USER_ID)
+                .name("User " + USER_ID)
+                .totalPoints(totalPoints)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 8, 0))
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package vn.ghtk.loyalty.support;
+
+import vn.ghtk.loyalty.event.PointsEvent;
+import vn.ghtk.loyalty.service.PointsEventSink;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects relayed events in memory; {@link #failNext} makes the next publish throw, as an unavailable broker would.
+ */
+public class InMemoryPointsEventSink implements PointsEventSink {
+
+    private final List<PointsEvent> events = new CopyOnWriteArrayList<>();
+    private volatile boolean failNext;
+
+    @Override
+    public void publish(List<PointsEvent> batch) {
+        if (failNext) {
+            failNext = false;
+            throw new IllegalStateException("Sink unavailable");
+        }
+        events.addAll(batch);
+    }
+
+    public void failNext() {
+        failNext = true;
+    }
+
+    public List<PointsEvent> events() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
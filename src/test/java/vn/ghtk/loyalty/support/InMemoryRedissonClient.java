@@ -0,0 +1,144 @@
+package vn.ghtk.loyalty.support;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for {@link RedissonClient}: {@code getLock} returns an {@link RLock} backed by a permit and an
+ * owner id per key, so lock contention between benchmark, load-test or test threads is still exercised. Like
+ * Redisson, the synchronous calls own the lock by thread id and the {@code *Async(..., threadId)} calls by the id
+ * passed in; an async wait runs on a stand-in thread of its own, never on the caller's.
+ */
+public final class InMemoryRedissonClient {
+
+    private static final long NO_OWNER = 0;
+
+    private static final Executor LOCK_WAITERS = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "in-memory-lock-wait");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private InMemoryRedissonClient() {
+    }
+
+    public static RedissonClient create() {
+        Map<String, OwnedLock> locks = new ConcurrentHashMap<>();
+        return (RedissonClient) Proxy.newProxyInstance(
+                InMemoryRedissonClient.class.getClassLoader(),
+                new Class<?>[]{RedissonClient.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getLock" -> lock(locks.computeIfAbsent((String) args[0], key -> new OwnedLock()));
+                    case "shutdown" -> null;
+                    case "isShutdown", "isShuttingDown" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> method.getDeclaringClass().getSimpleName() + "@in-memory";
+                    default -> throw new UnsupportedOperationException("RedissonClient." + method.getName());
+                });
+    }
+
+    private static RLock lock(OwnedLock delegate) {
+        return (RLock) Proxy.newProxyInstance(
+                InMemoryRedissonClient.class.getClassLoader(),
+                new Class<?>[]{RLock.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "tryLock" -> args == null
+                            ? delegate.tryLock(currentThreadId(), 0, TimeUnit.MILLISECONDS)
+                            : delegate.tryLock(currentThreadId(), (Long) args[0], (TimeUnit) args[args.length - 1]);
+                    case "lock" -> {
+                        delegate.lock(currentThreadId());
+                        yield null;
+                    }
+                    case "unlock" -> {
+                        delegate.unlock(currentThreadId());
+                        yield null;
+                    }
+                    // tryLockAsync(waitTime, leaseTime, unit, threadId)
+                    case "tryLockAsync" -> {
+                        if (args == null || args.length != 4) {
+                            throw new UnsupportedOperationException("RLock.tryLockAsync without an owner id");
+                        }
+                        long owner = (Long) args[3];
+                        yield new CompletableFutureWrapper<>(CompletableFuture.supplyAsync(() -> {
+                            try {
+                                return delegate.tryLock(owner, (Long) args[0], (TimeUnit) args[2]);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return false;
+                            }
+                        }, LOCK_WAITERS));
+                    }
+                    case "unlockAsync" -> {
+                        if (args == null) {
+                            throw new UnsupportedOperationException("RLock.unlockAsync without an owner id");
+                        }
+                        try {
+                            delegate.unlock((Long) args[0]);
+                            yield new CompletableFutureWrapper<>((Void) null);
+                        } catch (IllegalMonitorStateException e) {
+                            yield new CompletableFutureWrapper<Void>(e);
+                        }
+                    }
+                    case "isHeldByCurrentThread" -> delegate.isHeldBy(currentThreadId());
+                    case "isHeldByThread" -> delegate.isHeldBy((Long) args[0]);
+                    case "isLocked" -> delegate.isLocked();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> method.getDeclaringClass().getSimpleName() + "@in-memory";
+                    default -> throw new UnsupportedOperationException("RLock." + method.getName());
+                });
+    }
+
+    private static long currentThreadId() {
+        return Thread.currentThread().getId();
+    }
+
+    /**
+     * Not reentrant: neither the services nor the harnesses take a lock they already hold.
+     */
+    private static final class OwnedLock {
+
+        private final Semaphore permit = new Semaphore(1);
+        private final AtomicLong owner = new AtomicLong(NO_OWNER);
+
+        boolean tryLock(long ownerId, long wait, TimeUnit unit) throws InterruptedException {
+            if (!permit.tryAcquire(wait, unit)) {
+                return false;
+            }
+            owner.set(ownerId);
+            return true;
+        }
+
+        void lock(long ownerId) {
+            permit.acquireUninterruptibly();
+            owner.set(ownerId);
+        }
+
+        void unlock(long ownerId) {
+            if (!owner.compareAndSet(ownerId, NO_OWNER)) {
+                throw new IllegalMonitorStateException("Lock is not held by " + ownerId);
+            }
+            permit.release();
+        }
+
+        boolean isHeldBy(long ownerId) {
+            return owner.get() == ownerId;
+        }
+
+        boolean isLocked() {
+            return owner.get() != NO_OWNER;
+        }
+    }
+}
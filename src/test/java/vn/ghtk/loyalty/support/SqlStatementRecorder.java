@@ -0,0 +1,36 @@
+package vn.ghtk.loyalty.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hibernate statement inspector registered by the {@code test} profile. Keeps the SQL of every
+ * prepared statement so tests can EXPLAIN what a repository method really sends, or count round trips.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    public static String lastStatement() {
+        if (STATEMENTS.isEmpty()) {
+            throw new IllegalStateException("No SQL statement recorded");
+        }
+        return STATEMENTS.get(STATEMENTS.size() - 1);
+    }
+}
@@ -0,0 +1,107 @@
+package vn.ghtk.loyalty.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.ghtk.loyalty.config.LimiterConfig;
+import vn.ghtk.loyalty.exception.ServerBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long NO_LOAD = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_shedsBeyondLimitWithoutRunningTheTransaction() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(2);
+        boolean[] thirdRan = {false};
+
+        // Nested calls keep the outer transactions in flight
+        assertThatThrownBy(() -> limiter.execute(() -> limiter.execute(() -> limiter.execute(() -> {
+            thirdRan[0] = true;
+            return null;
+        }))))
+                .isInstanceOf(ServerBusyException.class)
+                .extracting("retryAfterSeconds").isEqualTo(3L);
+
+        assertThat(thirdRan[0]).isFalse();
+        assertThat(meterRegistry.get(MetricsUtil.REJECTIONS)
+                .tag("reason", MetricsUtil.REASON_OVERLOADED)
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT).gauge().value()).isZero();
+        assertThat(limiter.execute(() -> "ran")).isEqualTo("ran");
+    }
+
+    @Test
+    void executeAsync_holdsTheSlotUntilTheFutureCompletes() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(1);
+        CompletableFuture<String> transaction = new CompletableFuture<>();
+        boolean[] secondRan = {false};
+
+        CompletableFuture<String> first = limiter.executeAsync(() -> transaction);
+        CompletableFuture<String> second = limiter.executeAsync(() -> {
+            secondRan[0] = true;
+            return CompletableFuture.completedFuture("ran");
+        });
+
+        assertThat(second).isCompletedExceptionally();
+        assertThatThrownBy(second::join).hasCauseInstanceOf(ServerBusyException.class);
+        assertThat(secondRan[0]).isFalse();
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT).gauge().value()).isEqualTo(1);
+
+        transaction.complete("done");
+        assertThat(first.join()).isEqualTo("done");
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT).gauge().value()).isZero();
+        assertThat(limiter.executeAsync(() -> CompletableFuture.completedFuture("ran")).join()).isEqualTo("ran");
+    }
+
+    @Test
+    void onSample_growsAtNoLoadLatencyAndShrinksWhenTransactionsQueue() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(20);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.onSample(NO_LOAD, limiter.getLimit(), false);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        // Latency x4 at the same concurrency: three quarters of the limit is queueing
+        for (int i = 0; i < 5; i++) {
+            limiter.onSample(NO_LOAD * 4, limiter.getLimit(), false);
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown);
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.LIMIT).gauge().value())
+                .isCloseTo(limiter.getLimit(), within(1.0));
+    }
+
+    @Test
+    void onSample_ignoresLatencyWhenFarBelowLimitAndBacksOffOnFailure() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(20);
+
+        limiter.onSample(NO_LOAD, 2, false);
+        assertThat(limiter.getLimit()).isEqualTo(20);
+
+        limiter.onSample(NO_LOAD, 20, true);
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    private AdaptiveConcurrencyLimiter newLimiter(int initialLimit) {
+        LimiterConfig config = new LimiterConfig();
+        ReflectionTestUtils.setField(config, "enabled", true);
+        ReflectionTestUtils.setField(config, "initialLimit", initialLimit);
+        ReflectionTestUtils.setField(config, "minLimit", 1);
+        ReflectionTestUtils.setField(config, "maxLimit", 100);
+        ReflectionTestUtils.setField(config, "retryAfterSeconds", 3L);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, meterRegistry);
+        limiter.init();
+        return limiter;
+    }
+}
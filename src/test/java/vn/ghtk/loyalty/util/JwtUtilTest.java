@@ -0,0 +1,65 @@
+package vn.ghtk.loyalty.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "loyalty-service-secret-key-for-jwt-token-generation-minimum-256-bits";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(SECRET);
+    }
+
+    @Test
+    void verify_returnsPrincipalAndAnswersRepeatsFromCache() {
+        String token = jwtUtil.generateToken("42");
+
+        JwtUtil.JwtPrincipal first = jwtUtil.verify(token);
+        JwtUtil.JwtPrincipal second = jwtUtil.verify(token);
+
+        assertThat(first.userId()).isEqualTo("42");
+        assertThat(first.expiresAt()).isAfter(new Date().toInstant());
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void verify_rejectsTokenSignedWithAnotherKey() {
+        String foreignToken = newJwtUtil(SECRET + "-other").generateToken("42");
+
+        assertThat(jwtUtil.verify(foreignToken)).isNull();
+        assertThat(jwtUtil.verify("not-a-jwt")).isNull();
+    }
+
+    @Test
+    void verify_rejectsExpiredToken() {
+        String expired = Jwts.builder()
+                .subject("42")
+                .expiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThat(jwtUtil.verify(expired)).isNull();
+    }
+
+    private static JwtUtil newJwtUtil(String secret) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", secret);
+        ReflectionTestUtils.setField(util, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(util, "cacheMaxSize", 1_000L);
+        ReflectionTestUtils.setField(util, "cacheTtlSeconds", 300L);
+        util.init();
+        return util;
+    }
+}